@@ -0,0 +1,39 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+/**
+ * Builds {@link TrustaManager} instances the way the auto-configuration would, using a throwaway private keyset.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static TrustaProperties properties(String self, List<TrustedIssuer> trustedIssuers) throws IOException {
+        Path directory = Files.createTempDirectory("trusta-benchmark");
+        directory.toFile().deleteOnExit();
+        TrustaProperties properties = new TrustaProperties();
+        properties.setIssuer(self);
+        properties.setAllowHttp(true);
+        properties.setPrivateKeysetFile(directory.resolve("private-keyset.json").toString());
+        properties.setTrustedIssuers(trustedIssuers);
+        properties.getKeyRefresh().setEnabled(false);
+        return properties;
+    }
+
+    static TrustaManager manager(TrustaProperties properties) throws GeneralSecurityException, IOException {
+        JwtSignatureConfig.register();
+        return new TrustaManager(properties, new ObjectMapper());
+    }
+}
@@ -0,0 +1,75 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.JsonWebTokenVerify;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code JsonWebTokenVerify.verify} with an empty and a large {@code claimMapping}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IssuerVerifyBenchmark {
+
+    private static final int LARGE_MAPPING_SIZE = 24;
+
+    @Param({"empty", "large"})
+    public String claimMapping;
+
+    private StubIssuers stubIssuers;
+    private JsonWebTokenVerify jsonWebTokenVerify;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stubIssuers = new StubIssuers(1);
+        StubIssuers.StubIssuer issuer = stubIssuers.getIssuers().get(0);
+        Map<String, String> mapping = new LinkedHashMap<>();
+        Map<String, String> claims = new LinkedHashMap<>();
+        if ("large".equals(claimMapping)) {
+            mapping.put("iss", "from");
+            mapping.put("iat", "issuedAt");
+            mapping.put("exp", "expiresAt");
+            mapping.put("aud", "audiences");
+            for (int i = 0; i < LARGE_MAPPING_SIZE; i++) {
+                mapping.put("claim" + i, "mapped" + i);
+                claims.put("claim" + i, "value-" + i);
+            }
+        }
+        jsonWebTokenVerify = new JsonWebTokenVerify(stubIssuers.trustedIssuer(issuer, mapping),
+                "self.bench.local", true);
+        jsonWebTokenVerify.updatePublicKey();
+        token = issuer.sign("tom@outlook.com", claims.isEmpty() ? Collections.emptyMap() : claims);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stubIssuers.close();
+    }
+
+    @Benchmark
+    public VerifiedClaims verify() throws Exception {
+        return jsonWebTokenVerify.verify(token);
+    }
+}
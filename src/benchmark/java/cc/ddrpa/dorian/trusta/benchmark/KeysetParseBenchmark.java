@@ -0,0 +1,69 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.JsonWebTokenVerify;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtPublicKeyVerify;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The keyset handling behind {@code JsonWebTokenVerify.updatePublicKey}.
+ * <p>
+ * {@link #parseKeyset()} measures the Tink parsing on its own, {@link #updatePublicKey()} the whole
+ * refresh against a local issuer, where an unchanged keyset is no longer parsed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeysetParseBenchmark {
+
+    private StubIssuers stubIssuers;
+    private JsonWebTokenVerify jsonWebTokenVerify;
+    private String publicKeysetAsString;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stubIssuers = new StubIssuers(1);
+        StubIssuers.StubIssuer issuer = stubIssuers.getIssuers().get(0);
+        publicKeysetAsString = issuer.getPublicKeysetAsString();
+        jsonWebTokenVerify = new JsonWebTokenVerify(stubIssuers.trustedIssuer(issuer, Collections.emptyMap()),
+                "self.bench.local", true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stubIssuers.close();
+    }
+
+    @Benchmark
+    public JwtPublicKeyVerify parseKeyset() throws Exception {
+        KeysetHandle publicKeysetHandle = TinkJsonProtoKeysetFormat.parseKeyset(publicKeysetAsString,
+                InsecureSecretKeyAccess.get());
+        return publicKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeyVerify.class);
+    }
+
+    @Benchmark
+    public long updatePublicKey() throws Exception {
+        jsonWebTokenVerify.updatePublicKey();
+        return jsonWebTokenVerify.getKeysetVersion();
+    }
+}
@@ -0,0 +1,84 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds with a relative error below 1%.
+ * <p>
+ * Recording is a couple of shifts and an array increment, so every operation of a soak run can be recorded.
+ * Not thread safe: each worker records into its own histogram and the histograms are merged afterwards.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long totalCount;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        totalCount++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        max = Math.max(max, other.max);
+    }
+
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * 返回不小于给定比例的样本都不超过的值，取所在区间的上界
+     *
+     * @param quantile quantile between 0 and 1, e.g. 0.999
+     * @return latency in nanoseconds, 0 if nothing was recorded
+     */
+    long valueAt(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, lowerBound(i + 1) - 1);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 小于 128 的值各占一个区间；更大的值按最高位分组，每组再线性分为 128 个区间
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowerBound(int index) {
+        int bucket = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (bucket == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKETS + sub)) << (bucket - 1);
+    }
+}
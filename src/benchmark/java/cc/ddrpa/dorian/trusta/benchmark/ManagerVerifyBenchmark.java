@@ -0,0 +1,96 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TrustaManager.verify} with 1, 10 and 100 registered issuers, single and multi threaded.
+ * <p>
+ * Tokens are spread evenly over all issuers so that issuer routing is exercised as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManagerVerifyBenchmark {
+
+    private static final int TOKENS_PER_ISSUER = 16;
+
+    @Param({"1", "10", "100"})
+    public int issuerCount;
+
+    private StubIssuers stubIssuers;
+    private TrustaManager trustaManager;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stubIssuers = new StubIssuers(issuerCount);
+        List<TrustedIssuer> trustedIssuers = new ArrayList<>();
+        List<String> signedTokens = new ArrayList<>();
+        for (StubIssuers.StubIssuer issuer : stubIssuers.getIssuers()) {
+            trustedIssuers.add(stubIssuers.trustedIssuer(issuer, Collections.emptyMap()));
+            for (int i = 0; i < TOKENS_PER_ISSUER; i++) {
+                signedTokens.add(issuer.sign("user-" + i + "@bench.local", Collections.emptyMap()));
+            }
+        }
+        Collections.shuffle(signedTokens);
+        tokens = signedTokens.toArray(new String[0]);
+        trustaManager = BenchmarkSupport.manager(BenchmarkSupport.properties("self.bench.local", trustedIssuers));
+        if (trustaManager.getBootstrapStatus().getReadyCount() != issuerCount) {
+            throw new IllegalStateException("Not all stub issuers are ready: " + trustaManager.getBootstrapStatus());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        trustaManager.close();
+        stubIssuers.close();
+    }
+
+    @Benchmark
+    public VerifiedClaims verify(Cursor cursor) throws Exception {
+        return trustaManager.verify(tokens[cursor.next(tokens.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public VerifiedClaims verifyConcurrent(Cursor cursor) throws Exception {
+        return trustaManager.verify(tokens[cursor.next(tokens.length)]);
+    }
+
+    /**
+     * Per-thread position in the token array.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next(int length) {
+            position = (position + 1) % length;
+            return position;
+        }
+    }
+}
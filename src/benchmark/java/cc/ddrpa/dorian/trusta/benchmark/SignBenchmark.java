@@ -0,0 +1,83 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.JsonWebTokenSignerTemplate;
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code JsonWebTokenSigner.sign} with and without custom claims, and signing through a shared template.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignBenchmark {
+
+    private static final List<String> AUDIENCES = List.of(
+            "peer-0.bench.local", "peer-1.bench.local", "peer-2.bench.local", "peer-3.bench.local",
+            "peer-4.bench.local", "peer-5.bench.local", "peer-6.bench.local", "peer-7.bench.local",
+            "peer-8.bench.local", "peer-9.bench.local");
+
+    private TrustaManager trustaManager;
+    private JsonWebTokenSignerTemplate template;
+
+    @Setup
+    public void setup() throws Exception {
+        trustaManager = BenchmarkSupport.manager(BenchmarkSupport.properties("self.bench.local", Collections.emptyList()));
+        template = trustaManager.getSignerTemplate()
+                .withClaim("email", "tom@outlook.com")
+                .withClaim("name", "Tom")
+                .withClaim("department", "R&D");
+    }
+
+    @TearDown
+    public void tearDown() {
+        trustaManager.close();
+    }
+
+    @Benchmark
+    public String sign() throws Exception {
+        return trustaManager.getSigner()
+                .setSubject("tom@outlook.com")
+                .setAudience("peer.bench.local")
+                .sign();
+    }
+
+    @Benchmark
+    public String signWithClaims() throws Exception {
+        return trustaManager.getSigner()
+                .setSubject("tom@outlook.com")
+                .setAudience("peer.bench.local")
+                .addClaim("email", "tom@outlook.com")
+                .addClaim("name", "Tom")
+                .addClaim("department", "R&D")
+                .sign();
+    }
+
+    @Benchmark
+    public String signWithTemplate() throws Exception {
+        return template.sign("tom@outlook.com", "peer.bench.local");
+    }
+
+    @Benchmark
+    public Map<String, String> signForTenAudiences() throws Exception {
+        return template.signForAudiences("tom@outlook.com", AUDIENCES);
+    }
+}
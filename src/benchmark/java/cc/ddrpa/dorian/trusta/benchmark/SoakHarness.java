@@ -0,0 +1,303 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.BootstrapStatus;
+import cc.ddrpa.dorian.trusta.KeyFetchCircuitBreaker;
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifyOutcome;
+import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load and soak run of {@code TrustaManager.verify} against local stub issuers.
+ * <p>
+ * Worker threads sign fresh tokens with randomly chosen stub issuers and verify them for a fixed time,
+ * while the stubs answer keyset requests with the configured latency and error rate and rotate their
+ * signing keys. Only the verification is timed. The run is reported as throughput, latency percentiles
+ * and the number of operations per {@link VerifyOutcome}; everything runs on the loopback interface.
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec@soak -Dsoak.args="--issuers=20 --threads=16 --duration=10m"
+ * </pre>
+ * Options, all in {@code --name=value} form:
+ * <ul>
+ *     <li>{@code issuers}: number of stub issuers, default 10</li>
+ *     <li>{@code threads}: number of worker threads, default the number of processors</li>
+ *     <li>{@code duration}: measured run time, default 60s</li>
+ *     <li>{@code warmup}: run time before measuring starts, default 10s</li>
+ *     <li>{@code latency}: delay of every keyset response, default 0ms</li>
+ *     <li>{@code error-rate}: fraction of keyset requests answered with 503, default 0</li>
+ *     <li>{@code rotate-every}: how often every issuer rotates its signing key, default 0s (never)</li>
+ *     <li>{@code invalid-ratio}: fraction of tokens whose signature is corrupted, default 0</li>
+ *     <li>{@code report-every}: interval of progress lines, default 10s</li>
+ * </ul>
+ * Durations accept {@code ms}, {@code s}, {@code m} and {@code h} suffixes.
+ */
+public class SoakHarness {
+
+    private static final Map<String, String> CLAIMS = Map.of("role", "soak");
+
+    private final int issuerCount;
+    private final int threads;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration latency;
+    private final double errorRate;
+    private final Duration rotateEvery;
+    private final double invalidRatio;
+    private final Duration reportEvery;
+
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicInteger rotations = new AtomicInteger();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    SoakHarness(Map<String, String> options) {
+        this.issuerCount = Integer.parseInt(options.getOrDefault("issuers", "10"));
+        this.threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        this.duration = parseDuration(options.getOrDefault("duration", "60s"));
+        this.warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        this.latency = parseDuration(options.getOrDefault("latency", "0ms"));
+        this.errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0"));
+        this.rotateEvery = parseDuration(options.getOrDefault("rotate-every", "0s"));
+        this.invalidRatio = Double.parseDouble(options.getOrDefault("invalid-ratio", "0"));
+        this.reportEvery = parseDuration(options.getOrDefault("report-every", "10s"));
+        if (issuerCount <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Issuers and threads must be positive");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new SoakHarness(options).run();
+    }
+
+    void run() throws Exception {
+        try (StubIssuers stubIssuers = new StubIssuers(issuerCount)) {
+            List<TrustedIssuer> trustedIssuers = new ArrayList<>();
+            for (StubIssuers.StubIssuer issuer : stubIssuers.getIssuers()) {
+                issuer.setLatency(latency).setErrorRate(errorRate);
+                trustedIssuers.add(stubIssuers.trustedIssuer(issuer, Collections.emptyMap()));
+            }
+            TrustaProperties properties = BenchmarkSupport.properties("soak.bench.local", trustedIssuers);
+            // 与生产环境一样开启后台刷新与按需刷新，让轮换与获取失败都经过正常的恢复路径
+            properties.getKeyRefresh().setEnabled(true)
+                    .setDefaultInterval(Duration.ofSeconds(30))
+                    .setMinInterval(Duration.ofSeconds(1));
+            properties.getOnDemandRefresh().setEnabled(true)
+                    .setMinInterval(Duration.ofSeconds(1));
+            properties.getKeyFetch().setInitialBackoff(Duration.ofSeconds(1));
+
+            System.out.printf("Soak run: %d issuers, %d threads, %s after %s warm-up, keyset latency %s, "
+                            + "error rate %.3f, rotate every %s, invalid ratio %.3f%n",
+                    issuerCount, threads, duration, warmup, latency, errorRate, rotateEvery, invalidRatio);
+            try (TrustaManager trustaManager = BenchmarkSupport.manager(properties)) {
+                BootstrapStatus bootstrapStatus = trustaManager.getBootstrapCompletion().join();
+                System.out.printf("Bootstrap: %d of %d issuers ready%n",
+                        bootstrapStatus.getReadyCount(), issuerCount);
+                ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+                ExecutorService workers = Executors.newFixedThreadPool(threads);
+                try {
+                    scheduleRotation(scheduler, stubIssuers.getIssuers());
+                    List<Future<Worker>> futures = new ArrayList<>();
+                    for (int i = 0; i < threads; i++) {
+                        Worker worker = new Worker(trustaManager, stubIssuers.getIssuers());
+                        futures.add(workers.submit(worker, worker));
+                    }
+                    Thread.sleep(warmup.toMillis());
+                    operations.reset();
+                    failures.reset();
+                    measuring = true;
+                    long startNanos = System.nanoTime();
+                    progress(startNanos);
+                    running = false;
+                    long elapsedNanos = System.nanoTime() - startNanos;
+
+                    LatencyHistogram histogram = new LatencyHistogram();
+                    Map<VerifyOutcome, Long> outcomes = new EnumMap<>(VerifyOutcome.class);
+                    for (Future<Worker> future : futures) {
+                        Worker worker = future.get();
+                        histogram.merge(worker.histogram);
+                        worker.outcomes.forEach((outcome, count) -> outcomes.merge(outcome, count, Long::sum));
+                    }
+                    report(elapsedNanos, histogram, outcomes, stubIssuers, trustaManager);
+                } finally {
+                    running = false;
+                    scheduler.shutdownNow();
+                    workers.shutdownNow();
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个签发者每隔 {@code rotate-every} 轮换一次，各签发者的轮换时间均匀错开
+     */
+    private void scheduleRotation(ScheduledExecutorService scheduler, List<StubIssuers.StubIssuer> issuers) {
+        if (rotateEvery.isZero() || rotateEvery.isNegative()) {
+            return;
+        }
+        long periodMillis = Math.max(1, rotateEvery.toMillis() / issuers.size());
+        AtomicInteger next = new AtomicInteger();
+        scheduler.scheduleAtFixedRate(() -> {
+            StubIssuers.StubIssuer issuer = issuers.get(next.getAndIncrement() % issuers.size());
+            try {
+                issuer.rotate();
+                rotations.incrementAndGet();
+            } catch (GeneralSecurityException e) {
+                System.err.printf("Failed to rotate %s: %s%n", issuer.getName(), e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 测量期间定期输出这段时间内的吞吐量与失败数，便于发现长时间运行中的性能衰减
+     */
+    private void progress(long startNanos) throws InterruptedException {
+        long endNanos = startNanos + duration.toNanos();
+        long reportNanos = Math.max(reportEvery.toNanos(), TimeUnit.SECONDS.toNanos(1));
+        long lastNanos = startNanos;
+        long lastOperations = 0;
+        long lastFailures = 0;
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= endNanos) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(reportNanos, endNanos - now));
+            now = System.nanoTime();
+            long totalOperations = operations.sum();
+            long totalFailures = failures.sum();
+            System.out.printf("[%6.0fs] %10.1f ops/s, %d failed%n",
+                    (now - startNanos) / 1e9,
+                    (totalOperations - lastOperations) * 1e9 / (now - lastNanos),
+                    totalFailures - lastFailures);
+            lastNanos = now;
+            lastOperations = totalOperations;
+            lastFailures = totalFailures;
+        }
+    }
+
+    private void report(long elapsedNanos, LatencyHistogram histogram, Map<VerifyOutcome, Long> outcomes,
+                        StubIssuers stubIssuers, TrustaManager trustaManager) {
+        long total = histogram.getTotalCount();
+        System.out.println();
+        System.out.printf("Operations:    %d (%.1f ops/s)%n", total, total * 1e9 / elapsedNanos);
+        System.out.printf("Latency (us):  p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                histogram.valueAt(0.50) / 1e3, histogram.valueAt(0.99) / 1e3,
+                histogram.valueAt(0.999) / 1e3, histogram.getMax() / 1e3);
+        System.out.println("Outcomes:");
+        outcomes.forEach((outcome, count) ->
+                System.out.printf("  %-18s %12d  %6.2f%%%n", outcome.getTagValue(), count, count * 100.0 / total));
+        long keysetRequests = 0;
+        long injectedErrors = 0;
+        for (StubIssuers.StubIssuer issuer : stubIssuers.getIssuers()) {
+            keysetRequests += issuer.getRequestCount();
+            injectedErrors += issuer.getInjectedErrorCount();
+        }
+        System.out.printf("Stub issuers:  %d keyset requests, %d injected errors, %d rotations%n",
+                keysetRequests, injectedErrors, rotations.get());
+        KeyFetchCircuitBreaker breaker = trustaManager.getKeyFetchBreaker();
+        for (StubIssuers.StubIssuer issuer : stubIssuers.getIssuers()) {
+            KeyFetchCircuitBreaker.State state = breaker.getState(issuer.getName());
+            if (state != KeyFetchCircuitBreaker.State.CLOSED) {
+                System.out.printf("Key fetch %s: %s after %d consecutive failures%n",
+                        state, issuer.getName(), breaker.getConsecutiveFailures(issuer.getName()));
+            }
+        }
+    }
+
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+
+    private final class Worker implements Runnable {
+        private final TrustaManager trustaManager;
+        private final List<StubIssuers.StubIssuer> issuers;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final Map<VerifyOutcome, Long> outcomes = new EnumMap<>(VerifyOutcome.class);
+
+        private Worker(TrustaManager trustaManager, List<StubIssuers.StubIssuer> issuers) {
+            this.trustaManager = trustaManager;
+            this.issuers = issuers;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long sequence = 0;
+            while (running) {
+                StubIssuers.StubIssuer issuer = issuers.get(random.nextInt(issuers.size()));
+                String token;
+                try {
+                    token = issuer.sign("user-" + sequence++ + "@soak.local", CLAIMS);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (invalidRatio > 0 && random.nextDouble() < invalidRatio) {
+                    token = corrupt(token);
+                }
+                VerifyOutcome outcome = VerifyOutcome.SUCCESS;
+                long startNanos = System.nanoTime();
+                try {
+                    trustaManager.verify(token);
+                } catch (Exception e) {
+                    outcome = VerifyOutcome.classify(e);
+                }
+                long elapsedNanos = System.nanoTime() - startNanos;
+                if (!measuring) {
+                    continue;
+                }
+                histogram.record(elapsedNanos);
+                outcomes.merge(outcome, 1L, Long::sum);
+                operations.increment();
+                if (outcome != VerifyOutcome.SUCCESS) {
+                    failures.increment();
+                }
+            }
+        }
+
+        /**
+         * 修改签名的中间一个字符，保持 token 结构完整，使其在签名验证时失败
+         */
+        private static String corrupt(String token) {
+            int signatureStart = token.lastIndexOf('.') + 1;
+            int position = signatureStart + (token.length() - signatureStart) / 2;
+            char replacement = token.charAt(position) == 'A' ? 'B' : 'A';
+            return token.substring(0, position) + replacement + token.substring(position + 1);
+        }
+    }
+}
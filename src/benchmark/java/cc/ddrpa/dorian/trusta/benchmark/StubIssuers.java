@@ -0,0 +1,230 @@
+package cc.ddrpa.dorian.trusta.benchmark;
+
+import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtEcdsaParameters;
+import com.google.crypto.tink.jwt.JwtPublicKeySign;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
+import com.google.crypto.tink.jwt.RawJwt;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local issuers serving their public keysets over HTTP, so benchmarks can run without network access.
+ * <p>
+ * Each issuer can be given a response latency and an error rate, and can rotate its signing key, to
+ * reproduce slow or flaky peers.
+ */
+public class StubIssuers implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<StubIssuer> issuers = new ArrayList<>();
+
+    /**
+     * Start {@code count} issuers on a loopback port.
+     *
+     * @param count number of issuers
+     * @throws GeneralSecurityException if key generation fails
+     * @throws IOException              if the server cannot be started
+     */
+    public StubIssuers(int count) throws GeneralSecurityException, IOException {
+        JwtSignatureConfig.register();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // 模拟延迟时一个请求会占用一个线程，不能使用默认的单线程
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-issuer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        for (int i = 0; i < count; i++) {
+            StubIssuer issuer = new StubIssuer("issuer-" + i + ".bench.local", "/issuer-" + i + "/.well-known/trusta/jwks.json");
+            server.createContext(issuer.path, exchange -> {
+                issuer.requestCount.increment();
+                try {
+                    long latencyMillis = issuer.latencyMillis;
+                    if (latencyMillis > 0) {
+                        Thread.sleep(latencyMillis);
+                    }
+                    if (issuer.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < issuer.errorRate) {
+                        issuer.injectedErrorCount.increment();
+                        exchange.sendResponseHeaders(503, -1);
+                        return;
+                    }
+                    byte[] body = issuer.publicKeysetAsString.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream outputStream = exchange.getResponseBody()) {
+                        outputStream.write(body);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            });
+            issuers.add(issuer);
+        }
+        server.start();
+    }
+
+    public List<StubIssuer> getIssuers() {
+        return Collections.unmodifiableList(issuers);
+    }
+
+    /**
+     * Trusted issuer configuration pointing at a stub issuer.
+     *
+     * @param issuer       stub issuer
+     * @param claimMapping claim mapping of the trusted issuer
+     * @return trusted issuer configuration
+     */
+    public TrustedIssuer trustedIssuer(StubIssuer issuer, Map<String, String> claimMapping) {
+        return new TrustedIssuer()
+                .setIssuer(issuer.name)
+                .setPublicKeyUri("http://127.0.0.1:" + server.getAddress().getPort() + issuer.path)
+                .setExpectAudience(false)
+                .setClaimMapping(claimMapping);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * A single issuer with its own ES256 keyset.
+     */
+    public static class StubIssuer {
+        private static final JwtEcdsaParameters KEY_PARAMETERS;
+
+        static {
+            try {
+                KEY_PARAMETERS = JwtEcdsaParameters.builder()
+                        .setAlgorithm(JwtEcdsaParameters.Algorithm.ES256)
+                        .setKidStrategy(JwtEcdsaParameters.KidStrategy.BASE64_ENCODED_KEY_ID)
+                        .build();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final String name;
+        private final String path;
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder injectedErrorCount = new LongAdder();
+        private volatile KeysetHandle privateKeysetHandle;
+        private volatile String publicKeysetAsString;
+        private volatile JwtPublicKeySign jwtPublicKeySign;
+        private volatile long latencyMillis;
+        private volatile double errorRate;
+
+        StubIssuer(String name, String path) throws GeneralSecurityException {
+            this.name = name;
+            this.path = path;
+            apply(KeysetHandle.generateNew(KEY_PARAMETERS));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPublicKeysetAsString() {
+            return publicKeysetAsString;
+        }
+
+        /**
+         * Delay every keyset response by the given time.
+         *
+         * @param latency response latency
+         * @return this
+         */
+        public StubIssuer setLatency(Duration latency) {
+            this.latencyMillis = latency.toMillis();
+            return this;
+        }
+
+        /**
+         * Answer the given fraction of keyset requests with 503.
+         *
+         * @param errorRate fraction of failed responses, between 0 and 1
+         * @return this
+         */
+        public StubIssuer setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * 生成新的签名密钥并立即用于签名，公钥集保留上一个密钥，更早的密钥被删除
+         *
+         * @throws GeneralSecurityException if key generation fails
+         */
+        public synchronized void rotate() throws GeneralSecurityException {
+            KeysetHandle current = this.privateKeysetHandle;
+            KeysetHandle.Builder builder = KeysetHandle.newBuilder(current);
+            for (int i = current.size() - 1; i >= 0; i--) {
+                if (!current.getAt(i).isPrimary()) {
+                    builder.deleteAt(i);
+                }
+            }
+            builder.addEntry(KeysetHandle.generateEntryFromParameters(KEY_PARAMETERS).withRandomId().makePrimary());
+            apply(builder.build());
+        }
+
+        public long getRequestCount() {
+            return requestCount.sum();
+        }
+
+        public long getInjectedErrorCount() {
+            return injectedErrorCount.sum();
+        }
+
+        private void apply(KeysetHandle privateKeysetHandle) throws GeneralSecurityException {
+            this.publicKeysetAsString = TinkJsonProtoKeysetFormat.serializeKeyset(
+                    privateKeysetHandle.getPublicKeysetHandle(), InsecureSecretKeyAccess.get());
+            this.jwtPublicKeySign = privateKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeySign.class);
+            this.privateKeysetHandle = privateKeysetHandle;
+        }
+
+        /**
+         * Sign a token for the given subject, valid long enough to outlive a benchmark run.
+         *
+         * @param subject subject
+         * @param claims  additional string claims
+         * @return signed token
+         * @throws GeneralSecurityException if signing fails
+         */
+        public String sign(String subject, Map<String, String> claims) throws GeneralSecurityException {
+            Instant now = Instant.now();
+            RawJwt.Builder builder = RawJwt.newBuilder()
+                    .setIssuer(name)
+                    .setSubject(subject)
+                    .setAudience("*")
+                    .setIssuedAt(now)
+                    .setExpiration(now.plus(Duration.ofHours(2)));
+            claims.forEach(builder::addStringClaim);
+            return jwtPublicKeySign.signAndEncode(builder.build());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+/**
+ * Writes files through a temporary file in the same directory, so readers never see partial content.
+ * <p>
+ * Temporary files end with {@link #TEMPORARY_SUFFIX}; they are only left behind by a crashed writer.
+ */
+final class AtomicFiles {
+
+    static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * 先写入临时文件再移动到目标位置
+     *
+     * @param file    target file
+     * @param content content in UTF-8
+     * @throws IOException if the file cannot be written
+     */
+    static void writeString(Path file, String content) throws IOException {
+        Path directory = Objects.requireNonNullElse(file.toAbsolutePath().getParent(), Path.of("."));
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), TEMPORARY_SUFFIX);
+        try {
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * 原子地创建带内容的文件，文件已存在时不修改
+     * <p>
+     * 内容先写入临时文件，再以硬链接的方式创建目标文件，读者不会看到没有内容的文件；
+     * 文件系统不支持硬链接时退回到先创建文件再写入。
+     *
+     * @param file    target file
+     * @param content content in UTF-8
+     * @return false if the file already exists
+     * @throws IOException if the file cannot be written
+     */
+    static boolean createString(Path file, String content) throws IOException {
+        Path directory = Objects.requireNonNullElse(file.toAbsolutePath().getParent(), Path.of("."));
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), TEMPORARY_SUFFIX);
+        try {
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            Files.createLink(file, temporary);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            try {
+                Files.writeString(Files.createFile(file), content, StandardCharsets.UTF_8);
+                return true;
+            } catch (FileAlreadyExistsException exists) {
+                return false;
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
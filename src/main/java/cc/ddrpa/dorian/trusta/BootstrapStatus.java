@@ -0,0 +1,88 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the initial public key fetch of all trusted issuers.
+ * <p>
+ * Issuers whose keys were not fetched before the startup deadline stay {@link State#PENDING}
+ * until their fetch completes in the background.
+ */
+public class BootstrapStatus {
+
+    private final Map<String, State> states;
+
+    BootstrapStatus(Map<String, State> states) {
+        this.states = Collections.unmodifiableMap(new LinkedHashMap<>(states));
+    }
+
+    /**
+     * Get the bootstrap state of every trusted issuer.
+     *
+     * @return issuer name to state
+     */
+    public Map<String, State> getStates() {
+        return states;
+    }
+
+    /**
+     * Get the issuers in the given state.
+     *
+     * @param state bootstrap state
+     * @return issuer names
+     */
+    public Set<String> getIssuers(State state) {
+        return states.entrySet().stream()
+                .filter(entry -> entry.getValue() == state)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 所有签发者的首次获取均已结束（无论成功与否）
+     *
+     * @return true if no issuer is pending
+     */
+    public boolean isComplete() {
+        return !states.containsValue(State.PENDING);
+    }
+
+    public int getReadyCount() {
+        return (int) states.values().stream().filter(state -> state == State.READY).count();
+    }
+
+    /**
+     * Ratio of issuers whose keys are ready, 1.0 when no issuer is configured.
+     *
+     * @return ready ratio
+     */
+    public double getReadyRatio() {
+        return states.isEmpty() ? 1.0 : (double) getReadyCount() / states.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BootstrapStatus{" +
+                "states=" + states +
+                '}';
+    }
+
+    public enum State {
+        /**
+         * The initial fetch is still running.
+         */
+        PENDING,
+        /**
+         * The public keyset has been fetched.
+         */
+        READY,
+        /**
+         * The initial fetch failed, the issuer is retried by the background refresh.
+         */
+        FAILED
+    }
+}
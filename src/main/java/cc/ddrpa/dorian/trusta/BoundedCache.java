@@ -0,0 +1,171 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Size-bounded concurrent map shared by the token caches, evicting the least recently used entries.
+ * <p>
+ * Reads and writes never block each other. Each entry records when it was last read; once the map grows
+ * past its maximum size a single thread drops the expired entries and then the least recently used ones
+ * until the size is back to about 90% of the maximum, while other threads keep reading and writing.
+ * An eviction only runs again after another tenth of the maximum size has been inserted, so its cost is
+ * amortized over those insertions. Concurrent writers may briefly push the size past the maximum while an
+ * eviction runs.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class BoundedCache<K, V> {
+
+    private final int maximumSize;
+    // 淘汰后保留的条目数，留出余量使淘汰不会在每次写入时发生
+    private final int retainedSize;
+    private final ToLongFunction<V> expiresAtMillis;
+    private final Runnable evictionListener;
+    private final LongSupplier ticker;
+    private final Map<K, Node<V>> entries = new ConcurrentHashMap<>();
+    // 同一时刻只有一个线程执行淘汰，其他线程不等待
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Create a new BoundedCache.
+     *
+     * @param maximumSize      maximum number of entries
+     * @param expiresAtMillis  expiration time of a value in epoch milliseconds
+     * @param evictionListener called once for every entry dropped by eviction
+     */
+    BoundedCache(int maximumSize, ToLongFunction<V> expiresAtMillis, Runnable evictionListener) {
+        this(maximumSize, expiresAtMillis, evictionListener, System::nanoTime);
+    }
+
+    /**
+     * Create a new BoundedCache with the given source of access times, for tests.
+     *
+     * @param maximumSize      maximum number of entries
+     * @param expiresAtMillis  expiration time of a value in epoch milliseconds
+     * @param evictionListener called once for every entry dropped by eviction
+     * @param ticker           monotonic source of access times
+     */
+    BoundedCache(int maximumSize, ToLongFunction<V> expiresAtMillis, Runnable evictionListener, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.retainedSize = maximumSize - Math.max(1, maximumSize / 10);
+        this.expiresAtMillis = expiresAtMillis;
+        this.evictionListener = evictionListener;
+        this.ticker = ticker;
+    }
+
+    /**
+     * 读取条目并记录访问时间，不检查是否过期
+     *
+     * @param key key
+     * @return value, or null
+     */
+    V get(K key) {
+        Node<V> node = entries.get(key);
+        if (Objects.isNull(node)) {
+            return null;
+        }
+        node.accessedAt = ticker.getAsLong();
+        return node.value;
+    }
+
+    /**
+     * 写入条目，超出容量时由当前线程淘汰，已有线程在淘汰时直接返回
+     *
+     * @param key   key
+     * @param value value
+     */
+    void put(K key, V value) {
+        entries.put(key, new Node<>(value, ticker.getAsLong()));
+        if (entries.size() > maximumSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    /**
+     * 仅当条目仍是给定的值时移除
+     *
+     * @param key   key
+     * @param value value read earlier
+     * @return true if the entry was removed
+     */
+    boolean remove(K key, V value) {
+        Node<V> node = entries.get(key);
+        return Objects.nonNull(node) && node.value == value && entries.remove(key, node);
+    }
+
+    void removeIf(Predicate<V> filter) {
+        entries.values().removeIf(node -> filter.test(node.value));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * 先清理已过期的条目，仍然超出保留数量时按最近访问时间淘汰最久未使用的条目
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Node<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (expiresAtMillis.applyAsLong(iterator.next().value) <= now) {
+                iterator.remove();
+                evictionListener.run();
+            }
+        }
+        int excess = entries.size() - retainedSize;
+        if (excess <= 0) {
+            return;
+        }
+        // 找出第 excess 旧的访问时间，淘汰不晚于该时间的条目
+        long[] accessTimes = entries.values().stream().mapToLong(node -> node.accessedAt).toArray();
+        if (accessTimes.length == 0) {
+            return;
+        }
+        Arrays.sort(accessTimes);
+        long threshold = accessTimes[Math.min(excess, accessTimes.length) - 1];
+        iterator = entries.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().accessedAt <= threshold) {
+                iterator.remove();
+                evictionListener.run();
+                excess--;
+            }
+        }
+    }
+
+    private static final class Node<V> {
+
+        private final V value;
+        private volatile long accessedAt;
+
+        private Node(V value, long accessedAt) {
+            this.value = value;
+            this.accessedAt = accessedAt;
+        }
+    }
+}
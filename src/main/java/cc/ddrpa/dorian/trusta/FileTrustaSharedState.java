@@ -0,0 +1,322 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TrustaSharedState} kept in a directory, so that processes on the same host or on a shared
+ * file system see each other's state.
+ * <p>
+ * Meant as a simple stand-in for a distributed store, for example to run several nodes in tests.
+ * Keysets and verification results are written to a temporary file first and then moved into place;
+ * a {@code jti} is recorded by atomically creating a file named after it, holding its expiration, so only
+ * one process can record it. Expired files are removed when they are next read, and every 10 minutes by a
+ * background sweep started from a write.
+ */
+public class FileTrustaSharedState implements TrustaSharedState {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileTrustaSharedState.class);
+    /**
+     * 清理过期文件的间隔
+     */
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(10);
+    /**
+     * 没有内容或内容损坏的文件超过这段时间后视为写入者已崩溃
+     */
+    private static final Duration INCOMPLETE_FILE_GRACE = Duration.ofSeconds(30);
+
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+    private final Path verificationDirectory;
+    private final Path jwtIdDirectory;
+    private final PublicKeysetDiskCache keysetCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Create a new FileTrustaSharedState.
+     *
+     * @param directory    state directory, created on first write
+     * @param keysetMaxAge keysets fetched longer ago than this are not adopted
+     * @param objectMapper Jackson object mapper
+     */
+    public FileTrustaSharedState(Path directory, Duration keysetMaxAge, ObjectMapper objectMapper) {
+        this.verificationDirectory = directory.resolve("verified");
+        this.jwtIdDirectory = directory.resolve("jti");
+        this.keysetCache = new PublicKeysetDiskCache(directory.resolve("keysets"), keysetMaxAge, objectMapper);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Optional<PublicKeysetDiskCache.CachedKeyset> loadKeyset(String issuer, URI publicKeyURI) {
+        try {
+            return keysetCache.load(issuer, publicKeyURI);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void storeKeyset(String issuer, URI publicKeyURI, PublicKeysetDiskCache.CachedKeyset keyset) {
+        try {
+            keysetCache.store(issuer, publicKeyURI, keyset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Verification> loadVerification(String tokenDigest) {
+        Path file = verificationDirectory.resolve(tokenDigest + ".json");
+        try {
+            JsonNode node = objectMapper.readTree(Files.readString(file, StandardCharsets.UTF_8));
+            Instant expiration = Instant.ofEpochMilli(node.path("expiration").asLong());
+            if (!expiration.isAfter(Instant.now())) {
+                Files.deleteIfExists(file);
+                return Optional.empty();
+            }
+            VerifiedClaims verifiedClaims = new VerifiedClaims()
+                    .setExpiration(expiration)
+                    .setJwtId(textOrNull(node, "jwtId"));
+            verifiedClaims.setIssuer(node.path("issuer").asText());
+            verifiedClaims.setSubject(textOrNull(node, "subject"));
+            for (Map.Entry<String, JsonNode> claim : node.path("claims").properties()) {
+                verifiedClaims.addClaim(claim.getKey(), readClaim(claim.getValue()));
+            }
+            // 时间类型的声明单独保存，恢复为 Instant
+            for (Map.Entry<String, JsonNode> claim : node.path("instantClaims").properties()) {
+                verifiedClaims.addClaim(claim.getKey(), Instant.ofEpochMilli(claim.getValue().asLong()));
+            }
+            return Optional.of(new Verification(node.path("keysetFingerprint").asText(), verifiedClaims));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void storeVerification(String tokenDigest, Verification verification) {
+        maybeSweep();
+        VerifiedClaims verifiedClaims = verification.claims();
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("keysetFingerprint", verification.keysetFingerprint())
+                .put("issuer", verifiedClaims.getIssuer())
+                .put("subject", verifiedClaims.getSubject())
+                .put("expiration", verifiedClaims.getExpiration().toEpochMilli())
+                .put("jwtId", verifiedClaims.getJwtId());
+        ObjectNode claims = node.putObject("claims");
+        ObjectNode instantClaims = node.putObject("instantClaims");
+        verifiedClaims.forEachClaim((name, value) -> {
+            if (value instanceof Instant instant) {
+                instantClaims.put(name, instant.toEpochMilli());
+            } else {
+                claims.set(name, objectMapper.valueToTree(value));
+            }
+        });
+        try {
+            AtomicFiles.writeString(verificationDirectory.resolve(tokenDigest + ".json"),
+                    objectMapper.writeValueAsString(node));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean markJwtIdIfAbsent(String issuer, String jwtId, Instant expiration) {
+        maybeSweep();
+        Path file = jwtIdDirectory.resolve(sha256Hex(issuer)).resolve(sha256Hex(jwtId));
+        try {
+            while (true) {
+                if (AtomicFiles.createString(file, Long.toString(expiration.toEpochMilli()))) {
+                    return true;
+                }
+                if (!isExpired(file, System.currentTimeMillis())) {
+                    return false;
+                }
+                // 过期的记录删除后重新创建，并发删除时只有一方能创建成功
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读取 jti 记录的过期时间
+     * <p>
+     * 记录通常原子地写入；不支持硬链接的文件系统上，创建者写入过期时间之前崩溃会留下空文件，
+     * 这样的文件超过 {@link #INCOMPLETE_FILE_GRACE} 后视为已过期，否则该 jti 会被永久拒绝。
+     *
+     * @param file      jti file
+     * @param nowMillis current time
+     * @return true if the record no longer blocks the jti
+     */
+    private static boolean isExpired(Path file, long nowMillis) throws IOException {
+        String content;
+        try {
+            content = Files.readString(file, StandardCharsets.UTF_8);
+            if (!content.isEmpty()) {
+                return Long.parseLong(content.trim()) <= nowMillis;
+            }
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (NumberFormatException e) {
+            // 按未写完的记录处理
+        }
+        return isStale(file, nowMillis);
+    }
+
+    private static boolean isStale(Path file, long nowMillis) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() + INCOMPLETE_FILE_GRACE.toMillis() <= nowMillis;
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 距离上次清理超过 {@link #SWEEP_INTERVAL} 时在后台清理一次
+     */
+    private void maybeSweep() {
+        long nowMillis = System.currentTimeMillis();
+        long next = nextSweepMillis.get();
+        if (nowMillis < next || !nextSweepMillis.compareAndSet(next, nowMillis + SWEEP_INTERVAL.toMillis())) {
+            return;
+        }
+        CompletableFuture.runAsync(this::sweep).whenComplete((ignored, error) -> {
+            if (Objects.nonNull(error)) {
+                logger.warn("Failed to remove expired shared state files, error: {}", error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 删除已过期的验证结果与 jti 记录，以及写入者崩溃后留下的临时文件
+     * <p>
+     * 否则只有再次读取同一个键时才会删除，目录会无限增长。
+     */
+    void sweep() {
+        long nowMillis = System.currentTimeMillis();
+        int removed = sweepDirectory(verificationDirectory, file -> isVerificationExpired(file, nowMillis), nowMillis);
+        if (Files.isDirectory(jwtIdDirectory)) {
+            try (DirectoryStream<Path> issuerDirectories = Files.newDirectoryStream(jwtIdDirectory)) {
+                for (Path issuerDirectory : issuerDirectories) {
+                    if (Files.isDirectory(issuerDirectory)) {
+                        removed += sweepDirectory(issuerDirectory, file -> isExpired(file, nowMillis), nowMillis);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Removed {} expired shared state files", removed);
+        }
+    }
+
+    private static int sweepDirectory(Path directory, ExpiryCheck expiryCheck, long nowMillis) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                try {
+                    boolean expired = file.getFileName().toString().endsWith(AtomicFiles.TEMPORARY_SUFFIX)
+                            ? isStale(file, nowMillis)
+                            : expiryCheck.isExpired(file);
+                    if (expired && Files.deleteIfExists(file)) {
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    logger.debug("Skipped shared state file: {}, error: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return removed;
+    }
+
+    private boolean isVerificationExpired(Path file, long nowMillis) throws IOException {
+        try {
+            JsonNode expiration = objectMapper.readTree(Files.readString(file, StandardCharsets.UTF_8))
+                    .get("expiration");
+            if (Objects.nonNull(expiration) && expiration.canConvertToLong()) {
+                return expiration.asLong() <= nowMillis;
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (JsonProcessingException e) {
+            // 内容损坏
+        }
+        return isStale(file, nowMillis);
+    }
+
+    @FunctionalInterface
+    private interface ExpiryCheck {
+        boolean isExpired(Path file) throws IOException;
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * 按验证时提取声明的规则恢复声明的类型：整数为 Long，其他数字为 Double，数组为不可修改的 List
+     *
+     * @param value stored claim
+     * @return claim value
+     * @throws IOException if an array cannot be read
+     */
+    private Object readClaim(JsonNode value) throws IOException {
+        if (value.isIntegralNumber()) {
+            return value.asLong();
+        }
+        if (value.isNumber()) {
+            return value.asDouble();
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean();
+        }
+        if (value.isArray()) {
+            return JsonWebTokenVerify.readArrayClaim(objectMapper.writeValueAsString(value));
+        }
+        if (value.isTextual()) {
+            return value.asText();
+        }
+        return objectMapper.treeToValue(value, Object.class);
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return Objects.isNull(value) || value.isNull() ? null : value.asText();
+    }
+}
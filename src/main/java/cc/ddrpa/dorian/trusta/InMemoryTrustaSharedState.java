@@ -0,0 +1,109 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link TrustaSharedState} held in the memory of the current process.
+ * <p>
+ * The default implementation. Used by a single manager it only backs replay protection, since the
+ * manager's own caches already cover keysets and verification results. An instance created with
+ * {@code shared} set to true can be passed to several managers in one process, for example to
+ * simulate several nodes in tests.
+ */
+public class InMemoryTrustaSharedState implements TrustaSharedState {
+
+    private final int stripes;
+    private final Duration bucketWidth;
+    private final boolean shared;
+    private final Map<String, SharedKeyset> keysets = new ConcurrentHashMap<>();
+    // 超出容量时淘汰最久未使用的验证结果
+    private final BoundedCache<String, Verification> verifications;
+    private final Map<String, JtiReplayGuard> replayGuards = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new InMemoryTrustaSharedState.
+     *
+     * @param maximumVerifications maximum number of stored verification results
+     * @param stripes              number of independently locked stripes of each issuer's jti store
+     * @param bucketWidth          span of expiration times grouped into one jti bucket
+     * @param shared               whether managers should use the state for keysets and verification results
+     */
+    public InMemoryTrustaSharedState(int maximumVerifications, int stripes, Duration bucketWidth, boolean shared) {
+        if (maximumVerifications <= 0) {
+            throw new IllegalArgumentException("Maximum number of verifications must be positive");
+        }
+        this.verifications = new BoundedCache<>(maximumVerifications,
+                verification -> verification.claims().getExpiration().toEpochMilli(), () -> {
+        });
+        this.stripes = stripes;
+        this.bucketWidth = bucketWidth;
+        this.shared = shared;
+    }
+
+    @Override
+    public boolean isShared() {
+        return shared;
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return false;
+    }
+
+    @Override
+    public Optional<PublicKeysetDiskCache.CachedKeyset> loadKeyset(String issuer, URI publicKeyURI) {
+        SharedKeyset sharedKeyset = keysets.get(issuer);
+        if (Objects.isNull(sharedKeyset) || !sharedKeyset.publicKeyURI().equals(publicKeyURI)) {
+            return Optional.empty();
+        }
+        return Optional.of(sharedKeyset.keyset());
+    }
+
+    @Override
+    public void storeKeyset(String issuer, URI publicKeyURI, PublicKeysetDiskCache.CachedKeyset keyset) {
+        keysets.put(issuer, new SharedKeyset(publicKeyURI, keyset));
+    }
+
+    @Override
+    public Optional<Verification> loadVerification(String tokenDigest) {
+        Verification verification = verifications.get(tokenDigest);
+        if (Objects.isNull(verification)) {
+            return Optional.empty();
+        }
+        if (!verification.claims().getExpiration().isAfter(Instant.now())) {
+            verifications.remove(tokenDigest, verification);
+            return Optional.empty();
+        }
+        return Optional.of(new Verification(verification.keysetFingerprint(),
+                new VerifiedClaims(verification.claims())));
+    }
+
+    @Override
+    public void storeVerification(String tokenDigest, Verification verification) {
+        verifications.put(tokenDigest, new Verification(verification.keysetFingerprint(),
+                new VerifiedClaims(verification.claims())));
+    }
+
+    @Override
+    public boolean markJwtIdIfAbsent(String issuer, String jwtId, Instant expiration) {
+        return replayGuards.computeIfAbsent(issuer, ignored -> new JtiReplayGuard(stripes, bucketWidth))
+                .markIfAbsent(jwtId, expiration);
+    }
+
+    @Override
+    public void forgetIssuer(String issuer) {
+        if (!shared) {
+            // 其他管理器可能仍信任该签发者
+            replayGuards.remove(issuer);
+        }
+    }
+
+    private record SharedKeyset(URI publicKeyURI, PublicKeysetDiskCache.CachedKeyset keyset) {
+    }
+}
@@ -0,0 +1,34 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Thrown when the signature of a token is valid but its claims do not meet the requirements.
+ * <p>
+ * 失败原因由验证器比较 token 的声明得出，不依赖 Tink 的异常信息；Tink 的 {@code JwtInvalidException}
+ * 不能被继承，作为 cause 保留。
+ */
+public class InvalidClaimsException extends GeneralSecurityException {
+
+    private final VerifyOutcome outcome;
+
+    public InvalidClaimsException(VerifyOutcome outcome, String message) {
+        super(message);
+        this.outcome = outcome;
+    }
+
+    public InvalidClaimsException(VerifyOutcome outcome, String message, Throwable cause) {
+        super(message, cause);
+        this.outcome = outcome;
+    }
+
+    /**
+     * Cause of the failure, one of {@link VerifyOutcome#EXPIRED}, {@link VerifyOutcome#AUDIENCE_MISMATCH},
+     * {@link VerifyOutcome#MALFORMED} and {@link VerifyOutcome#INVALID_CLAIMS}.
+     *
+     * @return failure outcome
+     */
+    public VerifyOutcome getOutcome() {
+        return outcome;
+    }
+}
@@ -0,0 +1,194 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.google.crypto.tink.jwt.JwtPublicKeySign;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of tokens signed by the current issuer.
+ * <p>
+ * Entries are keyed by subject, audience, validity period and claims. A token is handed out again
+ * while at least {@code trusta.issued-token-cache.min-remaining-ratio} of its validity period is
+ * left, and only as long as the private keyset that signed it is still in use. When full, the least
+ * recently used entries are evicted.
+ * <p>
+ * 复用的 token 携带相同的 {@code jti}，开启了重放保护的接收方会拒绝第二次出现的 token，因此签发给
+ * {@code trusta.issued-token-cache.replay-protected-audiences} 中的受众以及任意受众的 token 不会被复用。
+ */
+public class IssuedTokenCache {
+
+    private final double minRemainingRatio;
+    private final boolean recordStats;
+    private final Set<String> replayProtectedAudiences;
+    private final BoundedCache<Key, Entry> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Create a new IssuedTokenCache.
+     *
+     * @param maximumSize       maximum number of cached tokens
+     * @param minRemainingRatio share of the validity period that must be left for a token to be reused
+     * @param recordStats       whether to record hit, miss and eviction counts
+     */
+    IssuedTokenCache(int maximumSize, double minRemainingRatio, boolean recordStats) {
+        this(maximumSize, minRemainingRatio, recordStats, Set.of());
+    }
+
+    /**
+     * Create a new IssuedTokenCache that never reuses tokens for replay protected audiences.
+     *
+     * @param maximumSize              maximum number of cached tokens
+     * @param minRemainingRatio        share of the validity period that must be left for a token to be reused
+     * @param recordStats              whether to record hit, miss and eviction counts
+     * @param replayProtectedAudiences audiences that reject a token presented twice, {@code *} for all
+     */
+    IssuedTokenCache(int maximumSize, double minRemainingRatio, boolean recordStats,
+                     Set<String> replayProtectedAudiences) {
+        if (minRemainingRatio < 0 || minRemainingRatio > 1) {
+            throw new IllegalArgumentException("Minimum remaining ratio must be between 0 and 1");
+        }
+        this.entries = new BoundedCache<>(maximumSize, Entry::reuseUntilMillis, this::recordEviction);
+        this.minRemainingRatio = minRemainingRatio;
+        this.recordStats = recordStats;
+        this.replayProtectedAudiences = Set.copyOf(replayProtectedAudiences);
+    }
+
+    /**
+     * 判断签发给该受众的 token 能否复用，任意受众的 token 也会被开启了重放保护的受众接受
+     *
+     * @param audience effective audience of the token, {@code *} for any audience
+     * @return false if the token must carry a unique jti
+     */
+    boolean isReusable(String audience) {
+        if (replayProtectedAudiences.isEmpty()) {
+            return true;
+        }
+        return !JsonWebTokenSigner.WILDCARD_AUDIENCE.equals(audience)
+                && !replayProtectedAudiences.contains(JsonWebTokenSigner.WILDCARD_AUDIENCE)
+                && !replayProtectedAudiences.contains(audience);
+    }
+
+    /**
+     * 查找可复用的 token，剩余有效期不足或签名私钥已变化的条目视为未命中
+     *
+     * @param key              token content
+     * @param jwtPublicKeySign signing primitive currently in use
+     * @return signed token, or null
+     */
+    String get(Key key, JwtPublicKeySign jwtPublicKeySign) {
+        Entry entry = entries.get(key);
+        if (Objects.isNull(entry)) {
+            recordMiss();
+            return null;
+        }
+        if (entry.reuseUntilMillis <= System.currentTimeMillis() || entry.jwtPublicKeySign != jwtPublicKeySign) {
+            if (entries.remove(key, entry)) {
+                recordEviction();
+            }
+            recordMiss();
+            return null;
+        }
+        recordHit();
+        return entry.signedToken;
+    }
+
+    /**
+     * 缓存新签发的 token
+     *
+     * @param key              token content
+     * @param jwtPublicKeySign signing primitive that signed the token
+     * @param issuedAt         issue time of the token
+     * @param signedToken      signed token
+     */
+    void put(Key key, JwtPublicKeySign jwtPublicKeySign, Instant issuedAt, String signedToken) {
+        long reusableMillis = (long) (key.validityPeriod().toMillis() * (1 - minRemainingRatio));
+        if (reusableMillis <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(signedToken, jwtPublicKeySign, issuedAt.toEpochMilli() + reusableMillis));
+    }
+
+    /**
+     * Discard all cached tokens, for example after the private keyset has changed.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return entries.getMaximumSize();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Ratio of signing requests that were served from the cache, 1.0 when no lookup has been made.
+     *
+     * @return hit ratio
+     */
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long requests = hits + missCount.sum();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    private void recordHit() {
+        if (recordStats) {
+            hitCount.increment();
+        }
+    }
+
+    private void recordMiss() {
+        if (recordStats) {
+            missCount.increment();
+        }
+    }
+
+    private void recordEviction() {
+        if (recordStats) {
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Content of a token that determines whether it can be reused.
+     *
+     * @param subject        subject
+     * @param audience       audience
+     * @param validityPeriod validity period
+     * @param claims         custom claims, an immutable copy when stored
+     */
+    record Key(String subject, String audience, Duration validityPeriod, Map<String, String> claims) {
+
+        Key copy() {
+            return new Key(subject, audience, validityPeriod, Collections.unmodifiableMap(new HashMap<>(claims)));
+        }
+    }
+
+    private record Entry(String signedToken, JwtPublicKeySign jwtPublicKeySign, long reuseUntilMillis) {
+    }
+}
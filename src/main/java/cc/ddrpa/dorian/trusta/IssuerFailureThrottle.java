@@ -0,0 +1,165 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.FailureThrottleProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Limits the signature checks of an issuer whose tokens are failing verification en masse.
+ * <p>
+ * Signature checks are counted per issuer in fixed windows. When the previous window had at least
+ * {@code min-failures} failures making up at least {@code failure-ratio} of its checks, only {@code permits}
+ * tokens of that issuer are checked in the current window and the rest are rejected. The issuer stays
+ * throttled for as long as most of the permitted checks keep failing.
+ */
+public class IssuerFailureThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssuerFailureThrottle.class);
+
+    private final long windowNanos;
+    private final long minFailures;
+    private final double failureRatio;
+    private final int permits;
+    private final LongSupplier nanoTime;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new IssuerFailureThrottle.
+     *
+     * @param properties throttle configuration
+     */
+    IssuerFailureThrottle(FailureThrottleProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    /**
+     * Create a new IssuerFailureThrottle with the given time source, for tests.
+     *
+     * @param properties throttle configuration
+     * @param nanoTime   monotonic time source in nanoseconds
+     */
+    IssuerFailureThrottle(FailureThrottleProperties properties, LongSupplier nanoTime) {
+        if (properties.getWindow().isNegative() || properties.getWindow().isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (properties.getPermits() < 0) {
+            throw new IllegalArgumentException("Permits must not be negative");
+        }
+        this.windowNanos = properties.getWindow().toNanos();
+        this.minFailures = Math.max(1, properties.getMinFailures());
+        this.failureRatio = properties.getFailureRatio();
+        this.permits = properties.getPermits();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * 在验证签名之前调用，签发者被限制且本窗口的验证次数已用完时返回 false
+     *
+     * @param issuer issuer name
+     * @return true if the signature may be checked
+     */
+    boolean tryAcquire(String issuer) {
+        Window window = windows.computeIfAbsent(issuer, Window::new);
+        window.roll(nanoTime.getAsLong());
+        if (!window.throttled) {
+            return true;
+        }
+        return window.remaining.get() > 0 && window.remaining.getAndDecrement() > 0;
+    }
+
+    /**
+     * 记录一次签名验证的结果
+     *
+     * @param issuer issuer name
+     * @param failed whether the token was rejected
+     */
+    void record(String issuer, boolean failed) {
+        Window window = windows.get(issuer);
+        if (Objects.isNull(window)) {
+            return;
+        }
+        window.checks.increment();
+        if (failed) {
+            window.failures.increment();
+        }
+    }
+
+    /**
+     * 丢弃签发者的统计，在签发者被替换或移除时调用
+     *
+     * @param issuer issuer name
+     */
+    void forget(String issuer) {
+        windows.remove(issuer);
+    }
+
+    /**
+     * Whether the signature checks of the issuer are currently limited.
+     *
+     * @param issuer issuer name
+     * @return true if throttled
+     */
+    public boolean isThrottled(String issuer) {
+        Window window = windows.get(issuer);
+        return Objects.nonNull(window) && window.throttled;
+    }
+
+    /**
+     * Get the issuers whose signature checks are currently limited.
+     *
+     * @return issuer names
+     */
+    public Set<String> getThrottledIssuers() {
+        return windows.values().stream()
+                .filter(window -> window.throttled)
+                .map(window -> window.issuer)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private final class Window {
+        private final String issuer;
+        private final AtomicLong startNanos = new AtomicLong(nanoTime.getAsLong());
+        private final LongAdder checks = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicInteger remaining = new AtomicInteger();
+        private volatile boolean throttled;
+
+        private Window(String issuer) {
+            this.issuer = issuer;
+        }
+
+        /**
+         * 窗口结束时根据其中的失败次数决定下一个窗口是否限制，只有一个线程执行切换
+         */
+        private void roll(long now) {
+            long start = startNanos.get();
+            if (now - start < windowNanos || !startNanos.compareAndSet(start, now)) {
+                return;
+            }
+            long failed = failures.sumThenReset();
+            long checked = checks.sumThenReset();
+            // 上一个窗口之后没有请求时，统计已不代表当前情况；限制期间只验证少量 token，只要仍以失败为主就继续限制
+            boolean throttle = now - start < 2 * windowNanos
+                    && failed >= (throttled ? 1 : minFailures)
+                    && failed >= failureRatio * checked;
+            remaining.set(permits);
+            if (throttle && !throttled) {
+                logger.warn("Throttling verification of issuer: {}, {} of {} tokens failed in the last window",
+                        issuer, failed, checked);
+            } else if (!throttle && throttled) {
+                logger.info("Stopped throttling verification of issuer: {}", issuer);
+            }
+            throttled = throttle;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Thrown when a token's signature is not checked because most tokens of its issuer have been failing
+ * verification.
+ */
+public class IssuerThrottledException extends GeneralSecurityException {
+
+    private final String issuer;
+
+    public IssuerThrottledException(String issuer) {
+        super("Verification of issuer is throttled after repeated failures: " + issuer);
+        this.issuer = issuer;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+}
@@ -4,8 +4,10 @@ import com.google.crypto.tink.jwt.JwtPublicKeySign;
 import com.google.crypto.tink.jwt.RawJwt;
 
 import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -14,16 +16,22 @@ import java.util.Objects;
  * Utility for signing JSON Web Tokens (JWT) with custom claims and validity period.
  */
 public class JsonWebTokenSigner {
-    private static final Duration DEFAULT_VALIDITY_PERIOD = Duration.ofMinutes(3);
-    private static final String WILDCARD_AUDIENCE = "*";
+    static final Duration DEFAULT_VALIDITY_PERIOD = Duration.ofMinutes(3);
+    static final String WILDCARD_AUDIENCE = "*";
+    private static final ThreadLocal<SecureRandom> JWT_ID_RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+    private static final Base64.Encoder JWT_ID_ENCODER = Base64.getUrlEncoder().withoutPadding();
 
     private final JwtPublicKeySign jwtPublicKeySign;
     private final String issuer;
+    private final TrustaMetrics metrics;
+    private final IssuedTokenCache issuedTokenCache;
+    private final Duration maxValidityPeriod;
     private final Map<String, String> claims = new HashMap<>();
 
     private Duration validityPeriod = DEFAULT_VALIDITY_PERIOD;
     private String subject;
     private String audience;
+    private boolean uniqueJwtId;
 
     /**
      * Create a new JsonWebTokenSigner.
@@ -32,21 +40,69 @@ public class JsonWebTokenSigner {
      * @param issuer           the issuer string
      */
     protected JsonWebTokenSigner(JwtPublicKeySign jwtPublicKeySign, String issuer) {
+        this(jwtPublicKeySign, issuer, TrustaMetrics.NOOP);
+    }
+
+    /**
+     * Create a new JsonWebTokenSigner that reports signing latency.
+     *
+     * @param jwtPublicKeySign the Tink JwtPublicKeySign instance
+     * @param issuer           the issuer string
+     * @param metrics          metrics receiver
+     */
+    protected JsonWebTokenSigner(JwtPublicKeySign jwtPublicKeySign, String issuer, TrustaMetrics metrics) {
+        this(jwtPublicKeySign, issuer, metrics, null, null);
+    }
+
+    /**
+     * Create a new JsonWebTokenSigner that reuses previously issued tokens.
+     *
+     * @param jwtPublicKeySign the Tink JwtPublicKeySign instance
+     * @param issuer           the issuer string
+     * @param metrics          metrics receiver
+     * @param issuedTokenCache  cache of issued tokens, null to always sign
+     * @param maxValidityPeriod longest accepted validity period, null for no limit
+     */
+    JsonWebTokenSigner(JwtPublicKeySign jwtPublicKeySign, String issuer, TrustaMetrics metrics,
+                       IssuedTokenCache issuedTokenCache, Duration maxValidityPeriod) {
         this.jwtPublicKeySign = jwtPublicKeySign;
         this.issuer = issuer;
+        this.metrics = metrics;
+        this.issuedTokenCache = issuedTokenCache;
+        this.maxValidityPeriod = maxValidityPeriod;
     }
 
     /**
      * Set the validity period for the token.
+     * <p>
+     * 开启密钥轮换时有效期不能超过 {@code trusta.key-rotation.retire-after}，否则 token 过期前签名私钥就已被移除。
      *
      * @param validityPeriod the duration the token is valid
      * @return this
+     * @throws IllegalArgumentException if the period exceeds {@code trusta.key-rotation.retire-after}
      */
     public JsonWebTokenSigner setValidityPeriod(Duration validityPeriod) {
-        this.validityPeriod = validityPeriod;
+        this.validityPeriod = checkValidityPeriod(Objects.requireNonNull(validityPeriod), maxValidityPeriod);
         return this;
     }
 
+    /**
+     * 检查有效期不超过签名私钥停用后保留的时间
+     *
+     * @param validityPeriod    requested validity period
+     * @param maxValidityPeriod longest accepted validity period, null for no limit
+     * @return the validity period
+     * @throws IllegalArgumentException if the period is too long
+     */
+    static Duration checkValidityPeriod(Duration validityPeriod, Duration maxValidityPeriod) {
+        if (Objects.nonNull(maxValidityPeriod) && validityPeriod.compareTo(maxValidityPeriod) > 0) {
+            throw new IllegalArgumentException("Validity period " + validityPeriod
+                    + " exceeds trusta.key-rotation.retire-after of " + maxValidityPeriod
+                    + ", tokens would outlive their signing key");
+        }
+        return validityPeriod;
+    }
+
     /**
      * Set the subject for the token.
      *
@@ -69,6 +125,17 @@ public class JsonWebTokenSigner {
         return this;
     }
 
+    /**
+     * 要求签发新的 token，不复用已签发 token 缓存中的 token，用于开启了重放保护的接收方
+     *
+     * @param uniqueJwtId whether the token must carry a jti that was never handed out before
+     * @return this
+     */
+    public JsonWebTokenSigner setUniqueJwtId(boolean uniqueJwtId) {
+        this.uniqueJwtId = uniqueJwtId;
+        return this;
+    }
+
     /**
      * Add a custom claim to the token.
      *
@@ -94,6 +161,9 @@ public class JsonWebTokenSigner {
 
     /**
      * Sign and encode the JWT with the configured claims and validity.
+     * <p>
+     * 开启 {@code trusta.issued-token-cache} 时，可能返回此前签发的相同内容的 token，除非调用了
+     * {@link #setUniqueJwtId(boolean)} 或受众开启了重放保护。
      *
      * @return the signed JWT as a string
      * @throws GeneralSecurityException if signing fails
@@ -102,20 +172,48 @@ public class JsonWebTokenSigner {
         if (Objects.isNull(subject)) {
             throw new IllegalStateException("Subject must be set before signing the JWT");
         }
+        IssuedTokenCache.Key key = null;
+        String effectiveAudience = Objects.requireNonNullElse(audience, WILDCARD_AUDIENCE);
+        if (Objects.nonNull(issuedTokenCache) && !uniqueJwtId && issuedTokenCache.isReusable(effectiveAudience)) {
+            key = new IssuedTokenCache.Key(subject, effectiveAudience, validityPeriod, claims);
+            String cached = issuedTokenCache.get(key, jwtPublicKeySign);
+            if (Objects.nonNull(cached)) {
+                return cached;
+            }
+        }
         Instant now = Instant.now();
         RawJwt.Builder rawJwtBuilder = RawJwt.newBuilder()
                 .setIssuer(issuer)
                 .setSubject(subject)
-                .setIssuedAt(Instant.now())
-                .setExpiration(now.plus(validityPeriod));
-        if (Objects.nonNull(audience)) {
-            rawJwtBuilder.setAudience(audience);
-        } else {
-            rawJwtBuilder.setAudience(WILDCARD_AUDIENCE);
-        }
+                .setIssuedAt(now)
+                .setExpiration(now.plus(validityPeriod))
+                .setJwtId(newJwtId())
+                .setAudience(effectiveAudience);
         if (!claims.isEmpty()) {
             claims.forEach(rawJwtBuilder::addStringClaim);
         }
-        return jwtPublicKeySign.signAndEncode(rawJwtBuilder.build());
+        String signedToken;
+        if (metrics == TrustaMetrics.NOOP) {
+            signedToken = jwtPublicKeySign.signAndEncode(rawJwtBuilder.build());
+        } else {
+            long start = System.nanoTime();
+            signedToken = jwtPublicKeySign.signAndEncode(rawJwtBuilder.build());
+            metrics.recordSign(System.nanoTime() - start);
+        }
+        if (Objects.nonNull(key)) {
+            issuedTokenCache.put(key.copy(), jwtPublicKeySign, now, signedToken);
+        }
+        return signedToken;
+    }
+
+    /**
+     * 生成随机的 jti，供开启重放保护的接收方识别重复使用的 token
+     *
+     * @return 128 bit random value, base64url encoded
+     */
+    static String newJwtId() {
+        byte[] bytes = new byte[16];
+        JWT_ID_RANDOM.get().nextBytes(bytes);
+        return JWT_ID_ENCODER.encodeToString(bytes);
     }
 }
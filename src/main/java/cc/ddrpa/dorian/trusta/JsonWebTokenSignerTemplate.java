@@ -0,0 +1,288 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.google.crypto.tink.jwt.JwtPublicKeySign;
+import com.google.crypto.tink.jwt.RawJwt;
+
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Immutable, thread-safe preset for signing JSON Web Tokens.
+ * <p>
+ * The issuer, validity period and static claims are fixed when the template is created, so one
+ * instance can be shared and used concurrently. The {@code with*} methods return a new template.
+ */
+public final class JsonWebTokenSignerTemplate {
+
+    private final JwtPublicKeySign jwtPublicKeySign;
+    private final String issuer;
+    private final TrustaMetrics metrics;
+    private final IssuedTokenCache issuedTokenCache;
+    private final Duration maxValidityPeriod;
+    private final Duration validityPeriod;
+    private final Map<String, String> claims;
+    private final boolean uniqueJwtId;
+
+    JsonWebTokenSignerTemplate(JwtPublicKeySign jwtPublicKeySign, String issuer, TrustaMetrics metrics,
+                               IssuedTokenCache issuedTokenCache, Duration maxValidityPeriod) {
+        this(jwtPublicKeySign, issuer, metrics, issuedTokenCache, maxValidityPeriod,
+                JsonWebTokenSigner.DEFAULT_VALIDITY_PERIOD, Map.of(), false);
+    }
+
+    private JsonWebTokenSignerTemplate(JwtPublicKeySign jwtPublicKeySign, String issuer, TrustaMetrics metrics,
+                                       IssuedTokenCache issuedTokenCache, Duration maxValidityPeriod,
+                                       Duration validityPeriod, Map<String, String> claims, boolean uniqueJwtId) {
+        this.jwtPublicKeySign = jwtPublicKeySign;
+        this.issuer = issuer;
+        this.metrics = metrics;
+        this.issuedTokenCache = issuedTokenCache;
+        this.maxValidityPeriod = maxValidityPeriod;
+        this.validityPeriod = validityPeriod;
+        this.claims = claims;
+        this.uniqueJwtId = uniqueJwtId;
+    }
+
+    /**
+     * Create a template with a different validity period.
+     *
+     * @param validityPeriod the duration tokens are valid
+     * @return new template
+     * @throws IllegalArgumentException if the period exceeds {@code trusta.key-rotation.retire-after}
+     */
+    public JsonWebTokenSignerTemplate withValidityPeriod(Duration validityPeriod) {
+        return new JsonWebTokenSignerTemplate(jwtPublicKeySign, issuer, metrics, issuedTokenCache, maxValidityPeriod,
+                JsonWebTokenSigner.checkValidityPeriod(Objects.requireNonNull(validityPeriod), maxValidityPeriod),
+                claims, uniqueJwtId);
+    }
+
+    /**
+     * Create a template that always signs new tokens, for receivers with replay protection.
+     * <p>
+     * 不复用已签发 token 缓存中的 token，每个 token 都携带新的 jti。
+     *
+     * @return new template
+     */
+    public JsonWebTokenSignerTemplate withUniqueJwtId() {
+        return new JsonWebTokenSignerTemplate(jwtPublicKeySign, issuer, metrics, issuedTokenCache, maxValidityPeriod,
+                validityPeriod, claims, true);
+    }
+
+    /**
+     * Create a template with an additional static claim.
+     *
+     * @param name  claim name
+     * @param value claim value
+     * @return new template
+     */
+    public JsonWebTokenSignerTemplate withClaim(String name, String value) {
+        return withClaims(Map.of(name, value));
+    }
+
+    /**
+     * Create a template with additional static claims.
+     *
+     * @param claims map of claims
+     * @return new template
+     */
+    public JsonWebTokenSignerTemplate withClaims(Map<String, String> claims) {
+        Map<String, String> merged = new HashMap<>(this.claims);
+        merged.putAll(claims);
+        return new JsonWebTokenSignerTemplate(jwtPublicKeySign, issuer, metrics, issuedTokenCache, maxValidityPeriod,
+                validityPeriod, Map.copyOf(merged), uniqueJwtId);
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public Duration getValidityPeriod() {
+        return validityPeriod;
+    }
+
+    /**
+     * Get the static claims of this template.
+     *
+     * @return unmodifiable map of claims
+     */
+    public Map<String, String> getClaims() {
+        return claims;
+    }
+
+    /**
+     * 为单个受众签发 token
+     *
+     * @param subject  the subject
+     * @param audience the audience, null for any audience
+     * @return the signed JWT as a string
+     * @throws GeneralSecurityException if signing fails
+     */
+    public String sign(String subject, String audience) throws GeneralSecurityException {
+        return sign(subject, audience, Map.of());
+    }
+
+    /**
+     * 为单个受众签发 token，附加仅用于本次签发的声明
+     *
+     * @param subject     the subject
+     * @param audience    the audience, null for any audience
+     * @param extraClaims claims added on top of the static claims
+     * @return the signed JWT as a string
+     * @throws GeneralSecurityException if signing fails
+     */
+    public String sign(String subject, String audience, Map<String, String> extraClaims)
+            throws GeneralSecurityException {
+        String effectiveAudience = Objects.requireNonNullElse(audience, JsonWebTokenSigner.WILDCARD_AUDIENCE);
+        IssuedTokenCache.Key key = null;
+        if (isReusable(effectiveAudience)) {
+            Map<String, String> effectiveClaims = claims;
+            if (!extraClaims.isEmpty()) {
+                effectiveClaims = new HashMap<>(claims);
+                effectiveClaims.putAll(extraClaims);
+            }
+            key = new IssuedTokenCache.Key(subject, effectiveAudience, validityPeriod, effectiveClaims);
+            String cached = issuedTokenCache.get(key, jwtPublicKeySign);
+            if (Objects.nonNull(cached)) {
+                return cached;
+            }
+        }
+        Instant now = Instant.now();
+        RawJwt.Builder rawJwtBuilder = newBuilder(subject, now);
+        extraClaims.forEach(rawJwtBuilder::addStringClaim);
+        rawJwtBuilder.setAudience(effectiveAudience).setJwtId(JsonWebTokenSigner.newJwtId());
+        String signedToken = signAndEncode(rawJwtBuilder.build());
+        if (Objects.nonNull(key)) {
+            issuedTokenCache.put(key.copy(), jwtPublicKeySign, now, signedToken);
+        }
+        return signedToken;
+    }
+
+    /**
+     * 为同一主体向多个受众签发 token，所有 token 共享签发时间与声明
+     *
+     * @param subject   the subject
+     * @param audiences audiences, one token each
+     * @return audience to signed JWT, in iteration order of the audiences
+     * @throws GeneralSecurityException if signing fails
+     */
+    public Map<String, String> signForAudiences(String subject, Collection<String> audiences)
+            throws GeneralSecurityException {
+        Map<String, String> signedTokens = new LinkedHashMap<>();
+        Instant now = Instant.now();
+        Map<String, RawJwt> pending = prepareForAudiences(subject, audiences, now, signedTokens);
+        for (Map.Entry<String, RawJwt> entry : pending.entrySet()) {
+            signedTokens.put(entry.getKey(), remember(subject, entry.getKey(), now, signAndEncode(entry.getValue())));
+        }
+        return signedTokens;
+    }
+
+    /**
+     * 为同一主体向多个受众签发 token，签名计算在给定的线程池上并行执行
+     *
+     * @param subject   the subject
+     * @param audiences audiences, one token each
+     * @param executor  executor running the signature computations
+     * @return audience to signed JWT, in iteration order of the audiences
+     * @throws GeneralSecurityException if signing fails
+     */
+    public Map<String, String> signForAudiences(String subject, Collection<String> audiences, Executor executor)
+            throws GeneralSecurityException {
+        Map<String, String> signedTokens = new LinkedHashMap<>();
+        Instant now = Instant.now();
+        Map<String, RawJwt> pending = prepareForAudiences(subject, audiences, now, signedTokens);
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        pending.forEach((audience, rawJwt) -> futures.put(audience, CompletableFuture.supplyAsync(() -> {
+            try {
+                return signAndEncode(rawJwt);
+            } catch (GeneralSecurityException e) {
+                throw new CompletionException(e);
+            }
+        }, executor)));
+        try {
+            for (Map.Entry<String, CompletableFuture<String>> entry : futures.entrySet()) {
+                signedTokens.put(entry.getKey(), remember(subject, entry.getKey(), now, entry.getValue().join()));
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof GeneralSecurityException generalSecurityException) {
+                throw generalSecurityException;
+            }
+            throw e;
+        }
+        return signedTokens;
+    }
+
+    /**
+     * 复用缓存中的 token，并为其余受众准备待签名的内容
+     *
+     * @param subject      the subject
+     * @param audiences    audiences
+     * @param now          shared issue time
+     * @param signedTokens receives the reused tokens, and placeholders that keep the order of the audiences
+     * @return audience to unsigned token, for audiences without a reusable token
+     */
+    private Map<String, RawJwt> prepareForAudiences(String subject, Collection<String> audiences, Instant now,
+                                                    Map<String, String> signedTokens) {
+        // 生成的 RawJwt 复制了 builder 的内容，只替换受众和 jti 即可重复使用同一个 builder
+        RawJwt.Builder rawJwtBuilder = newBuilder(subject, now);
+        Map<String, RawJwt> pending = new LinkedHashMap<>();
+        for (String audience : audiences) {
+            String effectiveAudience = Objects.requireNonNullElse(audience, JsonWebTokenSigner.WILDCARD_AUDIENCE);
+            String cached = !isReusable(effectiveAudience) ? null : issuedTokenCache.get(
+                    new IssuedTokenCache.Key(subject, effectiveAudience, validityPeriod, claims), jwtPublicKeySign);
+            signedTokens.put(audience, cached);
+            if (Objects.isNull(cached)) {
+                pending.put(audience, rawJwtBuilder.setAudience(effectiveAudience)
+                        .setJwtId(JsonWebTokenSigner.newJwtId())
+                        .build());
+            }
+        }
+        return pending;
+    }
+
+    private String remember(String subject, String audience, Instant issuedAt, String signedToken) {
+        String effectiveAudience = Objects.requireNonNullElse(audience, JsonWebTokenSigner.WILDCARD_AUDIENCE);
+        if (isReusable(effectiveAudience)) {
+            issuedTokenCache.put(new IssuedTokenCache.Key(subject, effectiveAudience, validityPeriod, claims),
+                    jwtPublicKeySign, issuedAt, signedToken);
+        }
+        return signedToken;
+    }
+
+    /**
+     * 判断签发给该受众的 token 能否从已签发 token 缓存中复用
+     */
+    private boolean isReusable(String effectiveAudience) {
+        return Objects.nonNull(issuedTokenCache) && !uniqueJwtId && issuedTokenCache.isReusable(effectiveAudience);
+    }
+
+    private RawJwt.Builder newBuilder(String subject, Instant now) {
+        if (Objects.isNull(subject)) {
+            throw new IllegalStateException("Subject must be set before signing the JWT");
+        }
+        RawJwt.Builder rawJwtBuilder = RawJwt.newBuilder()
+                .setIssuer(issuer)
+                .setSubject(subject)
+                .setIssuedAt(now)
+                .setExpiration(now.plus(validityPeriod));
+        claims.forEach(rawJwtBuilder::addStringClaim);
+        return rawJwtBuilder;
+    }
+
+    private String signAndEncode(RawJwt rawJwt) throws GeneralSecurityException {
+        if (metrics == TrustaMetrics.NOOP) {
+            return jwtPublicKeySign.signAndEncode(rawJwt);
+        }
+        long start = System.nanoTime();
+        String signedToken = jwtPublicKeySign.signAndEncode(rawJwt);
+        metrics.recordSign(System.nanoTime() - start);
+        return signedToken;
+    }
+}
@@ -1,26 +1,35 @@
 package cc.ddrpa.dorian.trusta;
 
 import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeyStatus;
 import com.google.crypto.tink.KeysetHandle;
 import com.google.crypto.tink.RegistryConfiguration;
 import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtInvalidException;
 import com.google.crypto.tink.jwt.JwtPublicKeyVerify;
+import com.google.crypto.tink.jwt.JwtSignaturePublicKey;
 import com.google.crypto.tink.jwt.JwtValidator;
 import com.google.crypto.tink.jwt.VerifiedJwt;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.security.GeneralSecurityException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utility for verifying JSON Web Tokens (JWT) and extracting claims.
@@ -29,19 +38,32 @@ public class JsonWebTokenVerify {
 
     private static final List<String> CLAIM_KEYWORDS = List.of("iss", "sub", "aud", "exp", "nbf", "iat", "jti");
     private static final String CLAIM_SUBJECT = "sub";
+    // double 可以精确表示的最大整数
+    private static final double MAX_EXACT_INTEGER = 9007199254740992d;
+    private static final ObjectMapper CLAIM_READER = new ObjectMapper();
 
     private final String issuer;
+    private final TrustedIssuer trustedIssuer;
     private final URI publicKeyURI;
     private final boolean requireCustomSubject;
     private final String subjectClaimName;
-    private final boolean requireAdditionalClaims;
-    private final Map<String, String> claimMapping;
+    // 按 claimMapping 预先生成，验证时按下标依次提取
+    private final String[] claimNames;
+    private final ClaimExtractor[] claimExtractors;
     private final JwtValidator jwtValidator;
+    // 声明校验失败时用于判断原因，不要求受众时为 null
+    private final String expectedAudience;
+    private final boolean replayProtection;
+    private final PublicKeysetFetcher publicKeysetFetcher;
 
-    private LocalDateTime lastUpdateTime = LocalDateTime.now();
-    private boolean ready = false;
+    private final Object updateLock = new Object();
 
-    private JwtPublicKeyVerify jwtPublicKeyVerify;
+    private volatile PublicKeyState keyState = PublicKeyState.initial();
+    // 以下统计供管理端点读取，更新与读取都不加锁
+    private final LongAdder verifySuccessCount = new LongAdder();
+    private final LongAdder verifyFailureCount = new LongAdder();
+    private volatile FetchFailure lastFetchFailure;
+    private volatile Duration lastFetchDuration;
 
     /**
      * Construct a new JsonWebTokenVerify instance.
@@ -51,6 +73,21 @@ public class JsonWebTokenVerify {
      * @param allowFetchPublicKeyThroughHTTP allow HTTP fetch for public key
      */
     public JsonWebTokenVerify(TrustedIssuer issuer, String self, boolean allowFetchPublicKeyThroughHTTP) {
+        this(issuer, self, allowFetchPublicKeyThroughHTTP, new PublicKeysetFetcher());
+    }
+
+    /**
+     * Construct a new JsonWebTokenVerify instance.
+     *
+     * @param issuer                         TrustedIssuer configuration
+     * @param self                           self identifier
+     * @param allowFetchPublicKeyThroughHTTP allow HTTP fetch for public key
+     * @param publicKeysetFetcher            fetcher shared by all issuers
+     */
+    public JsonWebTokenVerify(TrustedIssuer issuer, String self, boolean allowFetchPublicKeyThroughHTTP,
+                              PublicKeysetFetcher publicKeysetFetcher) {
+        this.publicKeysetFetcher = publicKeysetFetcher;
+        this.trustedIssuer = new TrustedIssuer(issuer);
         String issuerName = issuer.getIssuer();
         this.issuer = issuerName;
         if (StringUtils.hasText(issuer.getPublicKeyUri())) {
@@ -78,6 +115,7 @@ public class JsonWebTokenVerify {
             builder.ignoreAudiences();
         }
         this.jwtValidator = builder.build();
+        this.expectedAudience = expectAudience ? audience : null;
         // subject 映射
         if (StringUtils.hasText(issuer.getSubject())) {
             if (CLAIM_SUBJECT.equals(issuer.getSubject())) {
@@ -95,20 +133,122 @@ public class JsonWebTokenVerify {
             this.subjectClaimName = "sub";
         }
         // 其他 claim 映射
-        this.claimMapping = issuer.getClaimMapping();
-        this.requireAdditionalClaims = !this.claimMapping.isEmpty();
+        Map<String, String> claimMapping = issuer.getClaimMapping();
+        this.claimNames = new String[claimMapping.size()];
+        this.claimExtractors = new ClaimExtractor[claimMapping.size()];
+        int index = 0;
+        for (Map.Entry<String, String> entry : claimMapping.entrySet()) {
+            this.claimNames[index] = entry.getValue();
+            this.claimExtractors[index] = compileExtractor(entry.getKey());
+            index++;
+        }
+        this.replayProtection = issuer.isReplayProtection();
     }
 
     public String getIssuer() {
         return issuer;
     }
 
+    public URI getPublicKeyURI() {
+        return publicKeyURI;
+    }
+
+    /**
+     * 创建该验证器时使用的配置
+     *
+     * @return copy of the issuer configuration
+     */
+    public TrustedIssuer getTrustedIssuer() {
+        return new TrustedIssuer(trustedIssuer);
+    }
+
+    /**
+     * 是否需要拒绝重放的 token
+     *
+     * @return true if every jti of this issuer may only be verified once
+     */
+    public boolean isReplayProtection() {
+        return replayProtection;
+    }
+
     public LocalDateTime getLastUpdateTime() {
-        return lastUpdateTime;
+        return keyState.lastUpdateTime();
     }
 
     public boolean isReady() {
-        return ready;
+        return keyState.isReady();
+    }
+
+    /**
+     * 公钥集版本，每次成功更新公钥集后递增
+     *
+     * @return keyset version
+     */
+    public long getKeysetVersion() {
+        return keyState.keysetVersion();
+    }
+
+    /**
+     * 公钥集摘要，持有相同公钥集的节点得到相同的值
+     *
+     * @return keyset fingerprint, or null if not ready
+     */
+    public String getKeysetFingerprint() {
+        return keyState.keysetFingerprint();
+    }
+
+    /**
+     * 对端通过 Cache-Control 声明的公钥集有效期
+     *
+     * @return freshness lifetime of the last response, or null if not declared
+     */
+    public Duration getMaxAge() {
+        return keyState.maxAge();
+    }
+
+    /**
+     * 当前公钥集中的密钥数量
+     *
+     * @return number of keys, 0 if not ready
+     */
+    public int getKeyCount() {
+        return keyState.keyCount();
+    }
+
+    /**
+     * 最近一次失败的公钥集获取，之后的成功获取不会清除该记录
+     *
+     * @return last failed fetch, or null if no fetch has failed
+     */
+    public FetchFailure getLastFetchFailure() {
+        return lastFetchFailure;
+    }
+
+    /**
+     * 最近一次公钥集获取所用的时间，包括失败的获取
+     *
+     * @return duration of the last fetch, or null if nothing was fetched yet
+     */
+    public Duration getLastFetchDuration() {
+        return lastFetchDuration;
+    }
+
+    /**
+     * 通过签名验证的 token 数量，不包括从验证结果缓存返回的 token
+     *
+     * @return number of successful verifications
+     */
+    public long getVerifySuccessCount() {
+        return verifySuccessCount.sum();
+    }
+
+    /**
+     * 未通过签名或声明验证的 token 数量
+     *
+     * @return number of failed verifications
+     */
+    public long getVerifyFailureCount() {
+        return verifyFailureCount.sum();
     }
 
     /**
@@ -116,69 +256,434 @@ public class JsonWebTokenVerify {
      *
      * @param signedToken
      * @return
+     * @throws InvalidClaimsException   if the signature is valid but the claims do not meet the requirements
      * @throws GeneralSecurityException
      */
     public VerifiedClaims verify(final String signedToken) throws GeneralSecurityException {
-        if (!this.ready) {
+        // 读取一次快照，避免与并发的公钥更新交错
+        PublicKeyState state = this.keyState;
+        if (!state.isReady()) {
             throw new IllegalStateException("Public key is not ready, please try updatePublicKey() again");
         }
 
-        VerifiedJwt verifiedJwt = jwtPublicKeyVerify.verifyAndDecode(signedToken, this.jwtValidator);
+        VerifiedJwt verifiedJwt;
+        try {
+            verifiedJwt = selectVerifier(state, signedToken).verifyAndDecode(signedToken, this.jwtValidator);
+        } catch (JwtInvalidException e) {
+            verifyFailureCount.increment();
+            throw new InvalidClaimsException(classifyClaims(signedToken), e.getMessage(), e);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            verifyFailureCount.increment();
+            throw e;
+        }
+        VerifiedClaims verifiedClaims;
+        try {
+            verifiedClaims = toVerifiedClaims(verifiedJwt);
+        } catch (JwtInvalidException e) {
+            // 缺少 subject 或自定义声明无法解析
+            verifyFailureCount.increment();
+            throw new InvalidClaimsException(VerifyOutcome.INVALID_CLAIMS, e.getMessage(), e);
+        }
+        // 声明全部提取完成后才计为成功
+        verifySuccessCount.increment();
+        return verifiedClaims;
+    }
+
+    /**
+     * 从已验证的 token 中提取 subject 与映射的声明
+     *
+     * @param verifiedJwt verified token
+     * @return verified claims
+     * @throws JwtInvalidException if the subject is missing or a mapped claim cannot be parsed
+     */
+    private VerifiedClaims toVerifiedClaims(VerifiedJwt verifiedJwt) throws JwtInvalidException {
         VerifiedClaims verifiedClaims = new VerifiedClaims();
+        verifiedClaims.setIssuer(this.issuer);
+        if (verifiedJwt.hasExpiration()) {
+            verifiedClaims.setExpiration(verifiedJwt.getExpiration());
+        }
+        if (verifiedJwt.hasJwtId()) {
+            verifiedClaims.setJwtId(verifiedJwt.getJwtId());
+        }
         if (this.requireCustomSubject) {
             verifiedClaims.setSubject(verifiedJwt.getStringClaim(this.subjectClaimName));
         } else {
             verifiedClaims.setSubject(verifiedJwt.getSubject());
         }
-        if (this.requireAdditionalClaims) {
-            for (Map.Entry<String, String> entry : this.claimMapping.entrySet()) {
-                String entryKey = entry.getKey();
-                String mappedKey = entry.getValue();
-                switch (entryKey) {
-                    case "iss" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getIssuer());
-                    case "sub" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getSubject());
-                    case "aud" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getAudiences());
-                    case "exp" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getExpiration());
-                    case "nbf" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getNotBefore());
-                    case "iat" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getIssuedAt());
-                    case "jti" -> verifiedClaims.addClaim(mappedKey, verifiedJwt.getJwtId());
-                    default -> {
-                        String claimValue = verifiedJwt.getStringClaim(entryKey);
-                        if (Objects.nonNull(claimValue)) {
-                            verifiedClaims.addClaim(mappedKey, claimValue);
-                        }
-                    }
-                }
+        if (claimExtractors.length > 0) {
+            // 只保存提取出的值，调用 getClaims() 时才构建 Map
+            Object[] claimValues = new Object[claimExtractors.length];
+            for (int i = 0; i < claimExtractors.length; i++) {
+                claimValues[i] = claimExtractors[i].extract(verifiedJwt);
             }
+            verifiedClaims.setClaimValues(claimNames, claimValues);
         }
         return verifiedClaims;
     }
 
+    /**
+     * Tink 拒绝 token 的声明后，比较 token 的声明判断原因：先检查 exp 是否已过，再检查 aud 是否包含本服务
+     * <p>
+     * Tink 在签名验证通过之后才校验声明，此时载荷已经可信；载荷无法解析时视为格式错误。
+     *
+     * @param signedToken token rejected by the validator
+     * @return failure outcome
+     */
+    private VerifyOutcome classifyClaims(String signedToken) {
+        JsonNode payload;
+        try {
+            payload = CLAIM_READER.readTree(TokenPeek.decodePayload(signedToken));
+        } catch (IOException | IllegalArgumentException | NullPointerException e) {
+            return VerifyOutcome.MALFORMED;
+        }
+        if (Objects.isNull(payload) || !payload.isObject()) {
+            return VerifyOutcome.MALFORMED;
+        }
+        JsonNode expiration = payload.get("exp");
+        // 与 Tink 一致：当前时间不早于 exp 即视为过期
+        if (Objects.nonNull(expiration) && expiration.isNumber()
+                && (long) (expiration.asDouble() * 1000) <= System.currentTimeMillis()) {
+            return VerifyOutcome.EXPIRED;
+        }
+        if (Objects.nonNull(expectedAudience) && !containsAudience(payload.get("aud"))) {
+            return VerifyOutcome.AUDIENCE_MISMATCH;
+        }
+        return VerifyOutcome.INVALID_CLAIMS;
+    }
+
+    private boolean containsAudience(JsonNode audiences) {
+        if (Objects.isNull(audiences)) {
+            return false;
+        }
+        if (audiences.isTextual()) {
+            return expectedAudience.equals(audiences.asText());
+        }
+        for (JsonNode audience : audiences) {
+            if (audience.isTextual() && expectedAudience.equals(audience.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 为 claimMapping 中的一项生成提取器，注册签发者时调用一次
+     *
+     * @param claimName name of the claim in the token
+     * @return extractor of the claim value
+     */
+    private static ClaimExtractor compileExtractor(String claimName) {
+        return switch (claimName) {
+            case "iss" -> VerifiedJwt::getIssuer;
+            case "sub" -> VerifiedJwt::getSubject;
+            case "aud" -> VerifiedJwt::getAudiences;
+            case "exp" -> VerifiedJwt::getExpiration;
+            case "nbf" -> VerifiedJwt::getNotBefore;
+            case "iat" -> VerifiedJwt::getIssuedAt;
+            case "jti" -> VerifiedJwt::getJwtId;
+            default -> verifiedJwt -> extractCustomClaim(verifiedJwt, claimName);
+        };
+    }
+
+    /**
+     * 按声明的实际类型提取自定义声明
+     * <p>
+     * 整数返回 Long，其他数字返回 Double，数组返回不可修改的 List；对象与 null 值视为不存在。
+     *
+     * @param verifiedJwt verified token
+     * @param claimName   claim name
+     * @return claim value, or null if absent
+     * @throws JwtInvalidException if an array claim cannot be parsed
+     */
+    private static Object extractCustomClaim(VerifiedJwt verifiedJwt, String claimName) throws JwtInvalidException {
+        if (verifiedJwt.hasStringClaim(claimName)) {
+            return verifiedJwt.getStringClaim(claimName);
+        }
+        if (verifiedJwt.hasNumberClaim(claimName)) {
+            double value = verifiedJwt.getNumberClaim(claimName);
+            if (value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_INTEGER) {
+                return (long) value;
+            }
+            return value;
+        }
+        if (verifiedJwt.hasBooleanClaim(claimName)) {
+            return verifiedJwt.getBooleanClaim(claimName);
+        }
+        if (verifiedJwt.hasJsonArrayClaim(claimName)) {
+            try {
+                return readArrayClaim(verifiedJwt.getJsonArrayClaim(claimName));
+            } catch (IOException e) {
+                throw new JwtInvalidException("Invalid array claim: " + claimName);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据 token 头部的 kid 直接选择对应的公钥，无需逐个尝试公钥集中的所有公钥
+     * <p>
+     * token 没有 kid、公钥集中没有携带 kid 的公钥，或 kid 不在索引中但公钥集还有不携带 kid 的公钥时，
+     * 使用整个公钥集验证。
+     *
+     * @param state       current keyset snapshot
+     * @param signedToken signed token
+     * @return primitive to verify the token with
+     * @throws GeneralSecurityException if the token names a key that is not in the keyset and every key has a kid
+     */
+    private static JwtPublicKeyVerify selectVerifier(PublicKeyState state, String signedToken)
+            throws GeneralSecurityException {
+        Map<String, JwtPublicKeyVerify> verifiersByKid = state.verifiersByKid();
+        if (verifiersByKid.isEmpty()) {
+            return state.jwtPublicKeyVerify();
+        }
+        String kid;
+        try {
+            kid = TokenPeek.peekKeyId(signedToken);
+        } catch (IOException | IllegalArgumentException e) {
+            // 交给 Tink 报告格式错误
+            return state.jwtPublicKeyVerify();
+        }
+        if (Objects.isNull(kid)) {
+            return state.jwtPublicKeyVerify();
+        }
+        JwtPublicKeyVerify jwtPublicKeyVerify = verifiersByKid.get(kid);
+        if (Objects.nonNull(jwtPublicKeyVerify)) {
+            return jwtPublicKeyVerify;
+        }
+        if (state.keyCount() > verifiersByKid.size()) {
+            // 公钥集中还有不携带 kid 的公钥（例如正在轮换出去的旧公钥），Tink 验证这些公钥时忽略 token 的 kid
+            return state.jwtPublicKeyVerify();
+        }
+        // 签发者可能已经轮换了密钥，由调用方决定是否刷新公钥集
+        throw new GeneralSecurityException("No public key with kid: " + kid);
+    }
+
+    /**
+     * 读取数组声明，其他节点共享的验证结果也以同样的方式读取，保证元素类型一致
+     *
+     * @param json JSON array
+     * @return unmodifiable list
+     * @throws IOException if the array cannot be parsed
+     */
+    static List<Object> readArrayClaim(String json) throws IOException {
+        return Collections.unmodifiableList(CLAIM_READER.readValue(json, List.class));
+    }
+
+    /**
+     * 为公钥集中每个启用且携带 kid 的公钥单独构建验证原语
+     *
+     * @param publicKeysetHandle public keyset
+     * @return kid to single-key primitive
+     * @throws GeneralSecurityException if a primitive cannot be created
+     */
+    static Map<String, JwtPublicKeyVerify> indexByKid(KeysetHandle publicKeysetHandle) throws GeneralSecurityException {
+        Map<String, JwtPublicKeyVerify> verifiersByKid = new HashMap<>();
+        for (int i = 0; i < publicKeysetHandle.size(); i++) {
+            KeysetHandle.Entry entry = publicKeysetHandle.getAt(i);
+            if (entry.getStatus() != KeyStatus.ENABLED
+                    || !(entry.getKey() instanceof JwtSignaturePublicKey publicKey)
+                    || publicKey.getKid().isEmpty()) {
+                continue;
+            }
+            KeysetHandle singleKeyHandle = KeysetHandle.newBuilder()
+                    .addEntry(KeysetHandle.importKey(publicKey).makePrimary())
+                    .build();
+            verifiersByKid.put(publicKey.getKid().get(),
+                    singleKeyHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeyVerify.class));
+        }
+        return Map.copyOf(verifiersByKid);
+    }
+
     /**
      * 更新对端公钥集
+     * <p>
+     * 获取期间以及获取失败后继续使用上次获取的公钥集；获取不持有锁，对端响应缓慢时不影响恢复、采用公钥集等操作。
      *
      * @throws GeneralSecurityException
      * @throws IOException
      * @throws InterruptedException
      */
     public void updatePublicKey() throws GeneralSecurityException, IOException, InterruptedException {
-        HttpClient httpClient = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(publicKeyURI)
-                .timeout(Duration.ofSeconds(10))
-                .build();
-        HttpResponse<String> response = httpClient.send(request,
-                HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to fetch public keyset from " + publicKeyURI
-                    + ", status code: " + response.statusCode());
-        }
-        String publicKeysetAsString = response.body();
-        // 将 JWK Set 转换为 PublicKeysetHandle
-        KeysetHandle publicKeysetHandle = TinkJsonProtoKeysetFormat.parseKeyset(publicKeysetAsString, InsecureSecretKeyAccess.get());
-
-        this.jwtPublicKeyVerify = publicKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeyVerify.class);
-        this.lastUpdateTime = LocalDateTime.now();
-        this.ready = true;
-    }
-}
\ No newline at end of file
+        long start = System.nanoTime();
+        PublicKeyState current = this.keyState;
+        try {
+            PublicKeysetFetcher.FetchResult result = publicKeysetFetcher.fetch(publicKeyURI,
+                    current.isReady() ? current.etag() : null,
+                    current.isReady() ? current.lastModified() : null);
+            synchronized (updateLock) {
+                applyFetchResult(current, result);
+            }
+        } catch (Exception e) {
+            this.lastFetchFailure = new FetchFailure(LocalDateTime.now(), e.getMessage());
+            throw e;
+        } finally {
+            this.lastFetchDuration = Duration.ofNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 异步更新对端公钥集，获取公钥集期间不占用调用线程
+     *
+     * @return future completed once the new keyset is in use, or exceptionally if the fetch or parse failed
+     */
+    public CompletableFuture<Void> updatePublicKeyAsync() {
+        long start = System.nanoTime();
+        PublicKeyState current = this.keyState;
+        return publicKeysetFetcher.fetchAsync(publicKeyURI,
+                        current.isReady() ? current.etag() : null,
+                        current.isReady() ? current.lastModified() : null)
+                .thenAccept(result -> {
+                    synchronized (updateLock) {
+                        try {
+                            applyFetchResult(current, result);
+                        } catch (GeneralSecurityException e) {
+                            throw new CompletionException(e);
+                        }
+                    }
+                })
+                .whenComplete((ignored, error) -> {
+                    this.lastFetchDuration = Duration.ofNanos(System.nanoTime() - start);
+                    if (Objects.nonNull(error)) {
+                        Throwable cause = error instanceof CompletionException && Objects.nonNull(error.getCause())
+                                ? error.getCause() : error;
+                        this.lastFetchFailure = new FetchFailure(LocalDateTime.now(), cause.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * 使用获取结果替换当前公钥集，调用方需持有 updateLock
+     * <p>
+     * 获取期间公钥集已被其他途径更新时，未修改的响应只针对旧的公钥集，直接忽略。
+     *
+     * @param requested keyset state the request was made with
+     * @param result    fetch result
+     * @throws GeneralSecurityException if the keyset cannot be parsed
+     */
+    private void applyFetchResult(PublicKeyState requested, PublicKeysetFetcher.FetchResult result)
+            throws GeneralSecurityException {
+        PublicKeyState current = this.keyState;
+        if (result.isNotModified() && current != requested) {
+            return;
+        }
+        JwtPublicKeyVerify jwtPublicKeyVerify = current.jwtPublicKeyVerify();
+        Map<String, JwtPublicKeyVerify> verifiersByKid = current.verifiersByKid();
+        int keyCount = current.keyCount();
+        String publicKeysetAsString = current.publicKeysetAsString();
+        long keysetVersion = current.keysetVersion();
+        String keysetFingerprint = current.keysetFingerprint();
+        // 公钥集未变化时跳过解析
+        if (!result.isNotModified() && !result.body().equals(publicKeysetAsString)) {
+            publicKeysetAsString = result.body();
+            // 将 JWK Set 转换为 PublicKeysetHandle
+            KeysetHandle publicKeysetHandle = TinkJsonProtoKeysetFormat.parseKeyset(publicKeysetAsString, InsecureSecretKeyAccess.get());
+            jwtPublicKeyVerify = publicKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeyVerify.class);
+            verifiersByKid = indexByKid(publicKeysetHandle);
+            keyCount = publicKeysetHandle.size();
+            keysetVersion++;
+            keysetFingerprint = TokenDigest.of(publicKeysetAsString).toHex();
+        }
+        this.keyState = new PublicKeyState(jwtPublicKeyVerify, verifiersByKid, keyCount, publicKeysetAsString,
+                keysetVersion, keysetFingerprint, result.etag(), result.lastModified(), result.maxAge(), LocalDateTime.now());
+    }
+
+    /**
+     * 从本地缓存恢复公钥集，不进行网络请求
+     *
+     * @param cachedKeyset keyset loaded from the local cache
+     * @throws GeneralSecurityException if the keyset cannot be parsed
+     */
+    public void restore(PublicKeysetDiskCache.CachedKeyset cachedKeyset) throws GeneralSecurityException {
+        synchronized (updateLock) {
+            PublicKeyState current = this.keyState;
+            if (current.isReady()) {
+                return;
+            }
+            KeysetHandle publicKeysetHandle = TinkJsonProtoKeysetFormat.parseKeyset(
+                    cachedKeyset.publicKeysetAsString(), InsecureSecretKeyAccess.get());
+            this.keyState = new PublicKeyState(
+                    publicKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeyVerify.class),
+                    indexByKid(publicKeysetHandle),
+                    publicKeysetHandle.size(),
+                    cachedKeyset.publicKeysetAsString(),
+                    current.keysetVersion() + 1,
+                    TokenDigest.of(cachedKeyset.publicKeysetAsString()).toHex(),
+                    cachedKeyset.etag(),
+                    cachedKeyset.lastModified(),
+                    null,
+                    LocalDateTime.ofInstant(cachedKeyset.fetchedAt(), ZoneId.systemDefault()));
+        }
+    }
+
+    /**
+     * 采用其他节点获取的公钥集，不进行网络请求
+     * <p>
+     * 只采用比当前公钥集更晚获取的公钥集，内容相同时只更新获取时间。
+     *
+     * @param sharedKeyset keyset published by another node
+     * @return true if the keyset was adopted
+     * @throws GeneralSecurityException if the keyset cannot be parsed
+     */
+    public boolean adopt(PublicKeysetDiskCache.CachedKeyset sharedKeyset) throws GeneralSecurityException {
+        synchronized (updateLock) {
+            PublicKeyState current = this.keyState;
+            LocalDateTime fetchedAt = LocalDateTime.ofInstant(sharedKeyset.fetchedAt(), ZoneId.systemDefault());
+            if (current.isReady() && !fetchedAt.isAfter(current.lastUpdateTime())) {
+                return false;
+            }
+            if (sharedKeyset.publicKeysetAsString().equals(current.publicKeysetAsString())) {
+                this.keyState = new PublicKeyState(current.jwtPublicKeyVerify(), current.verifiersByKid(), current.keyCount(),
+                        current.publicKeysetAsString(), current.keysetVersion(), current.keysetFingerprint(),
+                        sharedKeyset.etag(), sharedKeyset.lastModified(), current.maxAge(), fetchedAt);
+                return true;
+            }
+            KeysetHandle publicKeysetHandle = TinkJsonProtoKeysetFormat.parseKeyset(
+                    sharedKeyset.publicKeysetAsString(), InsecureSecretKeyAccess.get());
+            this.keyState = new PublicKeyState(
+                    publicKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeyVerify.class),
+                    indexByKid(publicKeysetHandle),
+                    publicKeysetHandle.size(),
+                    sharedKeyset.publicKeysetAsString(),
+                    current.keysetVersion() + 1,
+                    TokenDigest.of(sharedKeyset.publicKeysetAsString()).toHex(),
+                    sharedKeyset.etag(),
+                    sharedKeyset.lastModified(),
+                    null,
+                    fetchedAt);
+            return true;
+        }
+    }
+
+    /**
+     * 导出当前公钥集以便保存到本地缓存
+     *
+     * @return current keyset, or empty if not ready
+     */
+    public Optional<PublicKeysetDiskCache.CachedKeyset> toCachedKeyset() {
+        PublicKeyState state = this.keyState;
+        if (!state.isReady()) {
+            return Optional.empty();
+        }
+        return Optional.of(new PublicKeysetDiskCache.CachedKeyset(state.publicKeysetAsString(),
+                state.lastUpdateTime().atZone(ZoneId.systemDefault()).toInstant(),
+                state.etag(),
+                state.lastModified()));
+    }
+
+    /**
+     * A failed public keyset fetch.
+     *
+     * @param time    when the fetch failed
+     * @param message error message
+     */
+    public record FetchFailure(LocalDateTime time, String message) {
+    }
+
+    /**
+     * Extracts one mapped claim from a verified token.
+     */
+    @FunctionalInterface
+    private interface ClaimExtractor {
+        Object extract(VerifiedJwt verifiedJwt) throws JwtInvalidException;
+    }
+}
@@ -0,0 +1,111 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory record of the {@code jti} values an issuer's tokens have already been verified with.
+ * <p>
+ * Values are spread over independently locked stripes by hash. Within a stripe they are grouped
+ * into buckets by expiration time, so a whole bucket is dropped at once when its tokens have expired.
+ * A token can only be replayed with the expiration it was signed with, so a lookup only has to
+ * search the bucket of that expiration.
+ */
+public class JtiReplayGuard {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long bucketMillis;
+
+    /**
+     * Create a new JtiReplayGuard.
+     *
+     * @param stripes     number of stripes, rounded up to a power of two
+     * @param bucketWidth span of expiration times grouped into one bucket
+     */
+    JtiReplayGuard(int stripes, Duration bucketWidth) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be positive");
+        }
+        if (bucketWidth.isNegative() || bucketWidth.isZero()) {
+            throw new IllegalArgumentException("Bucket width must be positive");
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.bucketMillis = bucketWidth.toMillis();
+    }
+
+    /**
+     * 记录 jti，该 jti 此前已被记录且尚未过期时返回 false
+     *
+     * @param jwtId      jti of the verified token
+     * @param expiration expiration of the verified token
+     * @return true if the jti was seen for the first time
+     */
+    boolean markIfAbsent(String jwtId, Instant expiration) {
+        long now = System.currentTimeMillis();
+        long expiresAtMillis = expiration.toEpochMilli();
+        if (expiresAtMillis <= now) {
+            // 已过期的 token 不会通过验证，无需记录
+            return true;
+        }
+        int hash = jwtId.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        // 向上取整，保证整个批次到期时其中所有 token 均已过期
+        long bucket = Math.floorDiv(expiresAtMillis, bucketMillis) + 1;
+        synchronized (stripe) {
+            stripe.purge(now, bucketMillis);
+            return stripe.buckets.computeIfAbsent(bucket, ignored -> new HashSet<>()).add(jwtId);
+        }
+    }
+
+    /**
+     * Number of recorded values, including expired values that have not been dropped yet.
+     *
+     * @return recorded values
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Set<String> values : stripe.buckets.values()) {
+                    size += values.size();
+                }
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe {
+        private final Map<Long, Set<String>> buckets = new HashMap<>();
+        private long nextPurgeMillis;
+
+        /**
+         * 丢弃已整体过期的批次，每个批次跨度内最多检查一次
+         */
+        private void purge(long now, long bucketMillis) {
+            if (now < nextPurgeMillis) {
+                return;
+            }
+            nextPurgeMillis = now + bucketMillis;
+            Iterator<Long> iterator = buckets.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() * bucketMillis <= now) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.KeyFetchProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-issuer circuit breaker and retry backoff for public keyset fetches.
+ * <p>
+ * After {@code failure-threshold} consecutive failures the issuer's circuit opens and its keyset is not
+ * fetched for {@code open-duration}. After that a single trial fetch is let through, which closes the
+ * circuit on success and opens it again on failure. Until then the last keyset fetched keeps being used.
+ * Between failures the background refresh waits an exponentially growing, randomized delay.
+ */
+public class KeyFetchCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyFetchCircuitBreaker.class);
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double backoffJitter;
+    private final Map<String, IssuerState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new KeyFetchCircuitBreaker.
+     *
+     * @param properties fetch configuration
+     */
+    KeyFetchCircuitBreaker(KeyFetchProperties properties) {
+        if (properties.getInitialBackoff().isNegative() || properties.getInitialBackoff().isZero()) {
+            throw new IllegalArgumentException("Initial backoff must be positive");
+        }
+        this.failureThreshold = Math.max(1, properties.getFailureThreshold());
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.initialBackoffMillis = properties.getInitialBackoff().toMillis();
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, properties.getMaxBackoff().toMillis());
+        this.backoffJitter = Math.min(1.0, Math.max(0.0, properties.getBackoffJitter()));
+    }
+
+    /**
+     * 在获取公钥集之前调用，熔断期间或已有试探性获取进行中时返回 false
+     *
+     * @param issuer issuer name
+     * @return true if the keyset may be fetched
+     */
+    boolean tryAcquire(String issuer) {
+        IssuerState state = states.computeIfAbsent(issuer, ignored -> new IssuerState());
+        synchronized (state) {
+            if (state.consecutiveFailures < failureThreshold) {
+                return true;
+            }
+            if (System.nanoTime() - state.openedAtNanos < openNanos || state.trialInFlight) {
+                return false;
+            }
+            state.trialInFlight = true;
+            return true;
+        }
+    }
+
+    /**
+     * 记录一次成功的获取，关闭熔断
+     *
+     * @param issuer issuer name
+     */
+    void onSuccess(String issuer) {
+        IssuerState state = states.get(issuer);
+        if (Objects.isNull(state)) {
+            return;
+        }
+        synchronized (state) {
+            if (state.consecutiveFailures >= failureThreshold) {
+                logger.info("Resumed fetching public keyset of issuer: {}", issuer);
+            }
+            state.consecutiveFailures = 0;
+            state.trialInFlight = false;
+        }
+    }
+
+    /**
+     * 记录一次失败的获取，连续失败达到阈值或试探性获取失败时开始熔断
+     *
+     * @param issuer issuer name
+     */
+    void onFailure(String issuer) {
+        IssuerState state = states.computeIfAbsent(issuer, ignored -> new IssuerState());
+        synchronized (state) {
+            state.consecutiveFailures++;
+            state.trialInFlight = false;
+            if (state.consecutiveFailures >= failureThreshold) {
+                state.openedAtNanos = System.nanoTime();
+                if (state.consecutiveFailures == failureThreshold) {
+                    logger.warn("Stopped fetching public keyset of issuer: {} after {} consecutive failures, "
+                            + "retrying in {}", issuer, failureThreshold, Duration.ofNanos(openNanos));
+                }
+            }
+        }
+    }
+
+    /**
+     * 计算获取失败后到下一次重试的等待时间
+     * <p>
+     * 等待时间从 {@code initial-backoff} 开始随连续失败次数加倍，不超过 {@code max-backoff}，
+     * 并随机缩短至多 {@code backoff-jitter} 的比例；熔断期间至少等到允许试探性获取的时候。
+     *
+     * @param issuer issuer name
+     * @return delay until the next attempt
+     */
+    Duration retryDelay(String issuer) {
+        IssuerState state = states.get(issuer);
+        int failures;
+        long openRemainingNanos = 0;
+        if (Objects.isNull(state)) {
+            failures = 1;
+        } else {
+            synchronized (state) {
+                failures = Math.max(1, state.consecutiveFailures);
+                if (state.consecutiveFailures >= failureThreshold) {
+                    openRemainingNanos = openNanos - (System.nanoTime() - state.openedAtNanos);
+                }
+            }
+        }
+        long delayMillis = initialBackoffMillis << Math.min(failures - 1, 30);
+        if (delayMillis <= 0 || delayMillis > maxBackoffMillis) {
+            delayMillis = maxBackoffMillis;
+        }
+        if (backoffJitter > 0) {
+            delayMillis -= (long) (delayMillis * ThreadLocalRandom.current().nextDouble(backoffJitter));
+        }
+        return Duration.ofMillis(Math.max(delayMillis, Duration.ofNanos(openRemainingNanos).toMillis()));
+    }
+
+    /**
+     * Get the circuit state of an issuer.
+     *
+     * @param issuer issuer name
+     * @return circuit state, {@link State#CLOSED} for issuers that never failed
+     */
+    public State getState(String issuer) {
+        IssuerState state = states.get(issuer);
+        if (Objects.isNull(state)) {
+            return State.CLOSED;
+        }
+        synchronized (state) {
+            if (state.consecutiveFailures < failureThreshold) {
+                return State.CLOSED;
+            }
+            return System.nanoTime() - state.openedAtNanos < openNanos ? State.OPEN : State.HALF_OPEN;
+        }
+    }
+
+    /**
+     * Get the number of consecutive failed fetches of an issuer.
+     *
+     * @param issuer issuer name
+     * @return consecutive failures, 0 after a successful fetch
+     */
+    public int getConsecutiveFailures(String issuer) {
+        IssuerState state = states.get(issuer);
+        if (Objects.isNull(state)) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.consecutiveFailures;
+        }
+    }
+
+    /**
+     * Forget the state of an issuer that is no longer trusted.
+     *
+     * @param issuer issuer name
+     */
+    void forget(String issuer) {
+        states.remove(issuer);
+    }
+
+    public enum State {
+        /**
+         * Fetches are made as scheduled.
+         */
+        CLOSED,
+        /**
+         * Fetches are suspended after repeated failures.
+         */
+        OPEN,
+        /**
+         * The next fetch is a trial that decides whether fetches resume.
+         */
+        HALF_OPEN
+    }
+
+    private static class IssuerState {
+        private int consecutiveFailures;
+        private long openedAtNanos;
+        private boolean trialInFlight;
+    }
+}
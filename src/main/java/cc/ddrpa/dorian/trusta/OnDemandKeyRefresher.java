@@ -0,0 +1,85 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.OnDemandRefreshProperties;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Refreshes an issuer's public keyset when verification suggests its keys have rotated.
+ * <p>
+ * Concurrent requests for the same issuer share one in-flight refresh, and a new refresh is only
+ * started once {@code trusta.on-demand-refresh.min-interval} has passed since the previous one.
+ */
+class OnDemandKeyRefresher {
+
+    private final long minIntervalNanos;
+    private final Function<JsonWebTokenVerify, CompletableFuture<Boolean>> refreshAction;
+    private final Map<String, IssuerState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new OnDemandKeyRefresher.
+     *
+     * @param properties    on-demand refresh configuration
+     * @param refreshAction starts refreshing one issuer without blocking, completes with whether the refresh succeeded
+     */
+    OnDemandKeyRefresher(OnDemandRefreshProperties properties,
+                         Function<JsonWebTokenVerify, CompletableFuture<Boolean>> refreshAction) {
+        this.minIntervalNanos = properties.getMinInterval().toNanos();
+        this.refreshAction = refreshAction;
+    }
+
+    /**
+     * 请求刷新签发者的公钥集，已有进行中的刷新时直接复用
+     *
+     * @param verify verifier of the issuer
+     * @return future of the refresh, or null if rate limited
+     */
+    CompletableFuture<Boolean> refresh(JsonWebTokenVerify verify) {
+        IssuerState state = states.computeIfAbsent(verify.getIssuer(), ignored -> new IssuerState());
+        CompletableFuture<Boolean> current = state.inFlight.get();
+        if (Objects.nonNull(current) && !current.isDone()) {
+            return current;
+        }
+        long now = System.nanoTime();
+        if (Objects.nonNull(current) && now - state.lastStartNanos < minIntervalNanos) {
+            return null;
+        }
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        if (!state.inFlight.compareAndSet(current, future)) {
+            // 其他线程已发起刷新
+            return state.inFlight.get();
+        }
+        state.lastStartNanos = now;
+        try {
+            refreshAction.apply(verify).whenComplete((succeeded, error) -> {
+                if (Objects.isNull(error)) {
+                    future.complete(succeeded);
+                } else {
+                    future.completeExceptionally(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.complete(Boolean.FALSE);
+        }
+        return future;
+    }
+
+    /**
+     * Forget the state of an issuer that is no longer trusted.
+     *
+     * @param issuer issuer name
+     */
+    void forget(String issuer) {
+        states.remove(issuer);
+    }
+
+    private static class IssuerState {
+        private final AtomicReference<CompletableFuture<Boolean>> inFlight = new AtomicReference<>();
+        private volatile long lastStartNanos;
+    }
+}
@@ -0,0 +1,116 @@
+package cc.ddrpa.dorian.trusta;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the private keyset file and calls back once it has been modified or replaced.
+ * <p>
+ * The parent directory is watched so that files replaced by an atomic move are noticed as well. Changes
+ * within {@code debounce} of each other are reported once, after the last of them.
+ */
+class PrivateKeysetWatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrivateKeysetWatcher.class);
+
+    private final Path keysetPath;
+    private final long debounceMillis;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pending;
+
+    /**
+     * Create a new PrivateKeysetWatcher and start watching.
+     *
+     * @param keysetPath private keyset file
+     * @param debounce   time to wait for further changes
+     * @param onChange   called on the watcher thread after the file changed
+     * @throws IOException if the directory cannot be watched
+     */
+    PrivateKeysetWatcher(Path keysetPath, Duration debounce, Runnable onChange) throws IOException {
+        this.keysetPath = keysetPath.toAbsolutePath();
+        this.debounceMillis = Math.max(0, debounce.toMillis());
+        this.onChange = onChange;
+        this.watchService = this.keysetPath.getFileSystem().newWatchService();
+        this.keysetPath.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trusta-keyset-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread thread = new Thread(this::watch, "trusta-keyset-watch-events");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching private keyset file: {}", this.keysetPath);
+    }
+
+    private void watch() {
+        Path fileName = keysetPath.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // 溢出时无法确定变化的文件，按已变化处理
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    schedule();
+                }
+                if (!key.reset()) {
+                    logger.warn("Stopped watching private keyset file: {}, directory is no longer accessible",
+                            keysetPath);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 已关闭
+        }
+    }
+
+    private synchronized void schedule() {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        if (Objects.nonNull(pending)) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(() -> {
+            try {
+                onChange.run();
+            } catch (RuntimeException e) {
+                logger.error("Failed to reload private keyset, error: {}", e.getMessage());
+            }
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        scheduler.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close private keyset watcher, error: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.KeyRefreshProperties;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Refreshes issuer public keysets in the background, each issuer on its own schedule.
+ * <p>
+ * The delay until the next refresh follows the {@code Cache-Control: max-age} of the last response,
+ * randomized by the configured jitter and bounded by the configured minimum and maximum interval.
+ * After a failure the delay is given by the retry backoff instead. Refreshes run asynchronously, so
+ * the scheduler thread is never held by a slow issuer.
+ */
+class PublicKeyRefresher implements AutoCloseable {
+
+    private static final double MAX_JITTER = Math.nextDown(1.0);
+
+    private final KeyRefreshProperties properties;
+    private final Function<JsonWebTokenVerify, CompletableFuture<Boolean>> refreshAction;
+    private final Predicate<JsonWebTokenVerify> activeCheck;
+    private final Function<JsonWebTokenVerify, Duration> retryDelay;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Create a new PublicKeyRefresher.
+     *
+     * @param properties    refresh configuration
+     * @param refreshAction starts refreshing one issuer without blocking, completes with whether the refresh succeeded
+     * @param activeCheck   whether a verifier is still registered, removed verifiers are no longer refreshed
+     * @param retryDelay    delay before retrying an issuer whose last refresh failed
+     */
+    PublicKeyRefresher(KeyRefreshProperties properties,
+                       Function<JsonWebTokenVerify, CompletableFuture<Boolean>> refreshAction,
+                       Predicate<JsonWebTokenVerify> activeCheck,
+                       Function<JsonWebTokenVerify, Duration> retryDelay) {
+        this.properties = properties;
+        this.refreshAction = refreshAction;
+        this.activeCheck = activeCheck;
+        this.retryDelay = retryDelay;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trusta-key-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 根据上次刷新结果安排该签发者的下一次刷新
+     *
+     * @param verify    verifier to refresh
+     * @param succeeded whether the last refresh succeeded
+     */
+    void schedule(JsonWebTokenVerify verify, boolean succeeded) {
+        if (scheduler.isShutdown() || !activeCheck.test(verify)) {
+            return;
+        }
+        long delayMillis = nextDelay(verify, succeeded).toMillis();
+        try {
+            scheduler.schedule(() -> {
+                if (!activeCheck.test(verify)) {
+                    return;
+                }
+                CompletableFuture<Boolean> refresh;
+                try {
+                    refresh = refreshAction.apply(verify);
+                } catch (RuntimeException e) {
+                    refresh = CompletableFuture.completedFuture(Boolean.FALSE);
+                }
+                refresh.whenComplete((refreshed, error) ->
+                        schedule(verify, Objects.isNull(error) && Boolean.TRUE.equals(refreshed)));
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // 已关闭
+        }
+    }
+
+    Duration nextDelay(JsonWebTokenVerify verify, boolean succeeded) {
+        if (!succeeded) {
+            // 退避时间已包含随机抖动
+            return retryDelay.apply(verify);
+        }
+        Duration interval;
+        if (Objects.nonNull(verify.getMaxAge())) {
+            interval = verify.getMaxAge();
+        } else {
+            interval = properties.getDefaultInterval();
+        }
+        interval = bound(interval);
+        // 抖动比例限制在 [0, 1) 内，否则间隔可能为零或负数，使刷新立即执行
+        double jitter = Math.min(MAX_JITTER, Math.max(0.0, properties.getJitter()));
+        if (jitter > 0) {
+            double factor = 1.0 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+            interval = bound(Duration.ofMillis((long) (interval.toMillis() * factor)));
+        }
+        return interval;
+    }
+
+    private Duration bound(Duration interval) {
+        if (interval.compareTo(properties.getMinInterval()) < 0) {
+            return properties.getMinInterval();
+        }
+        if (interval.compareTo(properties.getMaxInterval()) > 0) {
+            return properties.getMaxInterval();
+        }
+        return interval;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
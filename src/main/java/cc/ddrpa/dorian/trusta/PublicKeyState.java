@@ -0,0 +1,41 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.google.crypto.tink.jwt.JwtPublicKeyVerify;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an issuer's public keyset, published by {@link JsonWebTokenVerify} as a whole.
+ *
+ * @param jwtPublicKeyVerify   verification primitive, null when not ready
+ * @param verifiersByKid       single-key primitives of the enabled keys that carry a {@code kid}
+ * @param keyCount             number of keys in the keyset
+ * @param publicKeysetAsString keyset the primitive was built from
+ * @param keysetVersion        incremented whenever the keyset changes
+ * @param keysetFingerprint    digest of the keyset, identical on every node holding the same keyset
+ * @param etag                 ETag validator of the last response
+ * @param lastModified         Last-Modified validator of the last response
+ * @param maxAge               freshness lifetime declared by the issuer
+ * @param lastUpdateTime       time of the last successful fetch
+ */
+record PublicKeyState(JwtPublicKeyVerify jwtPublicKeyVerify,
+                      Map<String, JwtPublicKeyVerify> verifiersByKid,
+                      int keyCount,
+                      String publicKeysetAsString,
+                      long keysetVersion,
+                      String keysetFingerprint,
+                      String etag,
+                      String lastModified,
+                      Duration maxAge,
+                      LocalDateTime lastUpdateTime) {
+
+    static PublicKeyState initial() {
+        return new PublicKeyState(null, Map.of(), 0, null, 0, null, null, null, null, LocalDateTime.now());
+    }
+
+    boolean isReady() {
+        return jwtPublicKeyVerify != null;
+    }
+}
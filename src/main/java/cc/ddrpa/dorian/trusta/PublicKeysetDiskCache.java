@@ -0,0 +1,114 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Persists fetched public keysets to a local directory so that verification can start without network I/O.
+ * <p>
+ * Each issuer is stored in its own file, written to a temporary file first and then moved into place.
+ */
+public class PublicKeysetDiskCache {
+
+    private final Path directory;
+    private final Duration maxStaleness;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Create a new PublicKeysetDiskCache.
+     *
+     * @param directory    cache directory, created on first write
+     * @param maxStaleness keysets fetched longer ago than this are not loaded
+     * @param objectMapper Jackson object mapper
+     */
+    public PublicKeysetDiskCache(Path directory, Duration maxStaleness, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.maxStaleness = maxStaleness;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 读取签发者的本地缓存，公钥地址不一致或超过最长有效期时忽略
+     *
+     * @param issuer       issuer name
+     * @param publicKeyURI current keyset location of the issuer
+     * @return cached keyset
+     * @throws IOException if the cache file cannot be read
+     */
+    public Optional<CachedKeyset> load(String issuer, URI publicKeyURI) throws IOException {
+        Path file = fileOf(issuer);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        JsonNode node = objectMapper.readTree(Files.readString(file, StandardCharsets.UTF_8));
+        if (!issuer.equals(node.path("issuer").asText()) || !publicKeyURI.toString().equals(node.path("publicKeyUri").asText())) {
+            return Optional.empty();
+        }
+        Instant fetchedAt = Instant.ofEpochMilli(node.path("fetchedAt").asLong());
+        if (fetchedAt.plus(maxStaleness).isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(new CachedKeyset(node.path("keyset").asText(),
+                fetchedAt,
+                textOrNull(node, "etag"),
+                textOrNull(node, "lastModified")));
+    }
+
+    /**
+     * 保存签发者的公钥集
+     *
+     * @param issuer       issuer name
+     * @param publicKeyURI keyset location of the issuer
+     * @param keyset       keyset to store
+     * @throws IOException if the cache file cannot be written
+     */
+    public void store(String issuer, URI publicKeyURI, CachedKeyset keyset) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("issuer", issuer)
+                .put("publicKeyUri", publicKeyURI.toString())
+                .put("fetchedAt", keyset.fetchedAt().toEpochMilli())
+                .put("etag", keyset.etag())
+                .put("lastModified", keyset.lastModified())
+                .put("keyset", keyset.publicKeysetAsString());
+        AtomicFiles.writeString(fileOf(issuer), objectMapper.writeValueAsString(node));
+    }
+
+    private Path fileOf(String issuer) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(issuer.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return Objects.isNull(value) || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * A keyset together with the time it was fetched and its HTTP validators.
+     *
+     * @param publicKeysetAsString keyset in Tink JSON format
+     * @param fetchedAt            time of the last successful fetch or revalidation
+     * @param etag                 ETag validator, may be null
+     * @param lastModified         Last-Modified validator, may be null
+     */
+    public record CachedKeyset(String publicKeysetAsString, Instant fetchedAt, String etag, String lastModified) {
+    }
+}
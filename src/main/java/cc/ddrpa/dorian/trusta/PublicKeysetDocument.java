@@ -0,0 +1,185 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The public keyset of the current issuer, encoded once when the key changes and served as is.
+ * <p>
+ * Holds the UTF-8 body, an optional gzip body, a strong ETag derived from the content and the
+ * HTTP headers that let peers cache the keyset.
+ */
+public final class PublicKeysetDocument {
+
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final Instant lastModified;
+    private final String lastModifiedHeader;
+    private final String cacheControl;
+
+    private PublicKeysetDocument(byte[] body, byte[] gzipBody, String etag, Instant lastModified, Duration maxAge) {
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.lastModifiedHeader = DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified.atZone(ZoneOffset.UTC));
+        this.cacheControl = "public, max-age=" + Math.max(maxAge.toSeconds(), 0L);
+    }
+
+    /**
+     * 编码公钥集
+     *
+     * @param publicKeysetAsString public keyset in Tink JSON format
+     * @param lastModified         time the keyset was loaded
+     * @param maxAge               freshness lifetime announced to peers
+     * @param compression          whether to prepare a gzip encoded body
+     * @return encoded document
+     */
+    public static PublicKeysetDocument of(String publicKeysetAsString, Instant lastModified, Duration maxAge,
+                                          boolean compression) {
+        byte[] body = publicKeysetAsString.getBytes(StandardCharsets.UTF_8);
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+        // HTTP 日期只精确到秒
+        return new PublicKeysetDocument(body, compression ? gzip(body) : null, etag,
+                lastModified.truncatedTo(ChronoUnit.SECONDS), maxAge);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 根据条件请求头判断客户端缓存的公钥集是否仍然有效
+     * <p>
+     * 存在 If-None-Match 时忽略 If-Modified-Since。
+     *
+     * @param ifNoneMatch     If-None-Match header, may be null
+     * @param ifModifiedSince If-Modified-Since header, may be null
+     * @return true if a 304 response should be sent
+     */
+    public boolean isNotModified(String ifNoneMatch, String ifModifiedSince) {
+        if (Objects.nonNull(ifNoneMatch)) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                // If-None-Match 使用弱比较
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals("*") || value.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (Objects.nonNull(ifModifiedSince)) {
+            try {
+                Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return !lastModified.isAfter(since);
+            } catch (DateTimeParseException ignored) {
+                // 无法解析的日期视为没有条件
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 客户端是否接受 gzip 编码的响应
+     *
+     * @param acceptEncoding Accept-Encoding header, may be null
+     * @return true if the gzip body is available and accepted
+     */
+    public boolean acceptsGzip(String acceptEncoding) {
+        if (Objects.isNull(gzipBody) || Objects.isNull(acceptEncoding)) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(parameter.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the UTF-8 encoded body. The returned array is shared and must not be modified.
+     *
+     * @return body
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Get the gzip encoded body. The returned array is shared and must not be modified.
+     *
+     * @return gzip body, or null if compression is disabled
+     */
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Get the Last-Modified header value.
+     *
+     * @return HTTP date
+     */
+    public String getLastModifiedHeader() {
+        return lastModifiedHeader;
+    }
+
+    /**
+     * Get the Cache-Control header value.
+     *
+     * @return cache control directives
+     */
+    public String getCacheControl() {
+        return cacheControl;
+    }
+}
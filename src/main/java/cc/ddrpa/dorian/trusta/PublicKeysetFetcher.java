@@ -0,0 +1,212 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches public keysets over HTTP with conditional requests, sharing one HTTP client across all issuers.
+ * <p>
+ * Every fetch is bounded by the read timeout from sending the request to reading the whole response,
+ * so a peer that accepts the connection but answers slowly cannot hold a fetch indefinitely.
+ */
+public class PublicKeysetFetcher {
+
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+
+    /**
+     * Create a fetcher backed by a new HTTP/2 capable client with the default timeouts.
+     */
+    public PublicKeysetFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * Create a fetcher backed by a new HTTP/2 capable client.
+     *
+     * @param connectTimeout timeout for establishing a connection
+     * @param readTimeout    timeout from sending a request to reading the whole response
+     */
+    public PublicKeysetFetcher(Duration connectTimeout, Duration readTimeout) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                // 与此前一致不跟随重定向，公钥集只从配置的地址获取，3xx 响应视为获取失败
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(connectTimeout)
+                .build(), readTimeout);
+    }
+
+    /**
+     * Create a fetcher backed by the given client.
+     *
+     * @param httpClient HTTP client shared by all issuers
+     * @param timeout    timeout from sending a request to reading the whole response
+     */
+    public PublicKeysetFetcher(HttpClient httpClient, Duration timeout) {
+        this.httpClient = httpClient;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获取公钥集，携带上次响应的校验信息时发送条件请求
+     *
+     * @param uri          keyset location
+     * @param etag         ETag of the last response, may be null
+     * @param lastModified Last-Modified of the last response, may be null
+     * @return fetch result
+     * @throws IOException          if the request fails or the response status is unexpected
+     * @throws InterruptedException if interrupted while waiting for the response
+     */
+    public FetchResult fetch(URI uri, String etag, String lastModified) throws IOException, InterruptedException {
+        CompletableFuture<FetchResult> future = fetchAsync(uri, etag, lastModified);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to fetch public keyset from " + uri, e.getCause());
+        }
+    }
+
+    /**
+     * 异步获取公钥集，不阻塞调用线程
+     *
+     * @param uri          keyset location
+     * @param etag         ETag of the last response, may be null
+     * @param lastModified Last-Modified of the last response, may be null
+     * @return future of the fetch result, completed exceptionally with an {@link IOException}
+     * if the request fails or the response status is unexpected
+     */
+    public CompletableFuture<FetchResult> fetchAsync(URI uri, String etag, String lastModified) {
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(newRequest(uri, etag, lastModified),
+                HttpResponse.BodyHandlers.ofString());
+        // 在副本上设置超时，超时后仍可取消原请求
+        return exchange.copy()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    if (error instanceof TimeoutException) {
+                        // 超时后中止仍在进行的请求
+                        exchange.cancel(true);
+                        throw new CompletionException(new HttpTimeoutException(
+                                "Timed out fetching public keyset from " + uri + " after " + timeout));
+                    }
+                    if (Objects.nonNull(error)) {
+                        throw error instanceof CompletionException completionException
+                                ? completionException : new CompletionException(error);
+                    }
+                    try {
+                        return toFetchResult(uri, response, etag, lastModified);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private HttpRequest newRequest(URI uri, String etag, String lastModified) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (Objects.nonNull(etag)) {
+            builder.header("If-None-Match", etag);
+        }
+        if (Objects.nonNull(lastModified)) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return builder.build();
+    }
+
+    static FetchResult toFetchResult(URI uri, HttpResponse<String> response, String etag, String lastModified)
+            throws IOException {
+        HttpHeaders headers = response.headers();
+        Duration maxAge = parseMaxAge(headers);
+        if (response.statusCode() == 304) {
+            return new FetchResult(null,
+                    headers.firstValue("ETag").orElse(etag),
+                    headers.firstValue("Last-Modified").orElse(lastModified),
+                    maxAge);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to fetch public keyset from " + uri
+                    + ", status code: " + response.statusCode());
+        }
+        return new FetchResult(response.body(),
+                headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null),
+                maxAge);
+    }
+
+    /**
+     * 解析 Cache-Control 中的 max-age，no-cache 与 no-store 视为立即过期
+     *
+     * @param headers response headers
+     * @return freshness lifetime, or null if the response does not declare one
+     */
+    static Duration parseMaxAge(HttpHeaders headers) {
+        Optional<String> cacheControl = headers.firstValue("Cache-Control");
+        if (cacheControl.isEmpty()) {
+            return null;
+        }
+        Duration maxAge = null;
+        for (String directive : cacheControl.get().split(",")) {
+            String value = directive.trim().toLowerCase(Locale.ROOT);
+            if (value.equals("no-cache") || value.equals("no-store")) {
+                return Duration.ZERO;
+            }
+            if (value.startsWith("max-age=")) {
+                try {
+                    maxAge = Duration.ofSeconds(Long.parseLong(value.substring("max-age=".length()).replace("\"", "")));
+                } catch (NumberFormatException ignored) {
+                    // 忽略无法解析的 max-age
+                }
+            }
+        }
+        if (Objects.nonNull(maxAge)) {
+            long age = headers.firstValueAsLong("Age").orElse(0L);
+            maxAge = maxAge.minusSeconds(Math.max(age, 0L));
+            if (maxAge.isNegative()) {
+                maxAge = Duration.ZERO;
+            }
+        }
+        return maxAge;
+    }
+
+    /**
+     * Result of a keyset fetch.
+     *
+     * @param body         response body, null when the keyset was not modified
+     * @param etag         ETag validator, may be null
+     * @param lastModified Last-Modified validator, may be null
+     * @param maxAge       freshness lifetime declared by the issuer, may be null
+     */
+    public record FetchResult(String body, String etag, String lastModified, Duration maxAge) {
+
+        public boolean isNotModified() {
+            return Objects.isNull(body);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of tokens that recently failed verification for a reason that does not change on retry.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token and expire after a fixed time. A bad signature is
+ * only remembered for the public keyset version that rejected it, and an unknown issuer only until that
+ * issuer is registered. When full, the least recently used entries are evicted.
+ */
+public class RejectedTokenCache {
+
+    private final long ttlMillis;
+    private final BoundedCache<TokenDigest, Entry> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * Create a new RejectedTokenCache.
+     *
+     * @param maximumSize maximum number of remembered tokens
+     * @param ttl         how long a failure is remembered
+     */
+    RejectedTokenCache(int maximumSize, Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new BoundedCache<>(maximumSize, Entry::expiresAtMillis, () -> {
+        });
+    }
+
+    /**
+     * 判断失败原因在重试时是否保持不变，公钥未就绪、被限流等暂时的失败不会被记住
+     * <p>
+     * 声明校验失败中包括尚未生效的 token，随时间推移可能通过验证，因此也不记住。
+     *
+     * @param outcome failure outcome
+     * @return true if the failure can be remembered
+     */
+    static boolean isDeterministic(VerifyOutcome outcome) {
+        return switch (outcome) {
+            case MALFORMED, UNKNOWN_ISSUER, BAD_SIGNATURE, EXPIRED, AUDIENCE_MISMATCH, REPLAYED -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 查找最近被拒绝的 token，过期或已不再适用的条目视为未命中
+     *
+     * @param digest    token digest
+     * @param verifyMap registered verifiers
+     * @return outcome of the earlier failure, or null
+     */
+    VerifyOutcome get(TokenDigest digest, Map<String, JsonWebTokenVerify> verifyMap) {
+        Entry entry = entries.get(digest);
+        if (Objects.isNull(entry)) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis() || !entry.appliesTo(verifyMap)) {
+            entries.remove(digest, entry);
+            return null;
+        }
+        hitCount.increment();
+        return entry.outcome;
+    }
+
+    /**
+     * 记住验证失败的 token
+     *
+     * @param digest        token digest
+     * @param outcome       failure outcome, see {@link #isDeterministic(VerifyOutcome)}
+     * @param issuer        issuer the token claims, null if unknown
+     * @param keysetVersion version of the public keyset that rejected the signature
+     */
+    void put(TokenDigest digest, VerifyOutcome outcome, String issuer, long keysetVersion) {
+        entries.put(digest, new Entry(outcome, issuer, keysetVersion, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 丢弃指定签发者的所有条目，在签发者被替换或移除时调用
+     *
+     * @param issuer issuer name
+     */
+    public void invalidateIssuer(String issuer) {
+        entries.removeIf(entry -> Objects.equals(entry.issuer, issuer));
+    }
+
+    /**
+     * Discard all remembered tokens.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return entries.getMaximumSize();
+    }
+
+    /**
+     * Number of tokens rejected from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    private record Entry(VerifyOutcome outcome, String issuer, long keysetVersion, long expiresAtMillis) {
+
+        private boolean appliesTo(Map<String, JsonWebTokenVerify> verifyMap) {
+            return switch (outcome) {
+                case UNKNOWN_ISSUER -> !verifyMap.containsKey(issuer);
+                case BAD_SIGNATURE -> {
+                    JsonWebTokenVerify verify = Objects.isNull(issuer) ? null : verifyMap.get(issuer);
+                    yield Objects.nonNull(verify) && verify.getKeysetVersion() == keysetVersion;
+                }
+                default -> true;
+            };
+        }
+    }
+}
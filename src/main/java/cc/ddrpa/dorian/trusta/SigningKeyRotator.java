@@ -0,0 +1,310 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.KeyRotationProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeyStatus;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtEcdsaParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Rotates the signing keyset of the current issuer.
+ * <p>
+ * A new key is added to the keyset {@code publish-ahead} before the primary key reaches
+ * {@code rotation-interval}, so peers can fetch it before it is used. Once published long enough it
+ * becomes primary, and the previous primary is removed {@code retire-after} later, when no token it
+ * signed can still be valid. The time of each step is kept in a sidecar file next to the keyset.
+ * <p>
+ * 多个实例共享私钥文件时，每次检查都在 {@code <private-keyset-file>.lock} 的文件锁内重新读取私钥文件与时间记录，
+ * 再决定是否轮换，因此只有一个实例生成新私钥，其他实例随后读到并切换到同一私钥集。
+ */
+class SigningKeyRotator implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyRotator.class);
+    // 文件锁由整个 JVM 持有，同一 JVM 内共享私钥文件的实例另外通过该对象互斥
+    private static final Map<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path keysetPath;
+    private final Path metadataPath;
+    private final Path lockPath;
+    private final KeyRotationProperties properties;
+    private final ObjectMapper objectMapper;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Create a new SigningKeyRotator.
+     *
+     * @param keysetPath   private keyset file
+     * @param properties   rotation configuration
+     * @param objectMapper Jackson object mapper
+     */
+    SigningKeyRotator(Path keysetPath, KeyRotationProperties properties, ObjectMapper objectMapper) {
+        if (properties.getRetireAfter().compareTo(JsonWebTokenSigner.DEFAULT_VALIDITY_PERIOD) < 0) {
+            throw new IllegalArgumentException("Retire-after must not be shorter than the default validity period of "
+                    + JsonWebTokenSigner.DEFAULT_VALIDITY_PERIOD);
+        }
+        this.keysetPath = keysetPath;
+        this.metadataPath = keysetPath.resolveSibling(keysetPath.getFileName() + ".rotation.json");
+        this.lockPath = keysetPath.resolveSibling(keysetPath.getFileName() + ".lock");
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 停止签发的私钥被移除前保留的时间，也是签发 token 的最长有效期
+     *
+     * @return retire-after
+     */
+    Duration getRetireAfter() {
+        return properties.getRetireAfter();
+    }
+
+    /**
+     * 生成新的签名私钥参数，签发的 token 在头部携带 kid
+     *
+     * @return ES256 parameters with a base64 encoded key id
+     * @throws GeneralSecurityException if the parameters are not supported
+     */
+    static JwtEcdsaParameters keyParameters() throws GeneralSecurityException {
+        return JwtEcdsaParameters.builder()
+                .setAlgorithm(JwtEcdsaParameters.Algorithm.ES256)
+                .setKidStrategy(JwtEcdsaParameters.KidStrategy.BASE64_ENCODED_KEY_ID)
+                .build();
+    }
+
+    /**
+     * 在文件锁内检查并执行到期的轮换步骤，发生变化时保存私钥文件
+     * <p>
+     * 以文件中的私钥集为准，其他实例已经轮换时返回文件中的私钥集。
+     *
+     * @param current keyset currently used for signing
+     * @param now     current time
+     * @return the rotated keyset, the keyset in the file if another instance changed it, or {@code current}
+     * @throws GeneralSecurityException if a key cannot be generated or the keyset file cannot be parsed
+     * @throws IOException              if the keyset or its metadata cannot be read or written
+     */
+    synchronized KeysetHandle rotate(KeysetHandle current, Instant now) throws GeneralSecurityException, IOException {
+        synchronized (JVM_LOCKS.computeIfAbsent(lockPath.toAbsolutePath().normalize(), path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                KeysetHandle stored = loadKeyset();
+                if (Objects.nonNull(stored) && !stored.equalsKeyset(current)) {
+                    logger.info("Signing keyset was changed by another instance, using the keyset in {}", keysetPath);
+                    current = stored;
+                }
+                return rotateLocked(current, now);
+            }
+        }
+    }
+
+    private KeysetHandle loadKeyset() throws GeneralSecurityException, IOException {
+        if (!Files.exists(keysetPath)) {
+            return null;
+        }
+        return TinkJsonProtoKeysetFormat.parseKeyset(Files.readString(keysetPath), InsecureSecretKeyAccess.get());
+    }
+
+    private KeysetHandle rotateLocked(KeysetHandle current, Instant now) throws GeneralSecurityException, IOException {
+        long nowMillis = now.toEpochMilli();
+        Map<Integer, KeyTimes> times = loadMetadata();
+        boolean metadataChanged = times.keySet().retainAll(ids(current));
+        // 没有记录的私钥（例如开启轮换前生成的私钥）视为此刻开始使用或停止使用
+        for (int i = 0; i < current.size(); i++) {
+            KeysetHandle.Entry entry = current.getAt(i);
+            if (!times.containsKey(entry.getId())) {
+                times.put(entry.getId(), entry.isPrimary()
+                        ? new KeyTimes(nowMillis, nowMillis, null)
+                        : new KeyTimes(nowMillis, nowMillis, nowMillis));
+                metadataChanged = true;
+            }
+        }
+
+        int primaryIndex = -1;
+        int pendingIndex = -1;
+        List<Integer> retiredIndexes = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            KeysetHandle.Entry entry = current.getAt(i);
+            KeyTimes keyTimes = times.get(entry.getId());
+            if (entry.isPrimary()) {
+                primaryIndex = i;
+            } else if (Objects.isNull(keyTimes.promotedAt()) && entry.getStatus() == KeyStatus.ENABLED) {
+                pendingIndex = i;
+            } else if (Objects.nonNull(keyTimes.demotedAt())
+                    && keyTimes.demotedAt() + properties.getRetireAfter().toMillis() <= nowMillis) {
+                retiredIndexes.add(i);
+            }
+        }
+
+        KeysetHandle.Builder builder = KeysetHandle.newBuilder(current);
+        boolean keysetChanged = false;
+        if (pendingIndex >= 0) {
+            KeysetHandle.Entry pending = current.getAt(pendingIndex);
+            KeyTimes pendingTimes = times.get(pending.getId());
+            if (pendingTimes.createdAt() + properties.getPublishAhead().toMillis() <= nowMillis) {
+                builder.getAt(pendingIndex).makePrimary();
+                KeysetHandle.Entry primary = current.getAt(primaryIndex);
+                times.put(primary.getId(), times.get(primary.getId()).demote(nowMillis));
+                times.put(pending.getId(), pendingTimes.promote(nowMillis));
+                keysetChanged = true;
+                logger.info("Promoted signing key {} to primary, retiring key {}", pending.getId(), primary.getId());
+            }
+        } else {
+            KeyTimes primaryTimes = times.get(current.getAt(primaryIndex).getId());
+            long generateAt = primaryTimes.promotedAt() + properties.getRotationInterval().toMillis()
+                    - properties.getPublishAhead().toMillis();
+            if (generateAt <= nowMillis) {
+                builder.addEntry(KeysetHandle.generateEntryFromParameters(keyParameters()).withRandomId());
+                keysetChanged = true;
+            }
+        }
+        // 从后往前删除，避免影响前面的下标
+        for (int i = retiredIndexes.size() - 1; i >= 0; i--) {
+            int index = retiredIndexes.get(i);
+            logger.info("Removed retired signing key {}", current.getAt(index).getId());
+            times.remove(current.getAt(index).getId());
+            builder.deleteAt(index);
+            keysetChanged = true;
+        }
+
+        if (!keysetChanged) {
+            if (metadataChanged) {
+                storeMetadata(times);
+            }
+            return current;
+        }
+        KeysetHandle rotated = builder.build();
+        for (int i = 0; i < rotated.size(); i++) {
+            KeysetHandle.Entry entry = rotated.getAt(i);
+            if (!times.containsKey(entry.getId())) {
+                times.put(entry.getId(), new KeyTimes(nowMillis, null, null));
+                logger.info("Generated signing key {}, to be promoted after {}", entry.getId(),
+                        properties.getPublishAhead());
+            }
+        }
+        // 先保存时间记录，私钥文件写入失败时多余的记录会在下次检查时清除
+        storeMetadata(times);
+        AtomicFiles.writeString(keysetPath,
+                TinkJsonProtoKeysetFormat.serializeKeyset(rotated, InsecureSecretKeyAccess.get()));
+        return rotated;
+    }
+
+    /**
+     * 按 {@code trusta.key-rotation.check-interval} 定期检查轮换
+     *
+     * @param current   supplies the keyset currently used for signing
+     * @param onRotated receives the keyset after each rotation step
+     */
+    synchronized void start(Supplier<KeysetHandle> current, Consumer<KeysetHandle> onRotated) {
+        if (Objects.nonNull(scheduler)) {
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trusta-key-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = properties.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                KeysetHandle keysetHandle = current.get();
+                KeysetHandle rotated = rotate(keysetHandle, Instant.now());
+                if (rotated != keysetHandle) {
+                    onRotated.accept(rotated);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to rotate signing key, error: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (Objects.nonNull(scheduler)) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static List<Integer> ids(KeysetHandle keysetHandle) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < keysetHandle.size(); i++) {
+            ids.add(keysetHandle.getAt(i).getId());
+        }
+        return ids;
+    }
+
+    private Map<Integer, KeyTimes> loadMetadata() throws IOException {
+        Map<Integer, KeyTimes> times = new HashMap<>();
+        if (!Files.exists(metadataPath)) {
+            return times;
+        }
+        JsonNode keys = objectMapper.readTree(Files.readString(metadataPath, StandardCharsets.UTF_8)).path("keys");
+        for (Map.Entry<String, JsonNode> field : keys.properties()) {
+            JsonNode node = field.getValue();
+            times.put(Integer.parseInt(field.getKey()), new KeyTimes(node.path("createdAt").asLong(),
+                    millisOrNull(node, "promotedAt"),
+                    millisOrNull(node, "demotedAt")));
+        }
+        return times;
+    }
+
+    private void storeMetadata(Map<Integer, KeyTimes> times) throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode keys = root.putObject("keys");
+        times.forEach((id, keyTimes) -> keys.putObject(Integer.toString(id))
+                .put("createdAt", keyTimes.createdAt())
+                .put("promotedAt", keyTimes.promotedAt())
+                .put("demotedAt", keyTimes.demotedAt()));
+        AtomicFiles.writeString(metadataPath, objectMapper.writeValueAsString(root));
+    }
+
+    private static Long millisOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return Objects.isNull(value) || value.isNull() ? null : value.asLong();
+    }
+
+    /**
+     * Rotation history of a single key, in epoch milliseconds.
+     *
+     * @param createdAt  time the key was added to the keyset
+     * @param promotedAt time the key became primary, null while it is only published
+     * @param demotedAt  time the key stopped signing, null while it is primary or pending
+     */
+    private record KeyTimes(long createdAt, Long promotedAt, Long demotedAt) {
+
+        KeyTimes promote(long now) {
+            return new KeyTimes(createdAt, now, null);
+        }
+
+        KeyTimes demote(long now) {
+            return new KeyTimes(createdAt, promotedAt, now);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digest of a signed token, used as a fixed-size cache key with cheap equals and hashCode.
+ * <p>
+ * The digest only keeps the token out of cache keys: cached {@link VerifiedClaims} still reference the token,
+ * see {@link VerifiedClaims}.
+ */
+record TokenDigest(long h0, long h1, long h2, long h3) {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    /**
+     * 计算 token 的摘要
+     *
+     * @param signedToken signed token
+     * @return digest of the token
+     */
+    static TokenDigest of(String signedToken) {
+        MessageDigest messageDigest = SHA_256.get();
+        byte[] hash = messageDigest.digest(signedToken.getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * 以十六进制表示摘要，用作共享状态中的键
+     *
+     * @return 64 hex characters
+     */
+    String toHex() {
+        HexFormat hexFormat = HexFormat.of();
+        return hexFormat.toHexDigits(h0) + hexFormat.toHexDigits(h1) + hexFormat.toHexDigits(h2)
+                + hexFormat.toHexDigits(h3);
+    }
+}
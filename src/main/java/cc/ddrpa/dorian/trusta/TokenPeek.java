@@ -0,0 +1,178 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Reads routing information from a compact serialized JWT without verifying it.
+ * <p>
+ * Segment boundaries are located by index, the payload is decoded into a per-thread buffer
+ * and only the claims needed for routing are read with a streaming parser.
+ */
+final class TokenPeek {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final long NO_EXPIRATION = Long.MIN_VALUE;
+    private static final byte[] DECODE_TABLE = new byte[128];
+    private static final JsonFactory HEADER_FACTORY = new JsonFactory();
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final String issuer;
+    private final long expiration;
+
+    private TokenPeek(String issuer, long expiration) {
+        this.issuer = issuer;
+        this.expiration = expiration;
+    }
+
+    /**
+     * 解析 token 载荷中的签发者与过期时间，不进行签名验证
+     *
+     * @param signedToken compact serialized JWT
+     * @param jsonFactory Jackson factory used to create the streaming parser
+     * @return routing information
+     * @throws IOException if the payload is not valid JSON
+     */
+    static TokenPeek peek(String signedToken, JsonFactory jsonFactory) throws IOException {
+        int firstDot = signedToken.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : signedToken.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || signedToken.indexOf('.', secondDot + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid JWT format");
+        }
+        byte[] buffer = BUFFER.get();
+        int maxLength = (secondDot - firstDot - 1) * 3 / 4 + 3;
+        if (buffer.length < maxLength) {
+            buffer = new byte[Math.max(maxLength, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+        int length = decode(signedToken, firstDot + 1, secondDot, buffer);
+        String issuer = null;
+        long expiration = NO_EXPIRATION;
+        try (JsonParser parser = jsonFactory.createParser(buffer, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Invalid JWT format");
+            }
+            // 两个声明都读到后即停止解析
+            while ((Objects.isNull(issuer) || expiration == NO_EXPIRATION)
+                    && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("iss".equals(name) && Objects.isNull(issuer)) {
+                    issuer = value == JsonToken.VALUE_STRING ? parser.getText() : "";
+                } else if ("exp".equals(name) && expiration == NO_EXPIRATION) {
+                    if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                        // 向上取整，不会早于 Tink 判定过期
+                        expiration = (long) Math.ceil(parser.getDoubleValue());
+                    }
+                }
+                parser.skipChildren();
+            }
+        }
+        return new TokenPeek(Objects.requireNonNullElse(issuer, ""), expiration);
+    }
+
+    /**
+     * 读取 token 头部的 kid，不进行签名验证
+     *
+     * @param signedToken compact serialized JWT
+     * @return key id, or null if the header does not carry one
+     * @throws IOException if the header is not valid JSON
+     */
+    static String peekKeyId(String signedToken) throws IOException {
+        int firstDot = signedToken.indexOf('.');
+        if (firstDot <= 0) {
+            throw new IllegalArgumentException("Invalid JWT format");
+        }
+        byte[] buffer = BUFFER.get();
+        int maxLength = firstDot * 3 / 4 + 3;
+        if (buffer.length < maxLength) {
+            buffer = new byte[Math.max(maxLength, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+        int length = decode(signedToken, 0, firstDot, buffer);
+        try (JsonParser parser = HEADER_FACTORY.createParser(buffer, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Invalid JWT format");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("kid".equals(name)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解码 token 的载荷部分
+     *
+     * @param signedToken compact serialized JWT
+     * @return decoded payload, or null if the token is malformed
+     */
+    static String decodePayload(String signedToken) {
+        int firstDot = signedToken.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : signedToken.indexOf('.', firstDot + 1);
+        if (secondDot < 0) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(signedToken.substring(firstDot + 1, secondDot)),
+                StandardCharsets.UTF_8);
+    }
+
+    String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * 是否在给定时间已经过期，与 Tink 的判断一致：当前时间不早于 exp 即视为过期
+     *
+     * @param nowMillis current time in epoch milliseconds
+     * @return true if the token carries an exp claim that has passed
+     */
+    boolean isExpired(long nowMillis) {
+        return expiration != NO_EXPIRATION && expiration * 1000 <= nowMillis;
+    }
+
+    /**
+     * Decode an unpadded base64url segment into the given buffer.
+     *
+     * @return number of bytes written
+     */
+    private static int decode(String source, int start, int end, byte[] destination) {
+        int bits = 0;
+        int bitCount = 0;
+        int position = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            int value = c < 128 ? DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid JWT format");
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                destination[position++] = (byte) (bits >> bitCount);
+            }
+        }
+        return position;
+    }
+}
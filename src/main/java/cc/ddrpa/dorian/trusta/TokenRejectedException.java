@@ -0,0 +1,21 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Thrown when a token that recently failed verification is presented again. The token is rejected
+ * with the outcome of the earlier failure, without being decoded again.
+ */
+public class TokenRejectedException extends GeneralSecurityException {
+
+    private final VerifyOutcome outcome;
+
+    public TokenRejectedException(VerifyOutcome outcome) {
+        super("Token was recently rejected: " + outcome.getTagValue());
+        this.outcome = outcome;
+    }
+
+    public VerifyOutcome getOutcome() {
+        return outcome;
+    }
+}
@@ -0,0 +1,22 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Thrown when a token of a replay protected issuer is presented a second time.
+ * <p>
+ * Tink 的 {@code JwtInvalidException} 不能被继承，因此直接继承 {@link GeneralSecurityException}。
+ */
+public class TokenReplayedException extends GeneralSecurityException {
+
+    private final String jwtId;
+
+    public TokenReplayedException(String issuer, String jwtId) {
+        super("Token has already been used, issuer: " + issuer + ", jti: " + jwtId);
+        this.jwtId = jwtId;
+    }
+
+    public String getJwtId() {
+        return jwtId;
+    }
+}
@@ -1,45 +1,103 @@
 package cc.ddrpa.dorian.trusta;
 
+import cc.ddrpa.dorian.trusta.properties.BootstrapProperties;
+import cc.ddrpa.dorian.trusta.properties.IssuedTokenCacheProperties;
+import cc.ddrpa.dorian.trusta.properties.JwksCacheProperties;
+import cc.ddrpa.dorian.trusta.properties.JwksEndpointProperties;
+import cc.ddrpa.dorian.trusta.properties.KeyFetchProperties;
+import cc.ddrpa.dorian.trusta.properties.KeyRefreshProperties;
+import cc.ddrpa.dorian.trusta.properties.KeyRotationProperties;
+import cc.ddrpa.dorian.trusta.properties.NegativeCacheProperties;
+import cc.ddrpa.dorian.trusta.properties.OnDemandRefreshProperties;
+import cc.ddrpa.dorian.trusta.properties.ReloadProperties;
 import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
 import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import cc.ddrpa.dorian.trusta.properties.VerifiedTokenCacheProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.crypto.tink.InsecureSecretKeyAccess;
 import com.google.crypto.tink.KeysetHandle;
 import com.google.crypto.tink.RegistryConfiguration;
 import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
-import com.google.crypto.tink.jwt.JwtEcdsaParameters;
 import com.google.crypto.tink.jwt.JwtPublicKeySign;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
-import java.util.Base64;
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Central manager for Trusta JWT operations, including signing and verification.
  */
 @Component
-public class TrustaManager {
+public class TrustaManager implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(TrustaManager.class);
     private final TrustaProperties trustaProperties;
     private final ObjectMapper objectMapper;
     private final String issuer;
 
-    private final Map<String, JsonWebTokenVerify> verifyMap = new HashMap<>();
-    private String publicKeySetAsJSONString;
-    private JwtPublicKeySign jwtPublicKeySign;
+    // 请求线程只读取该注册表，增删签发者通过原子替换条目完成，不会阻塞验证
+    private final Map<String, JsonWebTokenVerify> verifyMap = new ConcurrentHashMap<>();
+    // 每次注册或移除签发者时递增，异步完成的注册只在期间没有更新的注册或移除时生效
+    private final Map<String, Long> issuerGenerations = new ConcurrentHashMap<>();
+    private final VerifiedTokenCache verifiedTokenCache;
+    // 最近验证失败的 token，以及按签发者统计的失败率
+    private final RejectedTokenCache rejectedTokenCache;
+    private final IssuerFailureThrottle failureThrottle;
+    private final boolean computeDigest;
+    // 记录已使用的 jti，共享时还用于在节点间交换公钥集与验证结果
+    private final TrustaSharedState sharedState;
+    private final boolean shareState;
+    private final IssuedTokenCache issuedTokenCache;
+    private final PublicKeysetFetcher publicKeysetFetcher;
+    private final KeyFetchCircuitBreaker keyFetchBreaker;
+    private final PublicKeyRefresher publicKeyRefresher;
+    private final PublicKeysetDiskCache publicKeysetDiskCache;
+    private final OnDemandKeyRefresher onDemandKeyRefresher;
+    private final long onDemandRefreshTimeoutMillis;
+    private final ForkJoinPool batchExecutor;
+    // 首次公钥集获取仍在进行的验证器，包括启动时与运行时注册的签发者，移除签发者时一并清除
+    private final Map<String, JsonWebTokenVerify> pendingFetches = new ConcurrentHashMap<>();
+    private CompletableFuture<BootstrapStatus> bootstrapCompletion = CompletableFuture.completedFuture(
+            new BootstrapStatus(Collections.emptyMap()));
+    private final SigningKeyRotator signingKeyRotator;
+    private final Path privateKeysetPath;
+    private final PrivateKeysetWatcher privateKeysetWatcher;
+    // 私钥集、签名原语与公钥端点内容作为一个整体切换
+    private volatile SigningState signingState;
+    private volatile boolean allowHttp;
+    private volatile TrustaMetrics metrics = TrustaMetrics.NOOP;
 
     /**
      * Construct a TrustaManager with the given properties and object mapper.
@@ -50,34 +108,406 @@ public class TrustaManager {
      * @throws IOException              if key loading fails
      */
     public TrustaManager(TrustaProperties trustaProperties, ObjectMapper objectMapper) throws GeneralSecurityException, IOException {
+        this(trustaProperties, objectMapper, TrustaSharedState.create(trustaProperties, objectMapper));
+    }
+
+    /**
+     * Construct a TrustaManager that shares keysets, verification results and consumed jti values
+     * with other nodes through the given state.
+     *
+     * @param trustaProperties Trusta configuration properties
+     * @param objectMapper     Jackson object mapper
+     * @param sharedState      state shared between nodes
+     * @throws GeneralSecurityException if crypto fails
+     * @throws IOException              if key loading fails
+     */
+    public TrustaManager(TrustaProperties trustaProperties, ObjectMapper objectMapper, TrustaSharedState sharedState)
+            throws GeneralSecurityException, IOException {
+        // 在解析密钥集之前向 Tink 注册 JWT 签名密钥类型，重复注册没有影响
+        JwtSignatureConfig.register();
         this.trustaProperties = trustaProperties;
         this.issuer = trustaProperties.getIssuer();
+        this.allowHttp = trustaProperties.isAllowHttp();
+        this.privateKeysetPath = Paths.get(trustaProperties.getPrivateKeysetFile());
         this.objectMapper = objectMapper;
+        this.sharedState = sharedState;
+        this.shareState = sharedState.isShared();
+        VerifiedTokenCacheProperties cacheProperties = trustaProperties.getVerifiedTokenCache();
+        this.verifiedTokenCache = cacheProperties.isEnabled()
+                ? new VerifiedTokenCache(cacheProperties.getMaximumSize(), cacheProperties.isRecordStats())
+                : null;
+        NegativeCacheProperties negativeCacheProperties = trustaProperties.getNegativeCache();
+        this.rejectedTokenCache = negativeCacheProperties.isEnabled()
+                ? new RejectedTokenCache(negativeCacheProperties.getMaximumSize(), negativeCacheProperties.getTtl())
+                : null;
+        this.failureThrottle = trustaProperties.getFailureThrottle().isEnabled()
+                ? new IssuerFailureThrottle(trustaProperties.getFailureThrottle())
+                : null;
+        this.computeDigest = Objects.nonNull(verifiedTokenCache) || Objects.nonNull(rejectedTokenCache) || shareState;
+        IssuedTokenCacheProperties issuedTokenCacheProperties = trustaProperties.getIssuedTokenCache();
+        this.issuedTokenCache = issuedTokenCacheProperties.isEnabled()
+                ? new IssuedTokenCache(issuedTokenCacheProperties.getMaximumSize(),
+                issuedTokenCacheProperties.getMinRemainingRatio(), issuedTokenCacheProperties.isRecordStats(),
+                Set.copyOf(issuedTokenCacheProperties.getReplayProtectedAudiences()))
+                : null;
+        JwksCacheProperties jwksCacheProperties = trustaProperties.getJwksCache();
+        this.publicKeysetDiskCache = jwksCacheProperties.isEnabled()
+                ? new PublicKeysetDiskCache(Paths.get(jwksCacheProperties.getDirectory()),
+                jwksCacheProperties.getMaxStaleness(), objectMapper)
+                : null;
+        KeyFetchProperties keyFetchProperties = trustaProperties.getKeyFetch();
+        this.publicKeysetFetcher = new PublicKeysetFetcher(keyFetchProperties.getConnectTimeout(),
+                keyFetchProperties.getReadTimeout());
+        this.keyFetchBreaker = new KeyFetchCircuitBreaker(keyFetchProperties);
+        KeyRefreshProperties keyRefreshProperties = trustaProperties.getKeyRefresh();
+        this.publicKeyRefresher = keyRefreshProperties.isEnabled()
+                ? new PublicKeyRefresher(keyRefreshProperties, v -> updateIssuerPublicKeyAsync(v, false),
+                this::isRegistered, v -> keyFetchBreaker.retryDelay(v.getIssuer()))
+                : null;
+        OnDemandRefreshProperties onDemandRefreshProperties = trustaProperties.getOnDemandRefresh();
+        this.onDemandRefreshTimeoutMillis = onDemandRefreshProperties.getTimeout().toMillis();
+        this.onDemandKeyRefresher = onDemandRefreshProperties.isEnabled()
+                ? new OnDemandKeyRefresher(onDemandRefreshProperties, v -> updateIssuerPublicKeyAsync(v, true))
+                : null;
+        int batchParallelism = trustaProperties.getBatch().getParallelism();
+        AtomicInteger batchThreadCounter = new AtomicInteger();
+        this.batchExecutor = new ForkJoinPool(
+                batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("trusta-batch-" + batchThreadCounter.incrementAndGet());
+                    return thread;
+                },
+                null, false);
+        KeyRotationProperties keyRotationProperties = trustaProperties.getKeyRotation();
+        this.signingKeyRotator = keyRotationProperties.isEnabled()
+                ? new SigningKeyRotator(privateKeysetPath, keyRotationProperties, objectMapper)
+                : null;
 
         handlePrivateKeysetHandle();
+        ReloadProperties reloadProperties = trustaProperties.getReload();
+        this.privateKeysetWatcher = reloadProperties.isWatchPrivateKeyset()
+                ? new PrivateKeysetWatcher(privateKeysetPath, reloadProperties.getWatchDebounce(),
+                this::reloadPrivateKeyset)
+                : null;
         registerIssuers();
     }
 
     /**
      * 更新对端签发者公钥
+     * <p>
+     * 各签发者的公钥集并行获取，响应缓慢的签发者不会推迟其他签发者的更新。
      */
     public void updateIssuerPublicKey() {
         logger.info("Updating issuer public keys");
-        verifyMap.values().forEach(v -> {
+        CompletableFuture.allOf(verifyMap.values().stream()
+                        .map(v -> updateIssuerPublicKeyAsync(v, false))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    /**
+     * 立即重新获取指定签发者的公钥集，供运维操作使用
+     * <p>
+     * 清除该签发者的退避与熔断状态后立即获取，不等待后台刷新的下一次重试。
+     *
+     * @param issuerName trusted issuer name
+     * @return future that completes with whether the refresh succeeded, never exceptionally
+     * @throws IllegalArgumentException if the issuer is not trusted
+     */
+    public CompletableFuture<Boolean> refreshIssuerPublicKey(String issuerName) {
+        JsonWebTokenVerify v = verifyMap.get(issuerName);
+        if (Objects.isNull(v)) {
+            throw new IllegalArgumentException("Unknown issuer: " + issuerName);
+        }
+        logger.info("Refreshing public key of issuer: {} on request", issuerName);
+        keyFetchBreaker.forget(issuerName);
+        return updateIssuerPublicKeyAsync(v, true);
+    }
+
+    /**
+     * 获取可信签发者的验证器，用于查看公钥集状态
+     *
+     * @param issuerName trusted issuer name
+     * @return verifier of the issuer, or empty if the issuer is not trusted
+     */
+    public Optional<JsonWebTokenVerify> getIssuerVerify(String issuerName) {
+        return Optional.ofNullable(verifyMap.get(issuerName));
+    }
+
+    /**
+     * 更新单个签发者的公钥
+     *
+     * @param v verifier of the issuer
+     * @return whether the update succeeded
+     */
+    private boolean updateIssuerPublicKey(JsonWebTokenVerify v) {
+        long start = System.nanoTime();
+        boolean succeeded = doUpdateIssuerPublicKey(v);
+        metrics.recordKeyRefresh(v.getIssuer(), succeeded, System.nanoTime() - start);
+        return succeeded;
+    }
+
+    private boolean doUpdateIssuerPublicKey(JsonWebTokenVerify v) {
+        try {
+            long keysetVersion = v.getKeysetVersion();
+            if (shareState && adoptSharedKeyset(v)) {
+                afterPublicKeyUpdated(v, keysetVersion);
+                return true;
+            }
+            if (!keyFetchBreaker.tryAcquire(v.getIssuer())) {
+                return false;
+            }
+            v.updatePublicKey();
+            keyFetchBreaker.onSuccess(v.getIssuer());
+            afterPublicKeyUpdated(v, keysetVersion);
+            publishKeyset(v);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            keyFetchBreaker.onFailure(v.getIssuer());
+            logger.error("Interrupted while updating public key for issuer: {}, last success time: {}",
+                    v.getIssuer(),
+                    v.isReady() ? v.getLastUpdateTime() : "NULL");
+        } catch (Exception e) {
+            keyFetchBreaker.onFailure(v.getIssuer());
+            logUpdateFailure(v, e);
+        }
+        return false;
+    }
+
+    /**
+     * 异步更新单个签发者的公钥，获取公钥集期间不占用调用线程
+     * <p>
+     * 该签发者处于熔断期间时不发出请求，直接以失败完成，继续使用上次获取的公钥集。
+     *
+     * @param v                verifier of the issuer
+     * @param requireNewKeyset whether only a keyset different from the current one can stand in for the fetch
+     * @return future that completes with whether the update succeeded, never exceptionally
+     */
+    private CompletableFuture<Boolean> updateIssuerPublicKeyAsync(JsonWebTokenVerify v, boolean requireNewKeyset) {
+        long start = System.nanoTime();
+        long keysetVersion = v.getKeysetVersion();
+        // 按需刷新需要新的公钥，只有共享的公钥集与当前不同时才能代替获取
+        if (shareState && adoptSharedKeyset(v) && (!requireNewKeyset || v.getKeysetVersion() != keysetVersion)) {
+            afterPublicKeyUpdated(v, keysetVersion);
+            metrics.recordKeyRefresh(v.getIssuer(), true, System.nanoTime() - start);
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        }
+        if (!keyFetchBreaker.tryAcquire(v.getIssuer())) {
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+        }
+        CompletableFuture<Void> update;
+        try {
+            update = v.updatePublicKeyAsync();
+        } catch (RuntimeException e) {
+            update = CompletableFuture.failedFuture(e);
+        }
+        return update.handle((ignored, error) -> {
+            boolean succeeded = false;
+            if (Objects.isNull(error)) {
+                keyFetchBreaker.onSuccess(v.getIssuer());
+                afterPublicKeyUpdated(v, keysetVersion);
+                publishKeyset(v);
+                succeeded = true;
+            } else {
+                keyFetchBreaker.onFailure(v.getIssuer());
+                logUpdateFailure(v, unwrap(error));
+            }
+            metrics.recordKeyRefresh(v.getIssuer(), succeeded, System.nanoTime() - start);
+            return succeeded;
+        });
+    }
+
+    private void afterPublicKeyUpdated(JsonWebTokenVerify v, long previousKeysetVersion) {
+        if (Objects.nonNull(verifiedTokenCache) && previousKeysetVersion != v.getKeysetVersion()) {
+            verifiedTokenCache.invalidateIssuer(v.getIssuer());
+        }
+        if (Objects.nonNull(publicKeysetDiskCache)) {
+            storeToDiskCache(v);
+        }
+    }
+
+    private void logUpdateFailure(JsonWebTokenVerify v, Throwable e) {
+        logger.error("Failed to update public key for issuer: {}, last success time: {}, error: {}",
+                v.getIssuer(),
+                v.isReady() ? v.getLastUpdateTime() : "NULL",
+                e.getMessage());
+    }
+
+    /**
+     * 在运行时添加或替换可信签发者
+     * <p>
+     * 新的验证器先获取公钥集，再原子地替换注册表中的条目，替换期间进行中的验证继续使用旧的验证器。
+     * 公钥集获取失败时仍然完成注册，由后台刷新继续重试。公钥集获取期间该签发者又被注册或移除时，本次注册作废，
+     * 以免较早开始的注册覆盖较新的配置或重新信任已移除的签发者。
+     *
+     * @param trustedIssuer trusted issuer configuration
+     * @return future that completes with whether the initial key fetch succeeded, false if the registration was
+     * superseded
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    public CompletableFuture<Boolean> registerIssuer(TrustedIssuer trustedIssuer) {
+        JsonWebTokenVerify jsonWebTokenVerify = new JsonWebTokenVerify(trustedIssuer, this.issuer,
+                this.allowHttp, publicKeysetFetcher);
+        // 新的配置可能已修正公钥集地址，不沿用之前的熔断状态
+        keyFetchBreaker.forget(jsonWebTokenVerify.getIssuer());
+        long generation = issuerGenerations.merge(jsonWebTokenVerify.getIssuer(), 1L, Long::sum);
+        pendingFetches.put(jsonWebTokenVerify.getIssuer(), jsonWebTokenVerify);
+        if (Objects.nonNull(publicKeysetDiskCache)) {
+            restoreFromDiskCache(jsonWebTokenVerify);
+        }
+        return updateIssuerPublicKeyAsync(jsonWebTokenVerify, false)
+                .thenApply(succeeded -> {
+                    JsonWebTokenVerify[] replaced = new JsonWebTokenVerify[1];
+                    boolean[] installed = new boolean[1];
+                    // 与 removeIssuer 在同一条目上串行，检查代数与替换注册表之间不会插入移除
+                    issuerGenerations.compute(jsonWebTokenVerify.getIssuer(), (issuerName, current) -> {
+                        if (Objects.equals(current, generation)) {
+                            replaced[0] = verifyMap.put(issuerName, jsonWebTokenVerify);
+                            installed[0] = true;
+                        }
+                        pendingFetches.remove(issuerName, jsonWebTokenVerify);
+                        return current;
+                    });
+                    if (!installed[0]) {
+                        logger.info("Discarded superseded registration of trusted issuer: {}",
+                                jsonWebTokenVerify.getIssuer());
+                        return false;
+                    }
+                    JsonWebTokenVerify previous = replaced[0];
+                    if (Objects.nonNull(previous)) {
+                        metrics.issuerRemoved(previous);
+                    }
+                    metrics.issuerRegistered(jsonWebTokenVerify);
+                    if (Objects.nonNull(previous)) {
+                        invalidateIssuerState(previous.getIssuer());
+                        logger.info("Replaced trusted issuer: {}", jsonWebTokenVerify.getIssuer());
+                    } else {
+                        logger.info("Registered trusted issuer: {}", jsonWebTokenVerify.getIssuer());
+                    }
+                    if (Objects.nonNull(publicKeyRefresher)) {
+                        publicKeyRefresher.schedule(jsonWebTokenVerify, succeeded);
+                    }
+                    return succeeded;
+                });
+    }
+
+    /**
+     * 在运行时移除可信签发者，此后该签发者的 token 将被拒绝
+     *
+     * @param issuerName issuer name
+     * @return true if the issuer was registered
+     */
+    public boolean removeIssuer(String issuerName) {
+        JsonWebTokenVerify[] removedHolder = new JsonWebTokenVerify[1];
+        // 即使签发者尚未注册也递增代数，使进行中的注册作废
+        issuerGenerations.compute(issuerName, (name, current) -> {
+            removedHolder[0] = verifyMap.remove(name);
+            pendingFetches.remove(name);
+            return Objects.isNull(current) ? 1L : current + 1;
+        });
+        JsonWebTokenVerify removed = removedHolder[0];
+        if (Objects.isNull(removed)) {
+            return false;
+        }
+        metrics.issuerRemoved(removed);
+        invalidateIssuerState(issuerName);
+        keyFetchBreaker.forget(issuerName);
+        sharedState.forgetIssuer(issuerName);
+        logger.info("Removed trusted issuer: {}", issuerName);
+        return true;
+    }
+
+    /**
+     * Get the names of all currently trusted issuers.
+     *
+     * @return unmodifiable view of the issuer names
+     */
+    public Set<String> getTrustedIssuers() {
+        return Collections.unmodifiableSet(verifyMap.keySet());
+    }
+
+    /**
+     * 应用新的配置，只重建新增、修改或移除的可信签发者，并重新读取私钥集文件
+     * <p>
+     * 以 {@code trusta.trusted-issuers} 为准：不在其中的签发者被移除，包括通过 {@link #registerIssuer} 添加的签发者；
+     * 修改后的签发者先获取公钥集再替换，进行中的验证不受影响。{@code trusta.allow-http} 变化时重建所有签发者，
+     * 配置无效的签发者被移除。其余配置在创建时已经生效，修改后需要重启。
+     *
+     * @param updated new configuration
+     * @return future that completes once every added or changed issuer has been registered
+     */
+    public synchronized CompletableFuture<Void> reload(TrustaProperties updated) {
+        if (!Objects.equals(updated.getIssuer(), this.issuer)) {
+            logger.warn("Ignored change of issuer from {} to {}, restart to apply", this.issuer, updated.getIssuer());
+        }
+        if (!Objects.equals(Paths.get(updated.getPrivateKeysetFile()), privateKeysetPath)) {
+            logger.warn("Ignored change of private keyset file from {} to {}, restart to apply",
+                    privateKeysetPath, updated.getPrivateKeysetFile());
+        }
+        boolean allowHttpChanged = updated.isAllowHttp() != this.allowHttp;
+        this.allowHttp = updated.isAllowHttp();
+        Map<String, TrustedIssuer> configured = new LinkedHashMap<>();
+        for (TrustedIssuer trustedIssuer : updated.getTrustedIssuers()) {
+            if (Objects.isNull(trustedIssuer.getIssuer()) || trustedIssuer.getIssuer().isBlank()) {
+                logger.warn("Ignored trusted issuer without a name: {}", trustedIssuer);
+                continue;
+            }
+            configured.put(trustedIssuer.getIssuer(), new TrustedIssuer(trustedIssuer));
+        }
+        int removed = 0;
+        for (String issuerName : List.copyOf(verifyMap.keySet())) {
+            if (!configured.containsKey(issuerName) && removeIssuer(issuerName)) {
+                removed++;
+            }
+        }
+        List<CompletableFuture<Boolean>> registrations = new ArrayList<>();
+        configured.forEach((issuerName, trustedIssuer) -> {
+            JsonWebTokenVerify current = verifyMap.get(issuerName);
+            if (Objects.nonNull(current) && !allowHttpChanged && current.getTrustedIssuer().equals(trustedIssuer)) {
+                return;
+            }
             try {
-                v.updatePublicKey();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("Interrupted while updating public key for issuer: {}, last success time: {}",
-                        v.getIssuer(),
-                        v.isReady() ? v.getLastUpdateTime() : "NULL");
-            } catch (Exception e) {
-                logger.error("Failed to update public key for issuer: {}, last success time: {}, error: {}",
-                        v.getIssuer(),
-                        v.isReady() ? v.getLastUpdateTime() : "NULL",
-                        e.getMessage());
+                registrations.add(registerIssuer(trustedIssuer));
+            } catch (RuntimeException e) {
+                logger.error("Invalid configuration of trusted issuer: {}, error: {}", issuerName, e.getMessage());
+                removeIssuer(issuerName);
             }
         });
+        logger.info("Reloaded configuration, {} trusted issuers added or changed, {} removed",
+                registrations.size(), removed);
+        reloadPrivateKeyset();
+        return CompletableFuture.allOf(registrations.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * 重新读取私钥集文件，内容与当前使用的私钥集不同时切换
+     * <p>
+     * 签名原语与公钥端点的内容一起切换，此后签发的 token 使用新的主密钥；读取或解析失败时继续使用当前的私钥集。
+     *
+     * @return true if a different keyset was loaded
+     */
+    public synchronized boolean reloadPrivateKeyset() {
+        try {
+            if (!Files.exists(privateKeysetPath)) {
+                logger.warn("Private keyset file {} not found, keeping the current keyset", privateKeysetPath);
+                return false;
+            }
+            KeysetHandle loaded = TinkJsonProtoKeysetFormat.parseKeyset(Files.readString(privateKeysetPath),
+                    InsecureSecretKeyAccess.get());
+            // 密钥轮换写入的文件与当前私钥集相同
+            if (loaded.equalsKeyset(signingState.privateKeysetHandle())) {
+                return false;
+            }
+            applyPrivateKeyset(loaded);
+            logger.info("Reloaded private keyset from: {}", privateKeysetPath);
+            return true;
+        } catch (GeneralSecurityException | IOException e) {
+            logger.error("Failed to reload private keyset from: {}, keeping the current keyset, error: {}",
+                    privateKeysetPath, e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -89,43 +519,831 @@ public class TrustaManager {
      * @throws IOException
      */
     public VerifiedClaims verify(String signedToken) throws GeneralSecurityException, IOException {
-        // 直接解析确定签发者
-        String[] parts = signedToken.split("\\.");
-        if (parts.length != 3) throw new IllegalArgumentException("Invalid JWT format");
-        String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
-        String claimedIssuer = objectMapper.readTree(payloadJson).path("iss").asText();
-        if (verifyMap.containsKey(claimedIssuer)) {
-            return verifyMap.get(claimedIssuer).verify(signedToken).setRawPayload(payloadJson);
-        } else {
-            throw new GeneralSecurityException("Unknown issuer: " + claimedIssuer);
+        TrustaMetrics metrics = this.metrics;
+        if (metrics == TrustaMetrics.NOOP) {
+            return verify(signedToken, null);
+        }
+        long start = System.nanoTime();
+        ResolvedIssuer resolvedIssuer = new ResolvedIssuer();
+        try {
+            VerifiedClaims verifiedClaims = verify(signedToken, resolvedIssuer);
+            metrics.recordVerify(verifiedClaims.getIssuer(), VerifyOutcome.SUCCESS, System.nanoTime() - start);
+            return verifiedClaims;
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            metrics.recordVerify(resolvedIssuer.name, VerifyOutcome.classify(e), System.nanoTime() - start);
+            throw e;
         }
     }
 
     /**
-     * Expose the public key set as a JSON response through an HTTP endpoint.
+     * 非阻塞地验证和解析 JWT，适用于 WebFlux 等不允许阻塞事件循环线程的场景
+     * <p>
+     * 签名验证在调用线程上完成；需要按需刷新公钥集时，等待刷新的过程不占用调用线程。查找其他节点的验证结果与记录
+     * jti 也在调用线程上进行，共享状态可能阻塞时（见 {@link #isSharedStateBlocking()}）不要在事件循环线程上调用。
      *
-     * @param request  the HTTP servlet request
-     * @param response the HTTP servlet response
+     * @param signedToken signed token
+     * @return future of the verified claims, completed exceptionally with the same exceptions
+     * {@link #verify(String)} would throw
      */
-    public void exposePublicKeyThroughEndpoint(HttpServletRequest request, HttpServletResponse response) {
-        response.setHeader("Content-Type", "application/json");
-        response.setCharacterEncoding("UTF-8");
-        response.setStatus(HttpServletResponse.SC_OK);
+    public CompletableFuture<VerifiedClaims> verifyAsync(String signedToken) {
+        TrustaMetrics metrics = this.metrics;
+        long start = System.nanoTime();
+        ResolvedIssuer resolvedIssuer = new ResolvedIssuer();
+        CompletableFuture<VerifiedClaims> future;
         try {
-            response.getWriter().write(publicKeySetAsJSONString);
-        } catch (IOException e) {
-            logger.error("Error writing public keyset to response", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            future = verifyAsync(signedToken, resolvedIssuer);
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (metrics == TrustaMetrics.NOOP) {
+            return future;
+        }
+        return future.whenComplete((verifiedClaims, error) -> {
+            if (Objects.isNull(error)) {
+                metrics.recordVerify(verifiedClaims.getIssuer(), VerifyOutcome.SUCCESS, System.nanoTime() - start);
+            } else {
+                metrics.recordVerify(resolvedIssuer.name, VerifyOutcome.classify(unwrap(error)),
+                        System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * 验证时访问的共享状态是否可能阻塞调用线程
+     *
+     * @return true if {@link #verifyAsync(String)} may block on the shared state
+     */
+    public boolean isSharedStateBlocking() {
+        return sharedState.isBlocking();
+    }
+
+    private CompletableFuture<VerifiedClaims> verifyAsync(String signedToken, ResolvedIssuer resolvedIssuer)
+            throws GeneralSecurityException, IOException {
+        checkLength(signedToken);
+        TokenDigest digest = null;
+        if (computeDigest) {
+            digest = TokenDigest.of(signedToken);
+            checkRejected(digest);
+            VerifiedClaims cached = findVerified(digest, signedToken);
+            if (Objects.nonNull(cached)) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        JsonWebTokenVerify jsonWebTokenVerify = route(signedToken, digest);
+        resolvedIssuer.name = jsonWebTokenVerify.getIssuer();
+        if (Objects.isNull(onDemandKeyRefresher)) {
+            return CompletableFuture.completedFuture(verifyRouted(jsonWebTokenVerify, signedToken, digest));
+        }
+        acquireVerification(jsonWebTokenVerify);
+        long keysetVersion = jsonWebTokenVerify.getKeysetVersion();
+        CompletableFuture<VerifiedClaims> future;
+        try {
+            future = verifyOnDemandAsync(jsonWebTokenVerify, signedToken, digest, keysetVersion);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            afterAttempt(jsonWebTokenVerify, digest, keysetVersion, e);
+            throw e;
+        }
+        TokenDigest tokenDigest = digest;
+        return future.whenComplete((verifiedClaims, error) ->
+                afterAttempt(jsonWebTokenVerify, tokenDigest, keysetVersion, unwrap(error)));
+    }
+
+    /**
+     * 验证签名，失败时触发按需刷新，等待刷新的过程不占用调用线程
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     * @param signedToken        signed token
+     * @param digest             digest of the token, null when the cache is disabled
+     * @param keysetVersion      version of the public keyset before the verification
+     * @return future of the verified claims
+     */
+    private CompletableFuture<VerifiedClaims> verifyOnDemandAsync(JsonWebTokenVerify jsonWebTokenVerify,
+                                                                  String signedToken, TokenDigest digest,
+                                                                  long keysetVersion)
+            throws GeneralSecurityException {
+        VerifiedClaims verifiedClaims;
+        try {
+            verifiedClaims = jsonWebTokenVerify.verify(signedToken);
+        } catch (InvalidClaimsException e) {
+            // 签名有效但声明不符合要求，与公钥无关
+            throw e;
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            long currentVersion = jsonWebTokenVerify.getKeysetVersion();
+            if (currentVersion != keysetVersion) {
+                // 其他线程已完成刷新，直接重试一次；不能经过 verifyWithIssuer，其中会阻塞等待按需刷新
+                return CompletableFuture.completedFuture(afterVerified(jsonWebTokenVerify, signedToken, digest,
+                        currentVersion, jsonWebTokenVerify.verify(signedToken)));
+            }
+            CompletableFuture<Boolean> refresh = onDemandKeyRefresher.refresh(jsonWebTokenVerify);
+            if (Objects.isNull(refresh)) {
+                throw e;
+            }
+            // 复制一份再设置超时，避免超时结束共享的刷新
+            return refresh.copy()
+                    .completeOnTimeout(Boolean.FALSE, onDemandRefreshTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .handle((succeeded, error) -> {
+                        if (!jsonWebTokenVerify.isReady() || jsonWebTokenVerify.getKeysetVersion() == keysetVersion) {
+                            throw new CompletionException(e);
+                        }
+                        long refreshedVersion = jsonWebTokenVerify.getKeysetVersion();
+                        try {
+                            return afterVerified(jsonWebTokenVerify, signedToken, digest, refreshedVersion,
+                                    jsonWebTokenVerify.verify(signedToken));
+                        } catch (GeneralSecurityException retryError) {
+                            throw new CompletionException(retryError);
+                        }
+                    });
+        }
+        // 在签名验证的 try 之外检查重放，重放不应触发按需刷新
+        return CompletableFuture.completedFuture(afterVerified(jsonWebTokenVerify, signedToken, digest,
+                keysetVersion, verifiedClaims));
+    }
+
+    /**
+     * 验证和解析 JWT
+     *
+     * @param signedToken    signed token
+     * @param resolvedIssuer receives the trusted issuer the token was routed to, may be null
+     * @return verified claims
+     */
+    private VerifiedClaims verify(String signedToken, ResolvedIssuer resolvedIssuer)
+            throws GeneralSecurityException, IOException {
+        checkLength(signedToken);
+        TokenDigest digest = null;
+        if (computeDigest) {
+            digest = TokenDigest.of(signedToken);
+            checkRejected(digest);
+            VerifiedClaims cached = findVerified(digest, signedToken);
+            if (Objects.nonNull(cached)) {
+                return cached;
+            }
+        }
+        JsonWebTokenVerify jsonWebTokenVerify = route(signedToken, digest);
+        if (Objects.nonNull(resolvedIssuer)) {
+            resolvedIssuer.name = jsonWebTokenVerify.getIssuer();
+        }
+        return verifyRouted(jsonWebTokenVerify, signedToken, digest);
+    }
+
+    /**
+     * 拒绝超过 {@code trusta.max-token-length} 的 token，在计算摘要与解析之前调用
+     *
+     * @param signedToken signed token
+     * @throws IllegalArgumentException if the token is too long
+     */
+    private void checkLength(String signedToken) {
+        if (signedToken.length() > trustaProperties.getMaxTokenLength()) {
+            throw new IllegalArgumentException("Token exceeds the maximum length of "
+                    + trustaProperties.getMaxTokenLength());
+        }
+    }
+
+    /**
+     * 拒绝最近验证失败且重试结果不变的 token，在解析之前调用
+     *
+     * @param digest digest of the token
+     * @throws TokenRejectedException if the token was recently rejected
+     */
+    private void checkRejected(TokenDigest digest) throws TokenRejectedException {
+        if (Objects.isNull(rejectedTokenCache)) {
+            return;
+        }
+        VerifyOutcome outcome = rejectedTokenCache.get(digest, verifyMap);
+        if (Objects.nonNull(outcome)) {
+            throw new TokenRejectedException(outcome);
+        }
+    }
+
+    /**
+     * 不验证签名读取签发者，并拒绝格式错误或已过期的 token，避免为其计算签名
+     *
+     * @param signedToken signed token
+     * @return routing information
+     * @throws IOException            if the payload is not valid JSON
+     * @throws InvalidClaimsException if the token has expired
+     */
+    private TokenPeek precheck(String signedToken) throws IOException, InvalidClaimsException {
+        TokenPeek tokenPeek = TokenPeek.peek(signedToken, objectMapper.getFactory());
+        if (tokenPeek.isExpired(System.currentTimeMillis())) {
+            throw new InvalidClaimsException(VerifyOutcome.EXPIRED,
+                    "Token has expired, issuer: " + tokenPeek.getIssuer());
+        }
+        return tokenPeek;
+    }
+
+    /**
+     * 直接解析确定 token 的签发者，失败时记住该 token
+     *
+     * @param signedToken signed token
+     * @param digest      digest of the token, null when no cache is enabled
+     * @return verifier of the issuer the token claims
+     * @throws IOException            if the payload is not valid JSON
+     * @throws InvalidClaimsException if the token has expired
+     * @throws UnknownIssuerException if the issuer is not trusted
+     */
+    private JsonWebTokenVerify route(String signedToken, TokenDigest digest)
+            throws IOException, GeneralSecurityException {
+        try {
+            String claimedIssuer = precheck(signedToken).getIssuer();
+            JsonWebTokenVerify jsonWebTokenVerify = verifyMap.get(claimedIssuer);
+            if (Objects.isNull(jsonWebTokenVerify)) {
+                throw new UnknownIssuerException(claimedIssuer);
+            }
+            return jsonWebTokenVerify;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            rememberRejected(digest, e instanceof UnknownIssuerException unknown ? unknown.getClaimedIssuer() : null,
+                    0, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 使用已确定的签发者验证 token，签发者的 token 集中验证失败时限制签名验证次数
+     *
+     * @param jsonWebTokenVerify verifier of the issuer the token claims
+     * @param signedToken        signed token
+     * @param digest             digest of the token, null when no cache is enabled
+     * @return verified claims
+     * @throws IssuerThrottledException if the issuer is throttled
+     */
+    private VerifiedClaims verifyRouted(JsonWebTokenVerify jsonWebTokenVerify, String signedToken, TokenDigest digest)
+            throws GeneralSecurityException {
+        acquireVerification(jsonWebTokenVerify);
+        long keysetVersion = jsonWebTokenVerify.getKeysetVersion();
+        try {
+            VerifiedClaims verifiedClaims = verifyChecked(jsonWebTokenVerify, signedToken, digest);
+            afterAttempt(jsonWebTokenVerify, digest, keysetVersion, null);
+            return verifiedClaims;
+        } catch (GeneralSecurityException | RuntimeException e) {
+            afterAttempt(jsonWebTokenVerify, digest, keysetVersion, e);
+            throw e;
         }
     }
 
+    /**
+     * 使用已确定的签发者验证 token，并将结果放入已验证 token 缓存
+     *
+     * @param jsonWebTokenVerify verifier of the issuer the token claims
+     * @param signedToken        signed token
+     * @param digest             digest of the token, null when the cache is disabled
+     * @return verified claims
+     */
+    private VerifiedClaims verifyChecked(JsonWebTokenVerify jsonWebTokenVerify, String signedToken, TokenDigest digest)
+            throws GeneralSecurityException {
+        long keysetVersion = jsonWebTokenVerify.getKeysetVersion();
+        return afterVerified(jsonWebTokenVerify, signedToken, digest, keysetVersion,
+                verifyWithIssuer(jsonWebTokenVerify, signedToken));
+    }
+
+    private void acquireVerification(JsonWebTokenVerify jsonWebTokenVerify) throws IssuerThrottledException {
+        if (Objects.nonNull(failureThrottle) && !failureThrottle.tryAcquire(jsonWebTokenVerify.getIssuer())) {
+            throw new IssuerThrottledException(jsonWebTokenVerify.getIssuer());
+        }
+    }
+
+    /**
+     * 记录签名验证的结果，按签发者统计失败率，并记住重试结果不变的失败
+     * <p>
+     * 公钥未就绪等与 token 本身无关的失败不计入失败率。
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     * @param digest             digest of the token, null when no cache is enabled
+     * @param keysetVersion      version of the public keyset before the verification
+     * @param error              failure, null if the token was verified
+     */
+    private void afterAttempt(JsonWebTokenVerify jsonWebTokenVerify, TokenDigest digest, long keysetVersion,
+                              Throwable error) {
+        if (Objects.nonNull(failureThrottle)) {
+            VerifyOutcome outcome = Objects.isNull(error) ? VerifyOutcome.SUCCESS : VerifyOutcome.classify(error);
+            if (outcome != VerifyOutcome.KEY_NOT_READY && outcome != VerifyOutcome.OTHER) {
+                failureThrottle.record(jsonWebTokenVerify.getIssuer(), outcome != VerifyOutcome.SUCCESS);
+            }
+        }
+        if (Objects.nonNull(error)) {
+            rememberRejected(digest, jsonWebTokenVerify.getIssuer(), keysetVersion, error);
+        }
+    }
+
+    /**
+     * 记住验证失败的 token，只记住重试结果不变的失败
+     * <p>
+     * 签名验证失败与验证时使用的公钥集版本一起记住，版本是验证开始前读取的，
+     * 验证期间公钥集发生变化时记录立即失效。
+     *
+     * @param digest        digest of the token, null when no cache is enabled
+     * @param issuer        issuer the token claims, null if unknown
+     * @param keysetVersion version of the public keyset before the verification
+     * @param error         failure
+     */
+    private void rememberRejected(TokenDigest digest, String issuer, long keysetVersion, Throwable error) {
+        if (Objects.isNull(rejectedTokenCache) || Objects.isNull(digest)) {
+            return;
+        }
+        VerifyOutcome outcome = VerifyOutcome.classify(error);
+        if (RejectedTokenCache.isDeterministic(outcome)) {
+            rejectedTokenCache.put(digest, outcome, issuer, keysetVersion);
+        }
+    }
+
+    /**
+     * 检查重放并缓存验证结果，开启重放保护的签发者的 token 不进入已验证 token 缓存
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     * @param signedToken        signed token
+     * @param digest             digest of the token, null when the cache is disabled
+     * @param keysetVersion      version of the public keyset used for verification
+     * @param verifiedClaims     verified claims
+     * @return verified claims
+     * @throws InvalidClaimsException if the token has no jti
+     * @throws TokenReplayedException  if the token has already been used
+     */
+    private VerifiedClaims afterVerified(JsonWebTokenVerify jsonWebTokenVerify, String signedToken, TokenDigest digest,
+                                         long keysetVersion, VerifiedClaims verifiedClaims)
+            throws GeneralSecurityException {
+        verifiedClaims.setSignedToken(signedToken);
+        if (jsonWebTokenVerify.isReplayProtection()) {
+            checkReplay(jsonWebTokenVerify.getIssuer(), verifiedClaims);
+            return verifiedClaims;
+        }
+        if (Objects.isNull(digest)) {
+            return verifiedClaims;
+        }
+        if (Objects.nonNull(verifiedTokenCache)) {
+            verifiedTokenCache.put(digest, jsonWebTokenVerify.getIssuer(), keysetVersion, verifiedClaims);
+        }
+        if (shareState && Objects.nonNull(verifiedClaims.getExpiration())) {
+            try {
+                sharedState.storeVerification(digest.toHex(),
+                        new TrustaSharedState.Verification(jsonWebTokenVerify.getKeysetFingerprint(), verifiedClaims));
+            } catch (RuntimeException e) {
+                logger.warn("Failed to share verification result of issuer: {}, error: {}",
+                        jsonWebTokenVerify.getIssuer(), e.getMessage());
+            }
+        }
+        return verifiedClaims;
+    }
+
+    /**
+     * 查找已验证 token 缓存，未命中时再查找其他节点的验证结果
+     * <p>
+     * 其他节点的结果只有在验证时使用的公钥集与本节点当前的公钥集相同时才被采用。
+     *
+     * @param digest      digest of the token
+     * @param signedToken signed token, attached to results of other nodes so the raw payload can be decoded
+     * @return a copy of the verified claims, or null
+     */
+    private VerifiedClaims findVerified(TokenDigest digest, String signedToken) {
+        if (Objects.nonNull(verifiedTokenCache)) {
+            VerifiedClaims cached = verifiedTokenCache.get(digest, verifyMap);
+            if (Objects.nonNull(cached) || !shareState) {
+                return cached;
+            }
+        }
+        Optional<TrustaSharedState.Verification> verification;
+        try {
+            verification = sharedState.loadVerification(digest.toHex());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load shared verification result, error: {}", e.getMessage());
+            return null;
+        }
+        if (verification.isEmpty()) {
+            return null;
+        }
+        VerifiedClaims verifiedClaims = verification.get().claims();
+        JsonWebTokenVerify jsonWebTokenVerify = verifyMap.get(verifiedClaims.getIssuer());
+        // 读取一次版本，保证写入本地缓存的版本不晚于比较的公钥集
+        long keysetVersion = Objects.isNull(jsonWebTokenVerify) ? 0 : jsonWebTokenVerify.getKeysetVersion();
+        if (Objects.isNull(jsonWebTokenVerify)
+                || jsonWebTokenVerify.isReplayProtection()
+                || !verification.get().keysetFingerprint().equals(jsonWebTokenVerify.getKeysetFingerprint())) {
+            return null;
+        }
+        // 共享的结果不包含 token
+        verifiedClaims.setSignedToken(signedToken);
+        if (Objects.nonNull(verifiedTokenCache)) {
+            verifiedTokenCache.put(digest, verifiedClaims.getIssuer(), keysetVersion, verifiedClaims);
+        }
+        return verifiedClaims;
+    }
+
+    private void checkReplay(String issuerName, VerifiedClaims verifiedClaims) throws GeneralSecurityException {
+        if (Objects.isNull(verifiedClaims.getJwtId()) || Objects.isNull(verifiedClaims.getExpiration())) {
+            throw new InvalidClaimsException(VerifyOutcome.INVALID_CLAIMS,
+                    "Token must have jti and exp claims, issuer: " + issuerName);
+        }
+        // 共享状态不可用时拒绝 token
+        if (!sharedState.markJwtIdIfAbsent(issuerName, verifiedClaims.getJwtId(), verifiedClaims.getExpiration())) {
+            throw new TokenReplayedException(issuerName, verifiedClaims.getJwtId());
+        }
+    }
+
+    /**
+     * 批量验证 JWT，结果与输入顺序一致
+     * <p>
+     * 每个 token 只解析一次以确定签发者，再按签发者分组交给 {@code trusta.batch} 配置的线程池并行验证签名。
+     * 单个 token 验证失败不影响其他 token，失败原因记录在对应的结果中。
+     *
+     * @param signedTokens signed tokens
+     * @return one result per token, in iteration order of the collection
+     */
+    public List<VerificationResult> verifyAll(Collection<String> signedTokens) {
+        return verifyAll(signedTokens, batchExecutor);
+    }
+
+    /**
+     * 批量验证 JWT，签名验证在给定的线程池上执行
+     *
+     * @param signedTokens signed tokens
+     * @param executor     executor running the signature checks
+     * @return one result per token, in iteration order of the collection
+     */
+    public List<VerificationResult> verifyAll(Collection<String> signedTokens, Executor executor) {
+        String[] tokens = signedTokens.toArray(new String[0]);
+        VerificationResult[] results = new VerificationResult[tokens.length];
+        TrustaMetrics metrics = this.metrics;
+        // 按签发者分组，保存 token 在输入中的位置
+        Map<JsonWebTokenVerify, List<Integer>> groups = new LinkedHashMap<>();
+        TokenDigest[] digests = computeDigest ? new TokenDigest[tokens.length] : null;
+        for (int i = 0; i < tokens.length; i++) {
+            long start = System.nanoTime();
+            String claimedIssuer = null;
+            try {
+                checkLength(tokens[i]);
+                if (Objects.nonNull(digests)) {
+                    digests[i] = TokenDigest.of(tokens[i]);
+                    checkRejected(digests[i]);
+                    VerifiedClaims cached = findVerified(digests[i], tokens[i]);
+                    if (Objects.nonNull(cached)) {
+                        results[i] = VerificationResult.success(tokens[i], cached);
+                        metrics.recordVerify(cached.getIssuer(), VerifyOutcome.SUCCESS, System.nanoTime() - start);
+                        continue;
+                    }
+                }
+                JsonWebTokenVerify jsonWebTokenVerify = route(tokens[i], Objects.nonNull(digests) ? digests[i] : null);
+                claimedIssuer = jsonWebTokenVerify.getIssuer();
+                groups.computeIfAbsent(jsonWebTokenVerify, ignored -> new ArrayList<>()).add(i);
+            } catch (Exception e) {
+                results[i] = VerificationResult.failure(tokens[i], e);
+                metrics.recordVerify(claimedIssuer, results[i].getOutcome(), System.nanoTime() - start);
+            }
+        }
+        int chunkSize = Math.max(1, trustaProperties.getBatch().getChunkSize());
+        List<Runnable> chunks = new ArrayList<>();
+        groups.forEach((jsonWebTokenVerify, indexes) -> {
+            for (int from = 0; from < indexes.size(); from += chunkSize) {
+                List<Integer> chunk = indexes.subList(from, Math.min(from + chunkSize, indexes.size()));
+                chunks.add(() -> {
+                    for (int i : chunk) {
+                        results[i] = verifyInBatch(jsonWebTokenVerify, tokens[i],
+                                Objects.nonNull(digests) ? digests[i] : null, metrics);
+                    }
+                });
+            }
+        });
+        if (chunks.size() == 1) {
+            // 只有一组时没有并行的必要
+            chunks.get(0).run();
+        } else if (!chunks.isEmpty()) {
+            CompletableFuture<?>[] futures = chunks.stream()
+                    .map(chunk -> CompletableFuture.runAsync(chunk, executor))
+                    .toArray(CompletableFuture[]::new);
+            try {
+                CompletableFuture.allOf(futures).join();
+            } catch (CompletionException | CancellationException e) {
+                // 线程池拒绝任务等情况，未完成的 token 在下方逐个记录为失败
+                logger.warn("Batch verification did not complete on the executor, error: {}", e.getMessage());
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (Objects.isNull(results[i])) {
+                results[i] = VerificationResult.failure(tokens[i],
+                        new IllegalStateException("Token was not verified by the batch executor"));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private VerificationResult verifyInBatch(JsonWebTokenVerify jsonWebTokenVerify, String signedToken,
+                                             TokenDigest digest, TrustaMetrics metrics) {
+        long start = System.nanoTime();
+        VerificationResult result;
+        try {
+            result = VerificationResult.success(signedToken, verifyRouted(jsonWebTokenVerify, signedToken, digest));
+        } catch (Exception e) {
+            result = VerificationResult.failure(signedToken, e);
+        }
+        metrics.recordVerify(jsonWebTokenVerify.getIssuer(), result.getOutcome(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 使用签发者的公钥验证 token
+     * <p>
+     * 开启按需刷新时，公钥未就绪或签名验证失败会触发一次该签发者公钥集的获取（并发请求共享同一次获取），
+     * 公钥集发生变化后重试一次验证。
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     * @param signedToken        signed token
+     * @return verified claims
+     * @throws GeneralSecurityException if the token cannot be verified
+     */
+    private VerifiedClaims verifyWithIssuer(JsonWebTokenVerify jsonWebTokenVerify, String signedToken)
+            throws GeneralSecurityException {
+        if (Objects.isNull(onDemandKeyRefresher)) {
+            return jsonWebTokenVerify.verify(signedToken);
+        }
+        long keysetVersion = jsonWebTokenVerify.getKeysetVersion();
+        try {
+            return jsonWebTokenVerify.verify(signedToken);
+        } catch (InvalidClaimsException e) {
+            // 签名有效但声明不符合要求，与公钥无关
+            throw e;
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            if (!awaitOnDemandRefresh(jsonWebTokenVerify, keysetVersion)) {
+                throw e;
+            }
+        }
+        return jsonWebTokenVerify.verify(signedToken);
+    }
+
+    /**
+     * 等待按需刷新完成
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     * @param keysetVersion      keyset version the failed verification used
+     * @return true if the keyset has changed and the verification is worth retrying
+     */
+    private boolean awaitOnDemandRefresh(JsonWebTokenVerify jsonWebTokenVerify, long keysetVersion) {
+        if (jsonWebTokenVerify.getKeysetVersion() != keysetVersion) {
+            // 其他线程已完成刷新
+            return true;
+        }
+        CompletableFuture<Boolean> refresh = onDemandKeyRefresher.refresh(jsonWebTokenVerify);
+        if (Objects.isNull(refresh)) {
+            return false;
+        }
+        try {
+            refresh.get(onDemandRefreshTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+        return jsonWebTokenVerify.isReady() && jsonWebTokenVerify.getKeysetVersion() != keysetVersion;
+    }
+
+    /**
+     * 获取当前可信签发者的公钥集获取状态，供就绪探针判断可用程度
+     * <p>
+     * 状态由注册表与进行中的注册推导，包括运行时注册或重新加载的签发者，已移除的签发者不再出现。
+     *
+     * @return snapshot of the bootstrap state of every trusted issuer
+     */
+    public BootstrapStatus getBootstrapStatus() {
+        Map<String, BootstrapStatus.State> states = new TreeMap<>();
+        // 两个注册表都是并发映射，遍历期间的增删不会抛出异常，只影响快照是否包含该签发者
+        verifyMap.forEach((issuerName, v) -> {
+            BootstrapStatus.State state;
+            if (v.isReady()) {
+                // 包括从本地缓存恢复、仍在后台重新校验的签发者
+                state = BootstrapStatus.State.READY;
+            } else if (pendingFetches.containsKey(issuerName)) {
+                state = BootstrapStatus.State.PENDING;
+            } else {
+                state = BootstrapStatus.State.FAILED;
+            }
+            states.put(issuerName, state);
+        });
+        // 尚未进入注册表的新签发者
+        pendingFetches.keySet().forEach(issuerName -> states.putIfAbsent(issuerName, BootstrapStatus.State.PENDING));
+        return new BootstrapStatus(states);
+    }
+
+    /**
+     * Get a future that completes once the initial fetch of every trusted issuer has finished.
+     *
+     * @return future of the final bootstrap status
+     */
+    public CompletableFuture<BootstrapStatus> getBootstrapCompletion() {
+        return bootstrapCompletion;
+    }
+
+    /**
+     * 安装度量收集器，已注册的签发者会立即通知给新的收集器
+     *
+     * @param metrics metrics receiver, {@link TrustaMetrics#NOOP} to disable
+     */
+    public void setMetrics(TrustaMetrics metrics) {
+        TrustaMetrics previous = this.metrics;
+        verifyMap.values().forEach(previous::issuerRemoved);
+        this.metrics = Objects.requireNonNullElse(metrics, TrustaMetrics.NOOP);
+        verifyMap.values().forEach(this.metrics::issuerRegistered);
+    }
+
+    /**
+     * Get the issued token cache.
+     *
+     * @return the cache, or empty when {@code trusta.issued-token-cache.enabled} is false
+     */
+    public Optional<IssuedTokenCache> getIssuedTokenCache() {
+        return Optional.ofNullable(issuedTokenCache);
+    }
+
+    /**
+     * Get the verified token cache.
+     *
+     * @return the cache, or empty when {@code trusta.verified-token-cache.enabled} is false
+     */
+    public Optional<VerifiedTokenCache> getVerifiedTokenCache() {
+        return Optional.ofNullable(verifiedTokenCache);
+    }
+
+    /**
+     * Get the cache of recently rejected tokens.
+     *
+     * @return the cache, or empty when {@code trusta.negative-cache.enabled} is false
+     */
+    public Optional<RejectedTokenCache> getRejectedTokenCache() {
+        return Optional.ofNullable(rejectedTokenCache);
+    }
+
+    /**
+     * Get the per-issuer failure throttle.
+     *
+     * @return the throttle, or empty when {@code trusta.failure-throttle.enabled} is false
+     */
+    public Optional<IssuerFailureThrottle> getFailureThrottle() {
+        return Optional.ofNullable(failureThrottle);
+    }
+
+    /**
+     * Get the circuit breaker guarding public keyset fetches.
+     *
+     * @return per-issuer fetch state
+     */
+    public KeyFetchCircuitBreaker getKeyFetchBreaker() {
+        return keyFetchBreaker;
+    }
+
+    /**
+     * Get the public keyset of the current issuer, as served on {@code /.well-known/trusta/jwks.json}.
+     *
+     * @return public keyset in Tink JSON format
+     */
+    public String getPublicKeySetAsJSONString() {
+        return signingState.publicKeySetAsJSONString();
+    }
+
+    /**
+     * Get the pre-encoded public keyset served on {@code /.well-known/trusta/jwks.json}.
+     *
+     * @return encoded public keyset with its caching headers
+     */
+    public PublicKeysetDocument getPublicKeysetDocument() {
+        return signingState.publicKeysetDocument();
+    }
+
     /**
      * Get a new JWT signer for the current issuer.
      *
      * @return a JsonWebTokenSigner instance
      */
     public JsonWebTokenSigner getSigner() {
-        return new JsonWebTokenSigner(this.jwtPublicKeySign, this.issuer);
+        return new JsonWebTokenSigner(signingState.jwtPublicKeySign(), this.issuer, this.metrics,
+                this.issuedTokenCache, maxValidityPeriod());
+    }
+
+    /**
+     * 获取可复用的签发模板，模板不可变、线程安全，可以保存下来供多次签发使用
+     *
+     * @return a signer template with the default validity period and no static claims
+     */
+    public JsonWebTokenSignerTemplate getSignerTemplate() {
+        return new JsonWebTokenSignerTemplate(signingState.jwtPublicKeySign(), this.issuer, this.metrics,
+                this.issuedTokenCache, maxValidityPeriod());
+    }
+
+    /**
+     * 开启密钥轮换时，签发的 token 的有效期不能超过停用的私钥被移除前保留的时间
+     *
+     * @return longest accepted validity period, null if signing keys are never removed
+     */
+    private Duration maxValidityPeriod() {
+        return Objects.nonNull(signingKeyRotator) ? signingKeyRotator.getRetireAfter() : null;
+    }
+
+    /**
+     * Stop the background key refresh and rotation and release the batch verification threads.
+     */
+    @Override
+    public void close() {
+        if (Objects.nonNull(publicKeyRefresher)) {
+            publicKeyRefresher.close();
+        }
+        if (Objects.nonNull(signingKeyRotator)) {
+            signingKeyRotator.close();
+        }
+        if (Objects.nonNull(privateKeysetWatcher)) {
+            privateKeysetWatcher.close();
+        }
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * 采用其他节点在 {@code trusta.shared-state.keyset-max-age} 内获取的公钥集
+     *
+     * @param v verifier of the issuer
+     * @return true if a newer keyset fetched by another node was adopted
+     */
+    private boolean adoptSharedKeyset(JsonWebTokenVerify v) {
+        try {
+            Optional<PublicKeysetDiskCache.CachedKeyset> sharedKeyset =
+                    sharedState.loadKeyset(v.getIssuer(), v.getPublicKeyURI());
+            Instant notBefore = Instant.now().minus(trustaProperties.getSharedState().getKeysetMaxAge());
+            return sharedKeyset.isPresent()
+                    && sharedKeyset.get().fetchedAt().isAfter(notBefore)
+                    && v.adopt(sharedKeyset.get());
+        } catch (GeneralSecurityException | RuntimeException e) {
+            logger.warn("Failed to adopt shared public keyset of issuer: {}, error: {}",
+                    v.getIssuer(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void publishKeyset(JsonWebTokenVerify v) {
+        if (!shareState) {
+            return;
+        }
+        Optional<PublicKeysetDiskCache.CachedKeyset> cachedKeyset = v.toCachedKeyset();
+        if (cachedKeyset.isEmpty()) {
+            return;
+        }
+        try {
+            sharedState.storeKeyset(v.getIssuer(), v.getPublicKeyURI(), cachedKeyset.get());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to share public keyset of issuer: {}, error: {}", v.getIssuer(), e.getMessage());
+        }
+    }
+
+    private void storeToDiskCache(JsonWebTokenVerify v) {
+        Optional<PublicKeysetDiskCache.CachedKeyset> cachedKeyset = v.toCachedKeyset();
+        if (cachedKeyset.isEmpty()) {
+            return;
+        }
+        try {
+            publicKeysetDiskCache.store(v.getIssuer(), v.getPublicKeyURI(), cachedKeyset.get());
+        } catch (IOException e) {
+            logger.warn("Failed to store public keyset of issuer: {} to local cache, error: {}",
+                    v.getIssuer(), e.getMessage());
+        }
+    }
+
+    /**
+     * 从本地缓存恢复签发者的公钥集
+     *
+     * @param v verifier of the issuer
+     * @return true if the keyset was restored
+     */
+    private boolean restoreFromDiskCache(JsonWebTokenVerify v) {
+        try {
+            Optional<PublicKeysetDiskCache.CachedKeyset> cachedKeyset =
+                    publicKeysetDiskCache.load(v.getIssuer(), v.getPublicKeyURI());
+            if (cachedKeyset.isPresent()) {
+                v.restore(cachedKeyset.get());
+                logger.info("Restored public keyset of issuer: {} from local cache, fetched at: {}",
+                        v.getIssuer(), cachedKeyset.get().fetchedAt());
+                return true;
+            }
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            logger.warn("Failed to restore public keyset of issuer: {} from local cache, error: {}",
+                    v.getIssuer(), e.getMessage());
+        }
+        return false;
+    }
+
+    private boolean isRegistered(JsonWebTokenVerify jsonWebTokenVerify) {
+        return verifyMap.get(jsonWebTokenVerify.getIssuer()) == jsonWebTokenVerify;
+    }
+
+    /**
+     * 丢弃与签发者相关的缓存状态
+     *
+     * @param issuerName issuer name
+     */
+    private void invalidateIssuerState(String issuerName) {
+        if (Objects.nonNull(verifiedTokenCache)) {
+            verifiedTokenCache.invalidateIssuer(issuerName);
+        }
+        if (Objects.nonNull(rejectedTokenCache)) {
+            rejectedTokenCache.invalidateIssuer(issuerName);
+        }
+        if (Objects.nonNull(failureThrottle)) {
+            failureThrottle.forget(issuerName);
+        }
+        if (Objects.nonNull(onDemandKeyRefresher)) {
+            onDemandKeyRefresher.forget(issuerName);
+        }
     }
 
     /**
@@ -136,15 +1354,10 @@ public class TrustaManager {
      */
     private void handlePrivateKeysetHandle() throws GeneralSecurityException, IOException {
         KeysetHandle privateKeysetHandle;
-        Path privateKeysetPath = Paths.get(trustaProperties.getPrivateKeysetFile());
         // 检查私钥文件是否存在
         if (!Files.exists(privateKeysetPath)) {
-            // 如果文件不存在，创建 JWT_ES256 密钥对
-            privateKeysetHandle = KeysetHandle.generateNew(
-                    JwtEcdsaParameters.builder()
-                            .setAlgorithm(JwtEcdsaParameters.Algorithm.ES256)
-                            .setKidStrategy(JwtEcdsaParameters.KidStrategy.IGNORED)
-                            .build());
+            // 如果文件不存在，创建 JWT_ES256 密钥对，签发的 token 携带 kid
+            privateKeysetHandle = KeysetHandle.generateNew(SigningKeyRotator.keyParameters());
             Files.writeString(privateKeysetPath,
                     TinkJsonProtoKeysetFormat.serializeKeyset(privateKeysetHandle,
                             InsecureSecretKeyAccess.get()));
@@ -153,34 +1366,145 @@ public class TrustaManager {
                     Files.readString(privateKeysetPath),
                     InsecureSecretKeyAccess.get());
         }
-        this.jwtPublicKeySign = privateKeysetHandle.getPrimitive(RegistryConfiguration.get(),
+        if (Objects.nonNull(signingKeyRotator)) {
+            privateKeysetHandle = signingKeyRotator.rotate(privateKeysetHandle, Instant.now());
+        }
+        applyPrivateKeyset(privateKeysetHandle);
+        if (Objects.nonNull(signingKeyRotator)) {
+            signingKeyRotator.start(() -> this.signingState.privateKeysetHandle(), rotated -> {
+                try {
+                    applyPrivateKeyset(rotated);
+                } catch (GeneralSecurityException | IOException e) {
+                    logger.error("Failed to apply rotated signing keyset, error: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * 切换签名使用的私钥集，并重新编码公钥端点的内容
+     *
+     * @param privateKeysetHandle private keyset
+     * @throws GeneralSecurityException if the signing primitive cannot be created
+     * @throws IOException              if the keyset file cannot be read
+     */
+    private synchronized void applyPrivateKeyset(KeysetHandle privateKeysetHandle)
+            throws GeneralSecurityException, IOException {
+        JwtPublicKeySign jwtPublicKeySign = privateKeysetHandle.getPrimitive(RegistryConfiguration.get(),
                 JwtPublicKeySign.class);
-        this.publicKeySetAsJSONString = TinkJsonProtoKeysetFormat.serializeKeyset(
+        String publicKeySetAsJSONString = TinkJsonProtoKeysetFormat.serializeKeyset(
                 privateKeysetHandle.getPublicKeysetHandle(),
                 InsecureSecretKeyAccess.get());
+        // 预先编码公钥集，以私钥文件的修改时间作为 Last-Modified，各节点与重启前后保持一致
+        JwksEndpointProperties jwksEndpointProperties = trustaProperties.getJwksEndpoint();
+        PublicKeysetDocument publicKeysetDocument = PublicKeysetDocument.of(publicKeySetAsJSONString,
+                Files.getLastModifiedTime(privateKeysetPath).toInstant(),
+                jwksEndpointProperties.getMaxAge(),
+                jwksEndpointProperties.isCompression());
+        this.signingState = new SigningState(privateKeysetHandle, jwtPublicKeySign, publicKeySetAsJSONString,
+                publicKeysetDocument);
+        if (Objects.nonNull(issuedTokenCache)) {
+            issuedTokenCache.invalidateAll();
+        }
     }
 
     /**
      * Register trusted issuers and initialize their verifiers.
      * <p>
      * This method reads the trusted issuers from the configuration, creates a JsonWebTokenVerify
-     * instance for each, and stores them in the verifyMap. It then updates the public keys for all issuers.
+     * instance for each, and stores them in the verifyMap. It then fetches the public keys of all issuers
+     * concurrently.
      */
     private void registerIssuers() {
         String self = trustaProperties.getIssuer();
-        boolean allowFetchPublicKeyThroughHTTP = trustaProperties.isAllowHttp();
+        boolean allowFetchPublicKeyThroughHTTP = this.allowHttp;
         List<TrustedIssuer> trustedIssuers = trustaProperties.getTrustedIssuers();
         if (trustedIssuers.isEmpty()) {
             return;
         }
         for (TrustedIssuer trustedIssuer : trustedIssuers) {
             try {
-                JsonWebTokenVerify jsonWebTokenVerify = new JsonWebTokenVerify(trustedIssuer, self, allowFetchPublicKeyThroughHTTP);
+                JsonWebTokenVerify jsonWebTokenVerify = new JsonWebTokenVerify(trustedIssuer, self,
+                        allowFetchPublicKeyThroughHTTP, publicKeysetFetcher);
                 verifyMap.put(trustedIssuer.getIssuer(), jsonWebTokenVerify);
             } catch (Exception e) {
                 logger.error("Error while creating verify", e);
             }
         }
-        updateIssuerPublicKey();
+        bootstrapIssuers();
+    }
+
+    /**
+     * 并行获取所有签发者的公钥集，最多等待 {@code trusta.bootstrap.timeout}
+     * <p>
+     * 超时后未完成的获取在后台继续，完成后再交给后台刷新调度。
+     */
+    private void bootstrapIssuers() {
+        BootstrapProperties bootstrapProperties = trustaProperties.getBootstrap();
+        int concurrency = Math.max(1, Math.min(verifyMap.size(), bootstrapProperties.getMaxConcurrency()));
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "trusta-bootstrap-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Fetching public keys of {} issuers", verifyMap.size());
+        List<CompletableFuture<Boolean>> bootstrapFutures = new ArrayList<>();
+        List<CompletableFuture<Boolean>> awaited = new ArrayList<>();
+        verifyMap.values().forEach(v -> {
+            pendingFetches.put(v.getIssuer(), v);
+            // 从本地缓存恢复的签发者可以立即开始验证，只在后台重新校验，不阻塞启动
+            boolean restored = Objects.nonNull(publicKeysetDiskCache) && restoreFromDiskCache(v);
+            CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> updateIssuerPublicKey(v), executor);
+            if (!restored) {
+                awaited.add(future);
+            }
+            future.thenAccept(succeeded -> {
+                pendingFetches.remove(v.getIssuer(), v);
+                if (Objects.nonNull(publicKeyRefresher)) {
+                    publicKeyRefresher.schedule(v, succeeded);
+                }
+            });
+            bootstrapFutures.add(future);
+        });
+        // 已提交的任务执行完毕后线程自行退出
+        executor.shutdown();
+        this.bootstrapCompletion = CompletableFuture
+                .allOf(bootstrapFutures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> getBootstrapStatus());
+        try {
+            CompletableFuture.allOf(awaited.toArray(new CompletableFuture[0]))
+                    .get(bootstrapProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            BootstrapStatus status = getBootstrapStatus();
+            logger.warn("Public keys of issuers {} are still being fetched after {}, continuing in background",
+                    status.getIssuers(BootstrapStatus.State.PENDING), bootstrapProperties.getTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Error while fetching public keys", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error;
+    }
+
+    private static final class ResolvedIssuer {
+        private String name;
+    }
+
+    /**
+     * Everything derived from the private keyset, replaced as a whole.
+     *
+     * @param privateKeysetHandle      private keyset
+     * @param jwtPublicKeySign         signing primitive of the primary key
+     * @param publicKeySetAsJSONString public keyset in Tink JSON format
+     * @param publicKeysetDocument     pre-encoded public keyset served by the JWKS endpoint
+     */
+    private record SigningState(KeysetHandle privateKeysetHandle,
+                                JwtPublicKeySign jwtPublicKeySign,
+                                String publicKeySetAsJSONString,
+                                PublicKeysetDocument publicKeysetDocument) {
     }
-}
\ No newline at end of file
+}
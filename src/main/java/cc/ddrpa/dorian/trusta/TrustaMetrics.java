@@ -0,0 +1,57 @@
+package cc.ddrpa.dorian.trusta;
+
+/**
+ * Receives measurements of verification, signing and key refresh.
+ * <p>
+ * The default implementation {@link #NOOP} ignores everything, in which case {@link TrustaManager}
+ * skips taking measurements altogether.
+ */
+public interface TrustaMetrics {
+
+    TrustaMetrics NOOP = new TrustaMetrics() {
+    };
+
+    /**
+     * Record a token verification.
+     *
+     * @param issuer        trusted issuer name, or null if the token did not resolve to a trusted issuer
+     * @param outcome       outcome of the verification
+     * @param durationNanos time spent
+     */
+    default void recordVerify(String issuer, VerifyOutcome outcome, long durationNanos) {
+    }
+
+    /**
+     * Record a token signing.
+     *
+     * @param durationNanos time spent
+     */
+    default void recordSign(long durationNanos) {
+    }
+
+    /**
+     * Record a public keyset refresh.
+     *
+     * @param issuer        trusted issuer name
+     * @param succeeded     whether the refresh succeeded
+     * @param durationNanos time spent
+     */
+    default void recordKeyRefresh(String issuer, boolean succeeded, long durationNanos) {
+    }
+
+    /**
+     * Called when a trusted issuer is registered, including issuers registered before the metrics were installed.
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     */
+    default void issuerRegistered(JsonWebTokenVerify jsonWebTokenVerify) {
+    }
+
+    /**
+     * Called when a trusted issuer is removed or replaced.
+     *
+     * @param jsonWebTokenVerify verifier of the issuer
+     */
+    default void issuerRemoved(JsonWebTokenVerify jsonWebTokenVerify) {
+    }
+}
@@ -0,0 +1,130 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.ReplayProtectionProperties;
+import cc.ddrpa.dorian.trusta.properties.SharedStateProperties;
+import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * State that several nodes of the same deployment can share: fetched public keysets, verification
+ * results and consumed {@code jti} values.
+ * <p>
+ * With a shared implementation, a keyset fetched by one node is adopted by the others without another
+ * request to the issuer, and a token verified on one node is accepted on another without checking the
+ * signature again, as long as both nodes hold the same keyset. Nodes are expected to run with the same
+ * trusted issuer configuration.
+ * <p>
+ * Implementations must be thread-safe and should not throw checked exceptions; failures of the
+ * underlying store are reported as unchecked exceptions. Failed keyset and verification lookups are
+ * treated as misses, while a failure to record a {@code jti} rejects the token.
+ */
+public interface TrustaSharedState {
+
+    /**
+     * 根据配置创建内置实现
+     *
+     * @param trustaProperties Trusta configuration properties
+     * @param objectMapper     Jackson object mapper
+     * @return in-memory or file based shared state
+     */
+    static TrustaSharedState create(TrustaProperties trustaProperties, ObjectMapper objectMapper) {
+        SharedStateProperties sharedStateProperties = trustaProperties.getSharedState();
+        ReplayProtectionProperties replayProtectionProperties = trustaProperties.getReplayProtection();
+        return switch (sharedStateProperties.getType()) {
+            case FILE -> new FileTrustaSharedState(Paths.get(sharedStateProperties.getDirectory()),
+                    sharedStateProperties.getKeysetMaxAge(), objectMapper);
+            case MEMORY -> new InMemoryTrustaSharedState(trustaProperties.getVerifiedTokenCache().getMaximumSize(),
+                    replayProtectionProperties.getStripes(), replayProtectionProperties.getBucketWidth(), false);
+        };
+    }
+
+    /**
+     * 其他节点是否能看到写入的状态
+     * <p>
+     * 返回 false 时，公钥集与验证结果只使用本节点的缓存，共享状态仅用于记录 jti。
+     *
+     * @return true if the state is visible to other nodes
+     */
+    default boolean isShared() {
+        return true;
+    }
+
+    /**
+     * 读写是否可能阻塞调用线程，例如访问文件、数据库或网络
+     * <p>
+     * 返回 true 时，响应式验证不在事件循环线程上访问共享状态。默认与 {@link #isShared()} 相同。
+     *
+     * @return true if the operations may block
+     */
+    default boolean isBlocking() {
+        return isShared();
+    }
+
+    /**
+     * 读取其他节点获取的公钥集，公钥地址不一致时视为不存在
+     *
+     * @param issuer       issuer name
+     * @param publicKeyURI keyset location of the issuer
+     * @return shared keyset
+     */
+    Optional<PublicKeysetDiskCache.CachedKeyset> loadKeyset(String issuer, URI publicKeyURI);
+
+    /**
+     * 发布本节点获取的公钥集
+     *
+     * @param issuer       issuer name
+     * @param publicKeyURI keyset location of the issuer
+     * @param keyset       fetched keyset
+     */
+    void storeKeyset(String issuer, URI publicKeyURI, PublicKeysetDiskCache.CachedKeyset keyset);
+
+    /**
+     * 读取 token 的验证结果，已过期的结果视为不存在
+     *
+     * @param tokenDigest hex encoded SHA-256 digest of the signed token
+     * @return verification result
+     */
+    Optional<Verification> loadVerification(String tokenDigest);
+
+    /**
+     * 保存 token 的验证结果，保存至 token 过期
+     *
+     * @param tokenDigest  hex encoded SHA-256 digest of the signed token
+     * @param verification verification result
+     */
+    void storeVerification(String tokenDigest, Verification verification);
+
+    /**
+     * 记录 jti，该 jti 此前已被记录且尚未过期时返回 false
+     * <p>
+     * 并发调用时同一 jti 只能有一次返回 true。
+     *
+     * @param issuer     issuer name
+     * @param jwtId      jti of the verified token
+     * @param expiration expiration of the verified token
+     * @return true if the jti was seen for the first time
+     */
+    boolean markJwtIdIfAbsent(String issuer, String jwtId, Instant expiration);
+
+    /**
+     * 签发者从本节点移除后调用，实现可以释放只与本节点相关的资源
+     *
+     * @param issuer issuer name
+     */
+    default void forgetIssuer(String issuer) {
+    }
+
+    /**
+     * A token verified by some node.
+     *
+     * @param keysetFingerprint fingerprint of the issuer keyset the token was verified with
+     * @param claims            verified claims, expiration must be set
+     */
+    record Verification(String keysetFingerprint, VerifiedClaims claims) {
+    }
+}
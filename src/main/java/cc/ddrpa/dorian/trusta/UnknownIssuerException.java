@@ -0,0 +1,20 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Thrown when a token claims an issuer that is not trusted.
+ */
+public class UnknownIssuerException extends GeneralSecurityException {
+
+    private final String claimedIssuer;
+
+    public UnknownIssuerException(String claimedIssuer) {
+        super("Unknown issuer: " + claimedIssuer);
+        this.claimedIssuer = claimedIssuer;
+    }
+
+    public String getClaimedIssuer() {
+        return claimedIssuer;
+    }
+}
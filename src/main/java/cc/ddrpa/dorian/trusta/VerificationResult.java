@@ -0,0 +1,74 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Result of verifying one token of a batch, either the verified claims or the exception that rejected it.
+ */
+public final class VerificationResult {
+
+    private final String signedToken;
+    private final VerifiedClaims claims;
+    private final Exception error;
+    private final VerifyOutcome outcome;
+
+    private VerificationResult(String signedToken, VerifiedClaims claims, Exception error, VerifyOutcome outcome) {
+        this.signedToken = signedToken;
+        this.claims = claims;
+        this.error = error;
+        this.outcome = outcome;
+    }
+
+    static VerificationResult success(String signedToken, VerifiedClaims claims) {
+        return new VerificationResult(signedToken, claims, null, VerifyOutcome.SUCCESS);
+    }
+
+    static VerificationResult failure(String signedToken, Exception error) {
+        return new VerificationResult(signedToken, null, error, VerifyOutcome.classify(error));
+    }
+
+    /**
+     * Get the token this result belongs to.
+     *
+     * @return signed token as passed to the batch
+     */
+    public String getSignedToken() {
+        return signedToken;
+    }
+
+    public boolean isSuccess() {
+        return outcome == VerifyOutcome.SUCCESS;
+    }
+
+    /**
+     * Get the verified claims.
+     *
+     * @return claims, or empty if the token was rejected
+     */
+    public Optional<VerifiedClaims> getClaims() {
+        return Optional.ofNullable(claims);
+    }
+
+    /**
+     * Get the exception that rejected the token, the same one {@link TrustaManager#verify(String)} would throw.
+     *
+     * @return exception, or empty if the token was verified
+     */
+    public Optional<Exception> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    public VerifyOutcome getOutcome() {
+        return outcome;
+    }
+
+    @Override
+    public String toString() {
+        return "VerificationResult{" +
+                "outcome=" + outcome +
+                (Objects.nonNull(claims) ? ", issuer=" + claims.getIssuer() + ", subject=" + claims.getSubject() : "") +
+                (Objects.nonNull(error) ? ", error=" + error.getMessage() : "") +
+                '}';
+    }
+}
@@ -1,25 +1,94 @@
 package cc.ddrpa.dorian.trusta;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 /**
  * Holds verified claims extracted from a JWT.
+ * <p>
+ * The signed token is kept so that {@link #getRawPayload()} can decode the payload only when requested. Claims
+ * held by the verified token cache and the in-memory shared state therefore retain the bearer token in memory
+ * for as long as they are cached; the token is never serialized.
  */
-public class VerifiedClaims {
+public class VerifiedClaims implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final String[] NO_CLAIM_NAMES = new String[0];
+    private static final Object[] NO_CLAIM_VALUES = new Object[0];
+
+    /**
+     * The trusted issuer that verified the JWT.
+     */
+    private String issuer;
     /**
      * The subject of the JWT.
      */
     private String subject;
     /**
-     * All claims extracted from the JWT.
+     * Names of the mapped claims, shared by all tokens of the issuer.
+     */
+    private String[] claimNames = NO_CLAIM_NAMES;
+    /**
+     * Values of the mapped claims by index of {@link #claimNames}, null for absent claims.
+     */
+    private Object[] claimValues = NO_CLAIM_VALUES;
+    /**
+     * All claims extracted from the JWT, materialized from the mapped claims on first access.
      */
-    private Map<String, Object> claims = new HashMap<>();
+    private Map<String, Object> claims;
     /**
-     * The raw payload of the JWT.
+     * The raw payload of the JWT, decoded from {@link #signedToken} on first access.
      */
     private String rawPayload;
+    /**
+     * The signed JWT the claims were verified from, not serialized so it is not kept in sessions;
+     * {@link #rawPayload} is decoded before serialization instead.
+     */
+    private transient String signedToken;
+    /**
+     * The expiration time of the JWT.
+     */
+    private Instant expiration;
+    /**
+     * The {@code jti} claim of the JWT.
+     */
+    private String jwtId;
+
+    public VerifiedClaims() {
+    }
+
+    /**
+     * Create a copy of the given claims, the claims map is copied as well.
+     *
+     * @param source claims to copy
+     */
+    public VerifiedClaims(VerifiedClaims source) {
+        this.issuer = source.issuer;
+        this.subject = source.subject;
+        // 映射得到的声明值不会被修改，可以共享
+        this.claimNames = source.claimNames;
+        this.claimValues = source.claimValues;
+        this.claims = Objects.isNull(source.claims) ? null : new HashMap<>(source.claims);
+        this.rawPayload = source.rawPayload;
+        this.signedToken = source.signedToken;
+        this.expiration = source.expiration;
+        this.jwtId = source.jwtId;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
 
     public String getSubject() {
         return subject;
@@ -29,7 +98,17 @@ public class VerifiedClaims {
         this.subject = subject;
     }
 
+    /**
+     * Get all claims, building the map on first access.
+     *
+     * @return mutable map of claims
+     */
     public Map<String, Object> getClaims() {
+        if (Objects.isNull(claims)) {
+            Map<String, Object> materialized = new HashMap<>();
+            forEachClaim(materialized::put);
+            claims = materialized;
+        }
         return claims;
     }
 
@@ -37,7 +116,41 @@ public class VerifiedClaims {
         this.claims = claims;
     }
 
+    /**
+     * 设置按签发者映射配置提取的声明，调用方不得再修改传入的数组
+     *
+     * @param claimNames  mapped claim names, shared by all tokens of the issuer
+     * @param claimValues values by index of the names, null for absent claims
+     * @return this
+     */
+    VerifiedClaims setClaimValues(String[] claimNames, Object[] claimValues) {
+        this.claimNames = claimNames;
+        this.claimValues = claimValues;
+        this.claims = null;
+        return this;
+    }
+
+    /**
+     * Visit every claim without building the claims map.
+     *
+     * @param action receives the name and value of each claim
+     */
+    public void forEachClaim(BiConsumer<String, Object> action) {
+        if (Objects.nonNull(claims)) {
+            claims.forEach(action);
+            return;
+        }
+        for (int i = 0; i < claimNames.length; i++) {
+            if (Objects.nonNull(claimValues[i])) {
+                action.accept(claimNames[i], claimValues[i]);
+            }
+        }
+    }
+
     public String getRawPayload() {
+        if (Objects.isNull(rawPayload) && Objects.nonNull(signedToken)) {
+            rawPayload = TokenPeek.decodePayload(signedToken);
+        }
         return rawPayload;
     }
 
@@ -46,6 +159,29 @@ public class VerifiedClaims {
         return this;
     }
 
+    VerifiedClaims setSignedToken(String signedToken) {
+        this.signedToken = signedToken;
+        return this;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    public VerifiedClaims setExpiration(Instant expiration) {
+        this.expiration = expiration;
+        return this;
+    }
+
+    public String getJwtId() {
+        return jwtId;
+    }
+
+    public VerifiedClaims setJwtId(String jwtId) {
+        this.jwtId = jwtId;
+        return this;
+    }
+
     /**
      * Add a claim to the claims map.
      *
@@ -53,7 +189,7 @@ public class VerifiedClaims {
      * @param value claim value
      */
     public void addClaim(String key, Object value) {
-        claims.put(key, value);
+        getClaims().put(key, value);
     }
 
     /**
@@ -63,30 +199,83 @@ public class VerifiedClaims {
      * @return claim value
      */
     public Object getClaim(String claim) {
-        return claims.get(claim);
+        if (Objects.nonNull(claims)) {
+            return claims.get(claim);
+        }
+        // 映射的声明通常只有几个，顺序查找即可
+        for (int i = 0; i < claimNames.length; i++) {
+            if (claimNames[i].equals(claim)) {
+                return claimValues[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 映射的声明，未创建声明表时不缓存结果，比较时不产生副作用
+     *
+     * @return claims by name
+     */
+    private Map<String, Object> claimsView() {
+        if (Objects.nonNull(claims)) {
+            return claims;
+        }
+        Map<String, Object> view = new HashMap<>();
+        forEachClaim(view::put);
+        return view;
     }
 
+    /**
+     * 只比较已保存的字段，不解码负载；都保留了 token 时比较 token，负载由 token 决定
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         VerifiedClaims that = (VerifiedClaims) o;
-        return Objects.equals(subject, that.subject) &&
-                Objects.equals(claims, that.claims) &&
-                Objects.equals(rawPayload, that.rawPayload);
+        return Objects.equals(issuer, that.issuer) &&
+                Objects.equals(subject, that.subject) &&
+                Objects.equals(claimsView(), that.claimsView()) &&
+                samePayload(that) &&
+                Objects.equals(expiration, that.expiration) &&
+                Objects.equals(jwtId, that.jwtId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(subject, claims, rawPayload);
+        // 负载可能尚未解码，不参与计算
+        return Objects.hash(issuer, subject, claimsView(), expiration, jwtId);
+    }
+
+    private boolean samePayload(VerifiedClaims that) {
+        if (Objects.nonNull(signedToken) && Objects.nonNull(that.signedToken)) {
+            return signedToken.equals(that.signedToken);
+        }
+        if (Objects.nonNull(rawPayload) && Objects.nonNull(that.rawPayload)) {
+            // 反序列化得到的副本只有负载
+            return rawPayload.equals(that.rawPayload);
+        }
+        return Objects.equals(signedToken, that.signedToken) && Objects.equals(rawPayload, that.rawPayload);
     }
 
     @Override
     public String toString() {
         return "VerifiedClaims{" +
-                "subject='" + subject + '\'' +
-                ", claims=" + claims +
+                "issuer='" + issuer + '\'' +
+                ", subject='" + subject + '\'' +
+                ", claims=" + claimsView() +
                 ", rawPayload='" + rawPayload + '\'' +
+                ", expiration=" + expiration +
+                ", jwtId='" + jwtId + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+
+    /**
+     * token 不参与序列化，写出前解码负载，反序列化后仍能读取原始负载
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getRawPayload();
+        out.defaultWriteObject();
+    }
+}
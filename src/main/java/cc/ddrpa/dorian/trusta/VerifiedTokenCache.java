@@ -0,0 +1,147 @@
+package cc.ddrpa.dorian.trusta;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of already verified tokens.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token, expire at the token's {@code exp},
+ * and are only valid for the public keyset version that verified them. When full, the least recently
+ * used entries are evicted.
+ */
+public class VerifiedTokenCache {
+
+    private final boolean recordStats;
+    private final BoundedCache<TokenDigest, Entry> entries;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Create a new VerifiedTokenCache.
+     *
+     * @param maximumSize maximum number of cached tokens
+     * @param recordStats whether to record hit, miss and eviction counts
+     */
+    VerifiedTokenCache(int maximumSize, boolean recordStats) {
+        this.recordStats = recordStats;
+        this.entries = new BoundedCache<>(maximumSize, Entry::expiresAtMillis, this::recordEviction);
+    }
+
+    /**
+     * 查找缓存的验证结果，过期或公钥集已变化的条目视为未命中
+     *
+     * @param digest   token digest
+     * @param verifyMap registered verifiers
+     * @return a copy of the cached claims, or null
+     */
+    VerifiedClaims get(TokenDigest digest, Map<String, JsonWebTokenVerify> verifyMap) {
+        Entry entry = entries.get(digest);
+        if (Objects.isNull(entry)) {
+            recordMiss();
+            return null;
+        }
+        JsonWebTokenVerify verify = verifyMap.get(entry.issuer);
+        if (entry.expiresAtMillis <= System.currentTimeMillis()
+                || Objects.isNull(verify)
+                || verify.getKeysetVersion() != entry.keysetVersion) {
+            if (entries.remove(digest, entry)) {
+                recordEviction();
+            }
+            recordMiss();
+            return null;
+        }
+        recordHit();
+        return new VerifiedClaims(entry.claims);
+    }
+
+    /**
+     * 缓存验证结果，没有过期时间的 token 不会被缓存
+     *
+     * @param digest        token digest
+     * @param issuer        issuer that verified the token
+     * @param keysetVersion version of the public keyset used for verification
+     * @param claims        verified claims
+     */
+    void put(TokenDigest digest, String issuer, long keysetVersion, VerifiedClaims claims) {
+        if (Objects.isNull(claims.getExpiration())) {
+            return;
+        }
+        long expiresAtMillis = claims.getExpiration().toEpochMilli();
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(digest, new Entry(issuer, keysetVersion, expiresAtMillis, new VerifiedClaims(claims)));
+    }
+
+    /**
+     * 丢弃指定签发者的所有缓存条目，在其公钥集变化时调用
+     *
+     * @param issuer issuer name
+     */
+    public void invalidateIssuer(String issuer) {
+        entries.removeIf(entry -> entry.issuer.equals(issuer));
+    }
+
+    /**
+     * Discard all cached entries.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return entries.getMaximumSize();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Ratio of lookups that were served from the cache, 1.0 when no lookup has been made.
+     *
+     * @return hit ratio
+     */
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long requests = hits + missCount.sum();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    private void recordHit() {
+        if (recordStats) {
+            hitCount.increment();
+        }
+    }
+
+    private void recordMiss() {
+        if (recordStats) {
+            missCount.increment();
+        }
+    }
+
+    private void recordEviction() {
+        if (recordStats) {
+            evictionCount.increment();
+        }
+    }
+
+    private record Entry(String issuer, long keysetVersion, long expiresAtMillis, VerifiedClaims claims) {
+    }
+}
@@ -0,0 +1,93 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.google.crypto.tink.jwt.JwtInvalidException;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Locale;
+
+/**
+ * Outcome of a token verification, failures grouped by cause.
+ */
+public enum VerifyOutcome {
+    SUCCESS,
+    /**
+     * The token is not a well-formed JWT.
+     */
+    MALFORMED,
+    /**
+     * The token claims an issuer that is not trusted.
+     */
+    UNKNOWN_ISSUER,
+    /**
+     * The public keyset of the issuer has not been fetched yet.
+     */
+    KEY_NOT_READY,
+    /**
+     * The signature does not match any key of the issuer.
+     */
+    BAD_SIGNATURE,
+    EXPIRED,
+    AUDIENCE_MISMATCH,
+    /**
+     * The token of a replay protected issuer has already been used.
+     */
+    REPLAYED,
+    /**
+     * The signature is valid but another claim does not meet the requirements.
+     */
+    INVALID_CLAIMS,
+    /**
+     * The signature was not checked because most tokens of the issuer have been failing verification.
+     */
+    THROTTLED,
+    OTHER;
+
+    private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * Lower case name, suitable as a metric tag value.
+     *
+     * @return tag value
+     */
+    public String getTagValue() {
+        return tagValue;
+    }
+
+    /**
+     * 根据验证过程中抛出的异常判断失败原因
+     *
+     * @param throwable exception thrown by the verification
+     * @return failure outcome
+     */
+    public static VerifyOutcome classify(Throwable throwable) {
+        if (throwable instanceof TokenRejectedException rejected) {
+            return rejected.getOutcome();
+        }
+        if (throwable instanceof InvalidClaimsException invalid) {
+            return invalid.getOutcome();
+        }
+        if (throwable instanceof IssuerThrottledException) {
+            return THROTTLED;
+        }
+        if (throwable instanceof UnknownIssuerException) {
+            return UNKNOWN_ISSUER;
+        }
+        if (throwable instanceof TokenReplayedException) {
+            return REPLAYED;
+        }
+        if (throwable instanceof JwtInvalidException) {
+            return INVALID_CLAIMS;
+        }
+        if (throwable instanceof GeneralSecurityException) {
+            return BAD_SIGNATURE;
+        }
+        if (throwable instanceof IllegalStateException) {
+            return KEY_NOT_READY;
+        }
+        if (throwable instanceof IllegalArgumentException || throwable instanceof IOException) {
+            return MALFORMED;
+        }
+        return OTHER;
+    }
+}
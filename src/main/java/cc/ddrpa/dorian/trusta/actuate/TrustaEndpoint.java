@@ -0,0 +1,190 @@
+package cc.ddrpa.dorian.trusta.actuate;
+
+import cc.ddrpa.dorian.trusta.BootstrapStatus;
+import cc.ddrpa.dorian.trusta.IssuerFailureThrottle;
+import cc.ddrpa.dorian.trusta.JsonWebTokenVerify;
+import cc.ddrpa.dorian.trusta.KeyFetchCircuitBreaker;
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedTokenCache;
+import org.springframework.boot.actuate.endpoint.OperationResponseBody;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Actuator endpoint exposing the public keyset state of every trusted issuer.
+ * <p>
+ * {@code GET /actuator/trusta} lists all issuers, {@code GET /actuator/trusta/{issuer}} a single one.
+ * {@code POST /actuator/trusta} refetches the keysets of all issuers and {@code POST /actuator/trusta/{issuer}}
+ * the keyset of one issuer, skipping any retry backoff. Reading only takes snapshots of volatile state and
+ * counters, so it never blocks verification.
+ */
+@Endpoint(id = "trusta")
+public class TrustaEndpoint {
+
+    private final TrustaManager trustaManager;
+
+    public TrustaEndpoint(TrustaManager trustaManager) {
+        this.trustaManager = trustaManager;
+    }
+
+    @ReadOperation
+    public TrustaDescriptor trusta() {
+        BootstrapStatus bootstrapStatus = trustaManager.getBootstrapStatus();
+        Map<String, IssuerDescriptor> issuers = new TreeMap<>();
+        for (String issuerName : trustaManager.getTrustedIssuers()) {
+            trustaManager.getIssuerVerify(issuerName)
+                    .ifPresent(v -> issuers.put(issuerName, describe(v, bootstrapStatus)));
+        }
+        Set<String> throttledIssuers = trustaManager.getFailureThrottle()
+                .map(IssuerFailureThrottle::getThrottledIssuers)
+                .orElse(Set.of());
+        VerifiedCacheDescriptor verifiedTokenCache = trustaManager.getVerifiedTokenCache()
+                .map(TrustaEndpoint::describe)
+                .orElse(null);
+        return new TrustaDescriptor(bootstrapStatus.isComplete(), issuers, throttledIssuers, verifiedTokenCache);
+    }
+
+    @ReadOperation
+    public IssuerDescriptor issuer(@Selector String issuer) {
+        return trustaManager.getIssuerVerify(issuer)
+                .map(v -> describe(v, trustaManager.getBootstrapStatus()))
+                .orElse(null);
+    }
+
+    /**
+     * 重新获取所有签发者的公钥集，等待全部完成
+     *
+     * @return whether the refresh of each issuer succeeded
+     */
+    @WriteOperation
+    public Map<String, Boolean> refresh() {
+        Map<String, CompletableFuture<Boolean>> refreshes = new TreeMap<>();
+        for (String issuerName : trustaManager.getTrustedIssuers()) {
+            try {
+                refreshes.put(issuerName, trustaManager.refreshIssuerPublicKey(issuerName));
+            } catch (IllegalArgumentException e) {
+                // 期间被移除的签发者
+            }
+        }
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        refreshes.forEach((issuerName, refresh) -> results.put(issuerName, refresh.join()));
+        return results;
+    }
+
+    /**
+     * 重新获取指定签发者的公钥集
+     *
+     * @param issuer trusted issuer name
+     * @return whether the refresh succeeded, or null if the issuer is not trusted
+     */
+    @WriteOperation
+    public Map<String, Boolean> refreshIssuer(@Selector String issuer) {
+        try {
+            return Map.of(issuer, trustaManager.refreshIssuerPublicKey(issuer).join());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private IssuerDescriptor describe(JsonWebTokenVerify v, BootstrapStatus bootstrapStatus) {
+        KeyFetchCircuitBreaker breaker = trustaManager.getKeyFetchBreaker();
+        JsonWebTokenVerify.FetchFailure lastFetchFailure = v.getLastFetchFailure();
+        boolean ready = v.isReady();
+        return new IssuerDescriptor(
+                v.getPublicKeyURI(),
+                ready,
+                bootstrapStatus.getStates().get(v.getIssuer()),
+                ready ? v.getLastUpdateTime() : null,
+                Objects.nonNull(lastFetchFailure) ? lastFetchFailure.time() : null,
+                Objects.nonNull(lastFetchFailure) ? lastFetchFailure.message() : null,
+                v.getLastFetchDuration(),
+                v.getMaxAge(),
+                v.getKeyCount(),
+                v.getKeysetVersion(),
+                v.getKeysetFingerprint(),
+                breaker.getState(v.getIssuer()),
+                breaker.getConsecutiveFailures(v.getIssuer()),
+                v.getVerifySuccessCount(),
+                v.getVerifyFailureCount());
+    }
+
+    private static VerifiedCacheDescriptor describe(VerifiedTokenCache cache) {
+        return new VerifiedCacheDescriptor(cache.size(), cache.getMaximumSize(), cache.getHitCount(),
+                cache.getMissCount(), cache.getEvictionCount());
+    }
+
+    /**
+     * State of all trusted issuers.
+     *
+     * @param bootstrapComplete  whether the initial fetch of every issuer has finished
+     * @param issuers            issuers by name
+     * @param throttledIssuers   issuers whose signature checks are currently limited
+     * @param verifiedTokenCache verified token cache statistics, null if the cache is disabled
+     */
+    public record TrustaDescriptor(boolean bootstrapComplete,
+                                   Map<String, IssuerDescriptor> issuers,
+                                   Set<String> throttledIssuers,
+                                   VerifiedCacheDescriptor verifiedTokenCache) implements OperationResponseBody {
+    }
+
+    /**
+     * Public keyset state of one trusted issuer.
+     *
+     * @param publicKeyUri             where the keyset is fetched from
+     * @param ready                    whether a keyset is available for verification
+     * @param bootstrap                state of the initial fetch
+     * @param lastSuccessfulFetch      time of the last successful fetch or revalidation
+     * @param lastFailedFetch          time of the last failed fetch
+     * @param lastFetchError           error of the last failed fetch
+     * @param lastFetchDuration        time spent on the last fetch
+     * @param maxAge                   freshness lifetime declared by the issuer
+     * @param keyCount                 number of keys in the keyset
+     * @param keysetVersion            incremented whenever the keyset changes
+     * @param keysetFingerprint        digest of the keyset
+     * @param fetchCircuit             state of the fetch circuit breaker
+     * @param consecutiveFetchFailures number of failed fetches since the last successful one
+     * @param verifySuccessCount       tokens that passed signature verification
+     * @param verifyFailureCount       tokens that failed signature or claim verification
+     */
+    public record IssuerDescriptor(URI publicKeyUri,
+                                   boolean ready,
+                                   BootstrapStatus.State bootstrap,
+                                   LocalDateTime lastSuccessfulFetch,
+                                   LocalDateTime lastFailedFetch,
+                                   String lastFetchError,
+                                   Duration lastFetchDuration,
+                                   Duration maxAge,
+                                   int keyCount,
+                                   long keysetVersion,
+                                   String keysetFingerprint,
+                                   KeyFetchCircuitBreaker.State fetchCircuit,
+                                   int consecutiveFetchFailures,
+                                   long verifySuccessCount,
+                                   long verifyFailureCount) implements OperationResponseBody {
+    }
+
+    /**
+     * Verified token cache statistics.
+     *
+     * @param size          number of cached tokens
+     * @param maximumSize   capacity
+     * @param hitCount      lookups answered from the cache
+     * @param missCount     lookups not answered from the cache
+     * @param evictionCount tokens evicted to make room
+     */
+    public record VerifiedCacheDescriptor(long size, int maximumSize, long hitCount, long missCount,
+                                          long evictionCount) {
+    }
+}
@@ -0,0 +1,83 @@
+package cc.ddrpa.dorian.trusta.actuate;
+
+import cc.ddrpa.dorian.trusta.JsonWebTokenVerify;
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Reports DOWN while the public keyset of any trusted issuer is missing or stale.
+ * <p>
+ * A keyset is stale when it has not been fetched or revalidated for {@code trusta.health.stale-after}, or for
+ * twice the freshness lifetime declared by the issuer if that is longer. Tokens of such an issuer are still
+ * verified against the last keyset, but keys the issuer rotated in since then are unknown.
+ * <p>
+ * 未开启后台刷新（{@code trusta.key-refresh.enabled=false}）时公钥集只在按需获取时更新，其获取时间不代表是否过期，
+ * 此时只检查公钥集是否就绪。
+ */
+public class TrustaHealthIndicator extends AbstractHealthIndicator {
+
+    private final TrustaManager trustaManager;
+    private final Duration staleAfter;
+    private final boolean backgroundRefresh;
+
+    public TrustaHealthIndicator(TrustaManager trustaManager, Duration staleAfter) {
+        this(trustaManager, staleAfter, true);
+    }
+
+    /**
+     * @param trustaManager     manager of the trusted issuers
+     * @param staleAfter        age after which a keyset is reported stale
+     * @param backgroundRefresh whether keysets are refreshed in the background, staleness is not checked otherwise
+     */
+    public TrustaHealthIndicator(TrustaManager trustaManager, Duration staleAfter, boolean backgroundRefresh) {
+        super("Trusta health check failed");
+        if (staleAfter.isNegative() || staleAfter.isZero()) {
+            throw new IllegalArgumentException("Stale-after must be positive");
+        }
+        this.trustaManager = trustaManager;
+        this.staleAfter = staleAfter;
+        this.backgroundRefresh = backgroundRefresh;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, String> unhealthy = new TreeMap<>();
+        int issuerCount = 0;
+        for (String issuerName : trustaManager.getTrustedIssuers()) {
+            JsonWebTokenVerify v = trustaManager.getIssuerVerify(issuerName).orElse(null);
+            if (Objects.isNull(v)) {
+                continue;
+            }
+            issuerCount++;
+            if (!v.isReady()) {
+                unhealthy.put(issuerName, "not ready");
+            } else if (backgroundRefresh && isStale(v, now)) {
+                unhealthy.put(issuerName, "stale since " + v.getLastUpdateTime());
+            }
+        }
+        builder.withDetail("issuers", issuerCount)
+                .withDetail("staleAfter", backgroundRefresh ? staleAfter.toString() : "disabled");
+        if (unhealthy.isEmpty()) {
+            builder.up();
+        } else {
+            builder.down().withDetail("unhealthyIssuers", unhealthy);
+        }
+    }
+
+    private boolean isStale(JsonWebTokenVerify v, LocalDateTime now) {
+        Duration threshold = staleAfter;
+        Duration maxAge = v.getMaxAge();
+        if (Objects.nonNull(maxAge) && maxAge.multipliedBy(2).compareTo(threshold) > 0) {
+            threshold = maxAge.multipliedBy(2);
+        }
+        return v.getLastUpdateTime().plus(threshold).isBefore(now);
+    }
+}
@@ -0,0 +1,91 @@
+package cc.ddrpa.dorian.trusta.aot;
+
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.util.ClassUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Runtime hints needed to run Trusta in a GraalVM native image.
+ * <p>
+ * Tink stores keysets as protobuf messages. The generated message classes look up their accessors by
+ * reflection when fields are accessed generically, for example when keysets are compared or printed.
+ * {@link VerifiedClaims} is returned from controllers and stored in sessions by applications, so it is
+ * registered for Jackson binding and Java serialization, along with the authentication token if Spring
+ * Security is present.
+ */
+public class TrustaRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String[] TINK_PROTO_TYPES = {
+            "com.google.crypto.tink.proto.Keyset",
+            "com.google.crypto.tink.proto.Keyset$Key",
+            "com.google.crypto.tink.proto.KeysetInfo",
+            "com.google.crypto.tink.proto.KeysetInfo$KeyInfo",
+            "com.google.crypto.tink.proto.KeyData",
+            "com.google.crypto.tink.proto.JwtEcdsaKeyFormat",
+            "com.google.crypto.tink.proto.JwtEcdsaPrivateKey",
+            "com.google.crypto.tink.proto.JwtEcdsaPublicKey",
+            "com.google.crypto.tink.proto.JwtEcdsaPublicKey$CustomKid",
+    };
+
+    /**
+     * 自定义声明值的类型：数字与布尔值，数组读取为包装 ArrayList 的不可修改列表，对象读取为 LinkedHashMap
+     */
+    private static final List<Class<? extends Serializable>> CLAIM_VALUE_TYPES = List.of(
+            Number.class, Integer.class, Long.class, Double.class, Boolean.class,
+            ArrayList.class, LinkedHashMap.class);
+
+    private static final String[] UNMODIFIABLE_COLLECTION_TYPES = {
+            "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableList",
+            "java.util.Collections$UnmodifiableRandomAccessList",
+    };
+
+    private static final String AUTHENTICATION_TOKEN =
+            "cc.ddrpa.dorian.trusta.security.TrustaAuthenticationToken";
+
+    private static final String SIMPLE_GRANTED_AUTHORITY =
+            "org.springframework.security.core.authority.SimpleGrantedAuthority";
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : TINK_PROTO_TYPES) {
+            // 生成的消息类和对应的 Builder 都通过反射查找访问方法
+            hints.reflection().registerTypeIfPresent(classLoader, type,
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerTypeIfPresent(classLoader, type + "$Builder",
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+        bindingRegistrar.registerReflectionHints(hints.reflection(), VerifiedClaims.class);
+        // VerifiedClaims 序列化时写出的字段类型
+        hints.serialization()
+                .registerType(VerifiedClaims.class)
+                .registerType(HashMap.class)
+                .registerType(String[].class)
+                .registerType(Object[].class)
+                .registerType(TypeReference.of("java.time.Ser"));
+        for (Class<? extends Serializable> type : CLAIM_VALUE_TYPES) {
+            hints.serialization().registerType(type);
+        }
+        // 声明中的数组以及认证结果中的权限列表都包装为不可修改的列表
+        for (String type : UNMODIFIABLE_COLLECTION_TYPES) {
+            hints.serialization().registerType(TypeReference.of(type));
+        }
+        if (ClassUtils.isPresent("org.springframework.security.core.Authentication", classLoader)) {
+            hints.serialization()
+                    .registerType(TypeReference.of(AUTHENTICATION_TOKEN))
+                    .registerType(TypeReference.of(SIMPLE_GRANTED_AUTHORITY));
+        }
+    }
+}
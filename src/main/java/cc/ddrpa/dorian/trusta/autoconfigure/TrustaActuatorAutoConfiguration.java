@@ -0,0 +1,41 @@
+package cc.ddrpa.dorian.trusta.autoconfigure;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.actuate.TrustaEndpoint;
+import cc.ddrpa.dorian.trusta.actuate.TrustaHealthIndicator;
+import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Actuator endpoint and health indicator, active when Spring Boot Actuator is on the classpath.
+ * <p>
+ * The endpoint still has to be exposed, e.g. with {@code management.endpoints.web.exposure.include=trusta};
+ * the health indicator can be turned off with {@code management.health.trusta.enabled=false}.
+ */
+@AutoConfiguration(after = TrustaAutoConfiguration.class)
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnBean(TrustaManager.class)
+public class TrustaActuatorAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnAvailableEndpoint
+    public TrustaEndpoint trustaEndpoint(TrustaManager trustaManager) {
+        return new TrustaEndpoint(trustaManager);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "trustaHealthIndicator")
+    @ConditionalOnEnabledHealthIndicator("trusta")
+    public TrustaHealthIndicator trustaHealthIndicator(TrustaManager trustaManager, TrustaProperties trustaProperties) {
+        return new TrustaHealthIndicator(trustaManager, trustaProperties.getHealth().getStaleAfter(),
+                trustaProperties.getKeyRefresh().isEnabled());
+    }
+}
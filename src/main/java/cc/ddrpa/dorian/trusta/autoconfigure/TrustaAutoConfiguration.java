@@ -1,34 +1,38 @@
 package cc.ddrpa.dorian.trusta.autoconfigure;
 
 import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.TrustaSharedState;
+import cc.ddrpa.dorian.trusta.aot.TrustaRuntimeHints;
+import cc.ddrpa.dorian.trusta.metrics.TrustaMetricsBinder;
 import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import cc.ddrpa.dorian.trusta.reactive.ReactiveTrustaManager;
+import cc.ddrpa.dorian.trusta.security.TrustaAuthenticationFilter;
+import cc.ddrpa.dorian.trusta.security.TrustaAuthenticationProvider;
+import cc.ddrpa.dorian.trusta.servlet.PublicKeysetServletHandler;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.crypto.tink.jwt.JwtSignatureConfig;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.boot.ApplicationRunner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 
-@Configuration
+@Configuration(proxyBeanMethods = false)
 @EnableConfigurationProperties(TrustaProperties.class)
+@ImportRuntimeHints(TrustaRuntimeHints.class)
 public class TrustaAutoConfiguration {
 
-    public TrustaAutoConfiguration() throws GeneralSecurityException {
-        // Register all JWT signature key types with the Tink runtime.
-        JwtSignatureConfig.register();
-    }
-
     @Bean
     @ConditionalOnMissingBean(ObjectMapper.class)
     public ObjectMapper objectMapper() {
@@ -36,21 +40,97 @@ public class TrustaAutoConfiguration {
     }
 
     @Bean
-    public TrustaManager trustaManager(TrustaProperties trustaProperties, ObjectMapper objectMapper) throws GeneralSecurityException, IOException {
-        return new TrustaManager(trustaProperties, objectMapper);
+    @ConditionalOnMissingBean
+    public TrustaSharedState trustaSharedState(TrustaProperties trustaProperties, ObjectMapper objectMapper) {
+        return TrustaSharedState.create(trustaProperties, objectMapper);
+    }
+
+    @Bean
+    public TrustaManager trustaManager(TrustaProperties trustaProperties, ObjectMapper objectMapper,
+                                       TrustaSharedState trustaSharedState) throws GeneralSecurityException, IOException {
+        return new TrustaManager(trustaProperties, objectMapper, trustaSharedState);
     }
 
     @Bean
-    public ApplicationRunner trustaInitializationRunner(
-            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
-            TrustaManager trustaManager) {
-        return args -> handlerMapping.registerMapping(
-                RequestMappingInfo
-                        .paths("/.well-known/trusta/jwks.json")
-                        .methods(RequestMethod.GET)
-                        .build(),
-                trustaManager,
-                new HandlerMethod(trustaManager, "exposePublicKeyThroughEndpoint", HttpServletRequest.class,
-                        HttpServletResponse.class).getMethod());
+    public TrustaEnvironmentReloader trustaEnvironmentReloader(TrustaManager trustaManager, Environment environment) {
+        return new TrustaEnvironmentReloader(trustaManager, environment);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(org.springframework.web.servlet.function.RouterFunction.class)
+    static class TrustaServletConfiguration {
+
+        @Bean
+        public PublicKeysetServletHandler publicKeysetServletHandler(TrustaManager trustaManager) {
+            return new PublicKeysetServletHandler(trustaManager);
+        }
+
+        @Bean
+        public org.springframework.web.servlet.function.RouterFunction<
+                org.springframework.web.servlet.function.ServerResponse> trustaServletPublicKeysetRoute(
+                PublicKeysetServletHandler publicKeysetServletHandler) {
+            return publicKeysetServletHandler.publicKeysetRoute();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(HttpSecurity.class)
+    static class TrustaSecurityConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public TrustaAuthenticationProvider trustaAuthenticationProvider(TrustaManager trustaManager) {
+            return new TrustaAuthenticationProvider(trustaManager);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public TrustaAuthenticationFilter trustaAuthenticationFilter(
+                TrustaAuthenticationProvider trustaAuthenticationProvider, TrustaManager trustaManager,
+                TrustaProperties trustaProperties) {
+            return new TrustaAuthenticationFilter(new ProviderManager(trustaAuthenticationProvider), trustaManager,
+                    trustaProperties.getSecurityFilter(), trustaProperties.getMaxTokenLength());
+        }
+
+        /**
+         * 过滤器只在 Spring Security 过滤器链中运行，不注册到 Servlet 容器
+         */
+        @Bean
+        public FilterRegistrationBean<TrustaAuthenticationFilter> trustaAuthenticationFilterRegistration(
+                TrustaAuthenticationFilter trustaAuthenticationFilter) {
+            FilterRegistrationBean<TrustaAuthenticationFilter> registration =
+                    new FilterRegistrationBean<>(trustaAuthenticationFilter);
+            registration.setEnabled(false);
+            return registration;
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class TrustaReactiveConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveTrustaManager reactiveTrustaManager(TrustaManager trustaManager) {
+            return new ReactiveTrustaManager(trustaManager);
+        }
+
+        @Bean
+        public RouterFunction<ServerResponse> trustaPublicKeysetRoute(ReactiveTrustaManager reactiveTrustaManager) {
+            return reactiveTrustaManager.publicKeysetRoute();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class TrustaMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public TrustaMetricsBinder trustaMetricsBinder(TrustaManager trustaManager) {
+            return new TrustaMetricsBinder(trustaManager);
+        }
     }
 }
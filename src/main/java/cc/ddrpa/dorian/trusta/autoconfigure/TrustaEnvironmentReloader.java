@@ -0,0 +1,52 @@
+package cc.ddrpa.dorian.trusta.autoconfigure;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Applies changes of the {@code trusta} properties to the running {@link TrustaManager}.
+ * <p>
+ * Spring Cloud publishes {@code EnvironmentChangeEvent} after the environment has been refreshed; the event is
+ * matched by class name so that Spring Cloud stays optional. The properties are bound anew from the environment
+ * instead of reading the {@link TrustaProperties} bean, which may only be rebound after this listener has run.
+ */
+public class TrustaEnvironmentReloader implements SmartApplicationListener {
+
+    static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
+    private static final Logger logger = LoggerFactory.getLogger(TrustaEnvironmentReloader.class);
+
+    private final TrustaManager trustaManager;
+    private final Environment environment;
+
+    public TrustaEnvironmentReloader(TrustaManager trustaManager, Environment environment) {
+        this.trustaManager = trustaManager;
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        return ENVIRONMENT_CHANGE_EVENT.equals(eventType.getName());
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        TrustaProperties updated;
+        try {
+            updated = Binder.get(environment).bindOrCreate("trusta", TrustaProperties.class);
+        } catch (RuntimeException e) {
+            logger.error("Failed to bind trusta properties after environment change, keeping the current "
+                    + "configuration, error: {}", e.getMessage());
+            return;
+        }
+        if (updated.getReload().isEnabled()) {
+            trustaManager.reload(updated);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package cc.ddrpa.dorian.trusta.metrics;
+
+import cc.ddrpa.dorian.trusta.JsonWebTokenVerify;
+import cc.ddrpa.dorian.trusta.TrustaMetrics;
+import cc.ddrpa.dorian.trusta.VerifyOutcome;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TrustaMetrics} backed by Micrometer.
+ * <p>
+ * The {@code issuer} tag only ever holds the name of a trusted issuer, or {@value #UNKNOWN_ISSUER} for tokens
+ * that did not resolve to one, so its cardinality is bounded by the configuration. Meters are created once
+ * per issuer and outcome and looked up without allocation afterwards.
+ */
+public class MicrometerTrustaMetrics implements TrustaMetrics {
+
+    public static final String UNKNOWN_ISSUER = "unknown";
+
+    private static final VerifyOutcome[] OUTCOMES = VerifyOutcome.values();
+
+    private final MeterRegistry registry;
+    private final Timer signTimer;
+    private final Map<String, IssuerMeters> issuerMeters = new ConcurrentHashMap<>();
+
+    public MicrometerTrustaMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.signTimer = Timer.builder("trusta.sign")
+                .description("Time spent signing tokens")
+                .register(registry);
+    }
+
+    @Override
+    public void recordVerify(String issuer, VerifyOutcome outcome, long durationNanos) {
+        meters(Objects.requireNonNullElse(issuer, UNKNOWN_ISSUER))
+                .verifyTimer(outcome)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordSign(long durationNanos) {
+        signTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordKeyRefresh(String issuer, boolean succeeded, long durationNanos) {
+        IssuerMeters meters = meters(issuer);
+        (succeeded ? meters.refreshSuccessTimer : meters.refreshFailureTimer)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void issuerRegistered(JsonWebTokenVerify jsonWebTokenVerify) {
+        IssuerMeters meters = meters(jsonWebTokenVerify.getIssuer());
+        if (Objects.nonNull(meters.keysetAgeGauge)) {
+            registry.remove(meters.keysetAgeGauge);
+        }
+        meters.keysetAgeGauge = Gauge.builder("trusta.keyset.age", jsonWebTokenVerify, MicrometerTrustaMetrics::keysetAgeSeconds)
+                .description("Seconds since the public keyset of the issuer was last fetched or revalidated")
+                .baseUnit("seconds")
+                .tag("issuer", jsonWebTokenVerify.getIssuer())
+                .strongReference(true)
+                .register(registry);
+    }
+
+    @Override
+    public void issuerRemoved(JsonWebTokenVerify jsonWebTokenVerify) {
+        IssuerMeters meters = issuerMeters.get(jsonWebTokenVerify.getIssuer());
+        if (Objects.nonNull(meters) && Objects.nonNull(meters.keysetAgeGauge)) {
+            registry.remove(meters.keysetAgeGauge);
+            meters.keysetAgeGauge = null;
+        }
+    }
+
+    private IssuerMeters meters(String issuer) {
+        IssuerMeters meters = issuerMeters.get(issuer);
+        if (Objects.isNull(meters)) {
+            meters = issuerMeters.computeIfAbsent(issuer, name -> new IssuerMeters(registry, name));
+        }
+        return meters;
+    }
+
+    private static double keysetAgeSeconds(JsonWebTokenVerify jsonWebTokenVerify) {
+        if (!jsonWebTokenVerify.isReady()) {
+            return Double.NaN;
+        }
+        return Duration.between(jsonWebTokenVerify.getLastUpdateTime(), LocalDateTime.now()).toMillis() / 1000.0;
+    }
+
+    private static final class IssuerMeters {
+        private final MeterRegistry registry;
+        private final String issuer;
+        private final Timer[] verifyTimers = new Timer[OUTCOMES.length];
+        private final Timer refreshSuccessTimer;
+        private final Timer refreshFailureTimer;
+        private volatile Gauge keysetAgeGauge;
+
+        private IssuerMeters(MeterRegistry registry, String issuer) {
+            this.registry = registry;
+            this.issuer = issuer;
+            this.refreshSuccessTimer = refreshTimer("success");
+            this.refreshFailureTimer = refreshTimer("failure");
+        }
+
+        private Timer verifyTimer(VerifyOutcome outcome) {
+            Timer timer = verifyTimers[outcome.ordinal()];
+            if (Objects.isNull(timer)) {
+                // 并发创建时 Micrometer 返回同一个 Timer
+                timer = Timer.builder("trusta.verify")
+                        .description("Time spent verifying tokens")
+                        .tag("issuer", issuer)
+                        .tag("outcome", outcome.getTagValue())
+                        .register(registry);
+                verifyTimers[outcome.ordinal()] = timer;
+            }
+            return timer;
+        }
+
+        private Timer refreshTimer(String outcome) {
+            return Timer.builder("trusta.key.refresh")
+                    .description("Time spent fetching the public keyset of the issuer")
+                    .tag("issuer", issuer)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
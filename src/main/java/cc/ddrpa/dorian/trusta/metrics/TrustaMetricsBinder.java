@@ -0,0 +1,25 @@
+package cc.ddrpa.dorian.trusta.metrics;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Installs {@link MicrometerTrustaMetrics} into the {@link TrustaManager} once a {@link MeterRegistry} is available.
+ * <p>
+ * Spring Boot only binds {@link MeterBinder} beans when a registry exists, so without one the manager keeps
+ * its no-op metrics and takes no measurements.
+ */
+public class TrustaMetricsBinder implements MeterBinder {
+
+    private final TrustaManager trustaManager;
+
+    public TrustaMetricsBinder(TrustaManager trustaManager) {
+        this.trustaManager = trustaManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        trustaManager.setMetrics(new MicrometerTrustaMetrics(registry));
+    }
+}
@@ -0,0 +1,50 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.util.Objects;
+
+public class BatchProperties {
+    // 批量验证时并行验证签名的线程数，0 表示使用可用处理器数量
+    private int parallelism = 0;
+    // 同一签发者的 token 按该数量分组提交，总数不超过一组时在调用线程上直接验证
+    private int chunkSize = 64;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public BatchProperties setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public BatchProperties setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchProperties that = (BatchProperties) o;
+        return parallelism == that.parallelism &&
+                chunkSize == that.chunkSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parallelism, chunkSize);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchProperties{" +
+                "parallelism=" + parallelism +
+                ", chunkSize=" + chunkSize +
+                '}';
+    }
+}
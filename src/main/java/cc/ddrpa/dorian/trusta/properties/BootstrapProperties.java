@@ -0,0 +1,51 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class BootstrapProperties {
+    // 启动时等待获取对端公钥集的最长时间，超时后未完成的获取转入后台继续
+    private Duration timeout = Duration.ofSeconds(10);
+    // 启动时同时获取公钥集的最大签发者数量
+    private int maxConcurrency = 32;
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public BootstrapProperties setTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public BootstrapProperties setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BootstrapProperties that = (BootstrapProperties) o;
+        return maxConcurrency == that.maxConcurrency &&
+                Objects.equals(timeout, that.timeout);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timeout, maxConcurrency);
+    }
+
+    @Override
+    public String toString() {
+        return "BootstrapProperties{" +
+                "timeout=" + timeout +
+                ", maxConcurrency=" + maxConcurrency +
+                '}';
+    }
+}
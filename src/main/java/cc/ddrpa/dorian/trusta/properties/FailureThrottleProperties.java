@@ -0,0 +1,90 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class FailureThrottleProperties {
+    // 是否在某个签发者的 token 大量验证失败时限制其签名验证次数
+    private boolean enabled = false;
+    // 统计失败率的时间窗口
+    private Duration window = Duration.ofSeconds(10);
+    // 一个窗口内至少失败多少次才开始限制
+    private int minFailures = 100;
+    // 一个窗口内失败次数占签名验证次数的比例达到该值时开始限制
+    private double failureRatio = 0.5;
+    // 限制期间每个窗口内仍然验证签名的 token 数量，用于判断失败是否已经停止
+    private int permits = 20;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public FailureThrottleProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public FailureThrottleProperties setWindow(Duration window) {
+        this.window = window;
+        return this;
+    }
+
+    public int getMinFailures() {
+        return minFailures;
+    }
+
+    public FailureThrottleProperties setMinFailures(int minFailures) {
+        this.minFailures = minFailures;
+        return this;
+    }
+
+    public double getFailureRatio() {
+        return failureRatio;
+    }
+
+    public FailureThrottleProperties setFailureRatio(double failureRatio) {
+        this.failureRatio = failureRatio;
+        return this;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    public FailureThrottleProperties setPermits(int permits) {
+        this.permits = permits;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FailureThrottleProperties that = (FailureThrottleProperties) o;
+        return enabled == that.enabled &&
+                minFailures == that.minFailures &&
+                Double.compare(failureRatio, that.failureRatio) == 0 &&
+                permits == that.permits &&
+                Objects.equals(window, that.window);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, window, minFailures, failureRatio, permits);
+    }
+
+    @Override
+    public String toString() {
+        return "FailureThrottleProperties{" +
+                "enabled=" + enabled +
+                ", window=" + window +
+                ", minFailures=" + minFailures +
+                ", failureRatio=" + failureRatio +
+                ", permits=" + permits +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class HealthProperties {
+    // 公钥集超过该时间未成功获取或重新校验时视为过期，对端声明的有效期更长时以有效期的两倍为准
+    private Duration staleAfter = Duration.ofHours(3);
+
+    public Duration getStaleAfter() {
+        return staleAfter;
+    }
+
+    public HealthProperties setStaleAfter(Duration staleAfter) {
+        this.staleAfter = staleAfter;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HealthProperties that = (HealthProperties) o;
+        return Objects.equals(staleAfter, that.staleAfter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(staleAfter);
+    }
+
+    @Override
+    public String toString() {
+        return "HealthProperties{" +
+                "staleAfter=" + staleAfter +
+                '}';
+    }
+}
@@ -0,0 +1,91 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public class IssuedTokenCacheProperties {
+    // 是否复用已签发的 token，主体、受众、有效期与声明均相同时直接返回此前签发的 token
+    private boolean enabled = false;
+    // 最多缓存的 token 数量
+    private int maximumSize = 10000;
+    // 剩余有效期不少于有效期的该比例时才复用
+    private double minRemainingRatio = 0.5;
+    // 是否统计命中率及淘汰次数
+    private boolean recordStats = true;
+    // 开启了重放保护的受众，签发给这些受众以及任意受众的 token 每次都使用新的 jti，不复用；包含 * 时不复用任何 token
+    private List<String> replayProtectedAudiences = Collections.emptyList();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public IssuedTokenCacheProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public IssuedTokenCacheProperties setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public double getMinRemainingRatio() {
+        return minRemainingRatio;
+    }
+
+    public IssuedTokenCacheProperties setMinRemainingRatio(double minRemainingRatio) {
+        this.minRemainingRatio = minRemainingRatio;
+        return this;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    public IssuedTokenCacheProperties setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+        return this;
+    }
+
+    public List<String> getReplayProtectedAudiences() {
+        return replayProtectedAudiences;
+    }
+
+    public IssuedTokenCacheProperties setReplayProtectedAudiences(List<String> replayProtectedAudiences) {
+        this.replayProtectedAudiences = replayProtectedAudiences;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IssuedTokenCacheProperties that = (IssuedTokenCacheProperties) o;
+        return enabled == that.enabled &&
+                maximumSize == that.maximumSize &&
+                Double.compare(minRemainingRatio, that.minRemainingRatio) == 0 &&
+                recordStats == that.recordStats &&
+                Objects.equals(replayProtectedAudiences, that.replayProtectedAudiences);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, maximumSize, minRemainingRatio, recordStats, replayProtectedAudiences);
+    }
+
+    @Override
+    public String toString() {
+        return "IssuedTokenCacheProperties{" +
+                "enabled=" + enabled +
+                ", maximumSize=" + maximumSize +
+                ", minRemainingRatio=" + minRemainingRatio +
+                ", recordStats=" + recordStats +
+                ", replayProtectedAudiences=" + replayProtectedAudiences +
+                '}';
+    }
+}
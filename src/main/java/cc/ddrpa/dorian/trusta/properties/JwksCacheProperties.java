@@ -0,0 +1,64 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class JwksCacheProperties {
+    // 是否将获取到的对端公钥集保存到本地，重启时无需等待网络即可开始验证
+    private boolean enabled = false;
+    // 本地缓存目录
+    private String directory = ".trusta/jwks-cache";
+    // 本地缓存的最长有效期，超过该时间的公钥集不会在启动时加载
+    private Duration maxStaleness = Duration.ofDays(7);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public JwksCacheProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public JwksCacheProperties setDirectory(String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public JwksCacheProperties setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JwksCacheProperties that = (JwksCacheProperties) o;
+        return enabled == that.enabled &&
+                Objects.equals(directory, that.directory) &&
+                Objects.equals(maxStaleness, that.maxStaleness);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, directory, maxStaleness);
+    }
+
+    @Override
+    public String toString() {
+        return "JwksCacheProperties{" +
+                "enabled=" + enabled +
+                ", directory='" + directory + '\'' +
+                ", maxStaleness=" + maxStaleness +
+                '}';
+    }
+}
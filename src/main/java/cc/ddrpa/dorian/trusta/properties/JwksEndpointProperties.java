@@ -0,0 +1,51 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class JwksEndpointProperties {
+    // 公钥端点响应中 Cache-Control: max-age 声明的有效期
+    private Duration maxAge = Duration.ofMinutes(5);
+    // 是否预先压缩公钥集，客户端声明支持 gzip 时直接返回压缩后的内容
+    private boolean compression = true;
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public JwksEndpointProperties setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public JwksEndpointProperties setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JwksEndpointProperties that = (JwksEndpointProperties) o;
+        return compression == that.compression &&
+                Objects.equals(maxAge, that.maxAge);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxAge, compression);
+    }
+
+    @Override
+    public String toString() {
+        return "JwksEndpointProperties{" +
+                "maxAge=" + maxAge +
+                ", compression=" + compression +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class KeyFetchProperties {
+    // 建立连接的超时时间
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // 从发出请求到读取完整个响应的超时时间
+    private Duration readTimeout = Duration.ofSeconds(10);
+    // 获取失败后第一次重试前的等待时间，此后每次失败加倍
+    private Duration initialBackoff = Duration.ofSeconds(5);
+    // 获取失败后重试前的最长等待时间
+    private Duration maxBackoff = Duration.ofMinutes(10);
+    // 重试等待时间随机缩短的最大比例，避免各节点同时重试
+    private double backoffJitter = 0.5;
+    // 连续失败多少次后暂停获取该签发者的公钥集
+    private int failureThreshold = 5;
+    // 暂停获取的时间，之后允许一次试探性的获取
+    private Duration openDuration = Duration.ofMinutes(5);
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public KeyFetchProperties setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public KeyFetchProperties setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public KeyFetchProperties setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public KeyFetchProperties setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    public double getBackoffJitter() {
+        return backoffJitter;
+    }
+
+    public KeyFetchProperties setBackoffJitter(double backoffJitter) {
+        this.backoffJitter = backoffJitter;
+        return this;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public KeyFetchProperties setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public KeyFetchProperties setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeyFetchProperties that = (KeyFetchProperties) o;
+        return Double.compare(backoffJitter, that.backoffJitter) == 0 &&
+                failureThreshold == that.failureThreshold &&
+                Objects.equals(connectTimeout, that.connectTimeout) &&
+                Objects.equals(readTimeout, that.readTimeout) &&
+                Objects.equals(initialBackoff, that.initialBackoff) &&
+                Objects.equals(maxBackoff, that.maxBackoff) &&
+                Objects.equals(openDuration, that.openDuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(connectTimeout, readTimeout, initialBackoff, maxBackoff, backoffJitter, failureThreshold,
+                openDuration);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyFetchProperties{" +
+                "connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", backoffJitter=" + backoffJitter +
+                ", failureThreshold=" + failureThreshold +
+                ", openDuration=" + openDuration +
+                '}';
+    }
+}
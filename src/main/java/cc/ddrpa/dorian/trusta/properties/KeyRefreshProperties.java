@@ -0,0 +1,90 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class KeyRefreshProperties {
+    // 是否在后台定期刷新对端公钥集
+    private boolean enabled = true;
+    // 对端未通过 Cache-Control 声明有效期时使用的刷新间隔
+    private Duration defaultInterval = Duration.ofHours(1);
+    // 最短刷新间隔，获取失败后的重试间隔由 trusta.key-fetch 决定
+    private Duration minInterval = Duration.ofMinutes(1);
+    // 最长刷新间隔
+    private Duration maxInterval = Duration.ofHours(24);
+    // 刷新间隔的随机抖动比例，取值范围 [0, 1)，避免联邦中的节点同时请求同一签发者
+    private double jitter = 0.1;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public KeyRefreshProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public Duration getDefaultInterval() {
+        return defaultInterval;
+    }
+
+    public KeyRefreshProperties setDefaultInterval(Duration defaultInterval) {
+        this.defaultInterval = defaultInterval;
+        return this;
+    }
+
+    public Duration getMinInterval() {
+        return minInterval;
+    }
+
+    public KeyRefreshProperties setMinInterval(Duration minInterval) {
+        this.minInterval = minInterval;
+        return this;
+    }
+
+    public Duration getMaxInterval() {
+        return maxInterval;
+    }
+
+    public KeyRefreshProperties setMaxInterval(Duration maxInterval) {
+        this.maxInterval = maxInterval;
+        return this;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public KeyRefreshProperties setJitter(double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeyRefreshProperties that = (KeyRefreshProperties) o;
+        return enabled == that.enabled &&
+                Double.compare(jitter, that.jitter) == 0 &&
+                Objects.equals(defaultInterval, that.defaultInterval) &&
+                Objects.equals(minInterval, that.minInterval) &&
+                Objects.equals(maxInterval, that.maxInterval);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, defaultInterval, minInterval, maxInterval, jitter);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyRefreshProperties{" +
+                "enabled=" + enabled +
+                ", defaultInterval=" + defaultInterval +
+                ", minInterval=" + minInterval +
+                ", maxInterval=" + maxInterval +
+                ", jitter=" + jitter +
+                '}';
+    }
+}
@@ -0,0 +1,90 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class KeyRotationProperties {
+    // 是否定期轮换签名私钥
+    private boolean enabled = false;
+    // 签名私钥的使用时长，到期前生成新的私钥
+    private Duration rotationInterval = Duration.ofDays(30);
+    // 新公钥提前发布的时间，应大于对端刷新公钥集的间隔，到期后新私钥才开始签发 token
+    private Duration publishAhead = Duration.ofDays(1);
+    // 旧公钥在停止签发后继续发布的时间，也是开启轮换时签发 token 的最长有效期
+    private Duration retireAfter = Duration.ofDays(1);
+    // 检查是否需要轮换的间隔
+    private Duration checkInterval = Duration.ofHours(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public KeyRotationProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public Duration getRotationInterval() {
+        return rotationInterval;
+    }
+
+    public KeyRotationProperties setRotationInterval(Duration rotationInterval) {
+        this.rotationInterval = rotationInterval;
+        return this;
+    }
+
+    public Duration getPublishAhead() {
+        return publishAhead;
+    }
+
+    public KeyRotationProperties setPublishAhead(Duration publishAhead) {
+        this.publishAhead = publishAhead;
+        return this;
+    }
+
+    public Duration getRetireAfter() {
+        return retireAfter;
+    }
+
+    public KeyRotationProperties setRetireAfter(Duration retireAfter) {
+        this.retireAfter = retireAfter;
+        return this;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public KeyRotationProperties setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeyRotationProperties that = (KeyRotationProperties) o;
+        return enabled == that.enabled &&
+                Objects.equals(rotationInterval, that.rotationInterval) &&
+                Objects.equals(publishAhead, that.publishAhead) &&
+                Objects.equals(retireAfter, that.retireAfter) &&
+                Objects.equals(checkInterval, that.checkInterval);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, rotationInterval, publishAhead, retireAfter, checkInterval);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyRotationProperties{" +
+                "enabled=" + enabled +
+                ", rotationInterval=" + rotationInterval +
+                ", publishAhead=" + publishAhead +
+                ", retireAfter=" + retireAfter +
+                ", checkInterval=" + checkInterval +
+                '}';
+    }
+}
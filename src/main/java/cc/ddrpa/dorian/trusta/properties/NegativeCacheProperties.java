@@ -0,0 +1,64 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class NegativeCacheProperties {
+    // 是否记住最近验证失败且重试结果不变的 token，再次出现时不解析直接拒绝
+    private boolean enabled = false;
+    // 最多记住的 token 数量
+    private int maximumSize = 10000;
+    // 记住失败结果的时间
+    private Duration ttl = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public NegativeCacheProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public NegativeCacheProperties setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public NegativeCacheProperties setTtl(Duration ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NegativeCacheProperties that = (NegativeCacheProperties) o;
+        return enabled == that.enabled &&
+                maximumSize == that.maximumSize &&
+                Objects.equals(ttl, that.ttl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, maximumSize, ttl);
+    }
+
+    @Override
+    public String toString() {
+        return "NegativeCacheProperties{" +
+                "enabled=" + enabled +
+                ", maximumSize=" + maximumSize +
+                ", ttl=" + ttl +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class OnDemandRefreshProperties {
+    // 签名验证失败或公钥未就绪时是否立即重新获取该签发者的公钥集并重试一次
+    private boolean enabled = false;
+    // 同一签发者两次按需获取之间的最短间隔
+    private Duration minInterval = Duration.ofSeconds(30);
+    // 等待按需获取完成的最长时间
+    private Duration timeout = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OnDemandRefreshProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public Duration getMinInterval() {
+        return minInterval;
+    }
+
+    public OnDemandRefreshProperties setMinInterval(Duration minInterval) {
+        this.minInterval = minInterval;
+        return this;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public OnDemandRefreshProperties setTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OnDemandRefreshProperties that = (OnDemandRefreshProperties) o;
+        return enabled == that.enabled &&
+                Objects.equals(minInterval, that.minInterval) &&
+                Objects.equals(timeout, that.timeout);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, minInterval, timeout);
+    }
+
+    @Override
+    public String toString() {
+        return "OnDemandRefreshProperties{" +
+                "enabled=" + enabled +
+                ", minInterval=" + minInterval +
+                ", timeout=" + timeout +
+                '}';
+    }
+}
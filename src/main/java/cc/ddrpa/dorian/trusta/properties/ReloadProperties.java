@@ -0,0 +1,64 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class ReloadProperties {
+    // 是否在收到环境变化事件（例如 Spring Cloud 的 EnvironmentChangeEvent）时重新读取配置并应用可信签发者的变化
+    private boolean enabled = true;
+    // 是否监视私钥集文件，文件被替换或修改后切换到新的私钥集
+    private boolean watchPrivateKeyset = false;
+    // 文件变化后等待的时间，期间的多次变化只重新加载一次
+    private Duration watchDebounce = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ReloadProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isWatchPrivateKeyset() {
+        return watchPrivateKeyset;
+    }
+
+    public ReloadProperties setWatchPrivateKeyset(boolean watchPrivateKeyset) {
+        this.watchPrivateKeyset = watchPrivateKeyset;
+        return this;
+    }
+
+    public Duration getWatchDebounce() {
+        return watchDebounce;
+    }
+
+    public ReloadProperties setWatchDebounce(Duration watchDebounce) {
+        this.watchDebounce = watchDebounce;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReloadProperties that = (ReloadProperties) o;
+        return enabled == that.enabled &&
+                watchPrivateKeyset == that.watchPrivateKeyset &&
+                Objects.equals(watchDebounce, that.watchDebounce);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, watchPrivateKeyset, watchDebounce);
+    }
+
+    @Override
+    public String toString() {
+        return "ReloadProperties{" +
+                "enabled=" + enabled +
+                ", watchPrivateKeyset=" + watchPrivateKeyset +
+                ", watchDebounce=" + watchDebounce +
+                '}';
+    }
+}
@@ -0,0 +1,51 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class ReplayProtectionProperties {
+    // 记录已使用 jti 的分段数量，分段越多并发验证时的锁竞争越少
+    private int stripes = 64;
+    // 按过期时间归入同一批次的时间跨度，同一批次的 jti 在到期后一起清除
+    private Duration bucketWidth = Duration.ofSeconds(10);
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public ReplayProtectionProperties setStripes(int stripes) {
+        this.stripes = stripes;
+        return this;
+    }
+
+    public Duration getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public ReplayProtectionProperties setBucketWidth(Duration bucketWidth) {
+        this.bucketWidth = bucketWidth;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReplayProtectionProperties that = (ReplayProtectionProperties) o;
+        return stripes == that.stripes &&
+                Objects.equals(bucketWidth, that.bucketWidth);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(stripes, bucketWidth);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayProtectionProperties{" +
+                "stripes=" + stripes +
+                ", bucketWidth=" + bucketWidth +
+                '}';
+    }
+}
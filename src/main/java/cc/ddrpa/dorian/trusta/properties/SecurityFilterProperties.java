@@ -0,0 +1,76 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.util.Objects;
+
+public class SecurityFilterProperties {
+    // 携带 token 的请求头
+    private String headerName = "Authorization";
+    // 请求头中 token 的前缀，为空时整个请求头即为 token
+    private String headerPrefix = "Bearer ";
+    // 携带 token 的查询参数，为空时不从查询参数读取
+    private String queryParameter = "trusta_token";
+    // 是否将认证结果保存在会话中，同一会话后续的请求不再验证签名
+    private boolean sessionCaching = true;
+
+    public String getHeaderName() {
+        return headerName;
+    }
+
+    public SecurityFilterProperties setHeaderName(String headerName) {
+        this.headerName = headerName;
+        return this;
+    }
+
+    public String getHeaderPrefix() {
+        return headerPrefix;
+    }
+
+    public SecurityFilterProperties setHeaderPrefix(String headerPrefix) {
+        this.headerPrefix = headerPrefix;
+        return this;
+    }
+
+    public String getQueryParameter() {
+        return queryParameter;
+    }
+
+    public SecurityFilterProperties setQueryParameter(String queryParameter) {
+        this.queryParameter = queryParameter;
+        return this;
+    }
+
+    public boolean isSessionCaching() {
+        return sessionCaching;
+    }
+
+    public SecurityFilterProperties setSessionCaching(boolean sessionCaching) {
+        this.sessionCaching = sessionCaching;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SecurityFilterProperties that = (SecurityFilterProperties) o;
+        return sessionCaching == that.sessionCaching &&
+                Objects.equals(headerName, that.headerName) &&
+                Objects.equals(headerPrefix, that.headerPrefix) &&
+                Objects.equals(queryParameter, that.queryParameter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(headerName, headerPrefix, queryParameter, sessionCaching);
+    }
+
+    @Override
+    public String toString() {
+        return "SecurityFilterProperties{" +
+                "headerName='" + headerName + '\'' +
+                ", headerPrefix='" + headerPrefix + '\'' +
+                ", queryParameter='" + queryParameter + '\'' +
+                ", sessionCaching=" + sessionCaching +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class SharedStateProperties {
+    // 共享状态的实现，MEMORY 只在当前进程内有效，FILE 保存在多个节点均可访问的目录中
+    private Type type = Type.MEMORY;
+    // FILE 实现使用的目录
+    private String directory = ".trusta/shared-state";
+    // 其他节点获取的公钥集在该时间内可以直接采用，无需再次请求签发者
+    private Duration keysetMaxAge = Duration.ofMinutes(5);
+
+    public Type getType() {
+        return type;
+    }
+
+    public SharedStateProperties setType(Type type) {
+        this.type = type;
+        return this;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public SharedStateProperties setDirectory(String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public Duration getKeysetMaxAge() {
+        return keysetMaxAge;
+    }
+
+    public SharedStateProperties setKeysetMaxAge(Duration keysetMaxAge) {
+        this.keysetMaxAge = keysetMaxAge;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SharedStateProperties that = (SharedStateProperties) o;
+        return type == that.type &&
+                Objects.equals(directory, that.directory) &&
+                Objects.equals(keysetMaxAge, that.keysetMaxAge);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, directory, keysetMaxAge);
+    }
+
+    @Override
+    public String toString() {
+        return "SharedStateProperties{" +
+                "type=" + type +
+                ", directory='" + directory + '\'' +
+                ", keysetMaxAge=" + keysetMaxAge +
+                '}';
+    }
+
+    public enum Type {
+        MEMORY,
+        FILE
+    }
+}
@@ -22,6 +22,78 @@ public class TrustaProperties {
      */
     private boolean allowHttp = false;
     private List<TrustedIssuer> trustedIssuers = Collections.emptyList();
+    /**
+     * 已验证 token 缓存
+     */
+    private VerifiedTokenCacheProperties verifiedTokenCache = new VerifiedTokenCacheProperties();
+    /**
+     * 对端公钥集后台刷新
+     */
+    private KeyRefreshProperties keyRefresh = new KeyRefreshProperties();
+    /**
+     * 启动时获取对端公钥集
+     */
+    private BootstrapProperties bootstrap = new BootstrapProperties();
+    /**
+     * 验证失败时按需刷新对端公钥集
+     */
+    private OnDemandRefreshProperties onDemandRefresh = new OnDemandRefreshProperties();
+    /**
+     * 对端公钥集本地缓存
+     */
+    private JwksCacheProperties jwksCache = new JwksCacheProperties();
+    /**
+     * 批量验证配置
+     */
+    private BatchProperties batch = new BatchProperties();
+    /**
+     * 公钥端点配置
+     */
+    private JwksEndpointProperties jwksEndpoint = new JwksEndpointProperties();
+    /**
+     * 已签发 token 复用配置
+     */
+    private IssuedTokenCacheProperties issuedTokenCache = new IssuedTokenCacheProperties();
+    /**
+     * 签名私钥轮换配置
+     */
+    private KeyRotationProperties keyRotation = new KeyRotationProperties();
+    /**
+     * 重放保护配置，是否开启由可信签发者各自声明
+     */
+    private ReplayProtectionProperties replayProtection = new ReplayProtectionProperties();
+    /**
+     * 多节点共享的公钥集、验证结果与 jti
+     */
+    private SharedStateProperties sharedState = new SharedStateProperties();
+    /**
+     * token 的最大长度，超过该长度的 token 不经解析直接拒绝
+     */
+    private int maxTokenLength = 8192;
+    /**
+     * Spring Security 认证过滤器配置
+     */
+    private SecurityFilterProperties securityFilter = new SecurityFilterProperties();
+    /**
+     * 验证失败 token 缓存配置
+     */
+    private NegativeCacheProperties negativeCache = new NegativeCacheProperties();
+    /**
+     * 按签发者限制验证失败集中时的签名验证次数
+     */
+    private FailureThrottleProperties failureThrottle = new FailureThrottleProperties();
+    /**
+     * 公钥集获取的超时、退避与熔断配置
+     */
+    private KeyFetchProperties keyFetch = new KeyFetchProperties();
+    /**
+     * 健康检查配置
+     */
+    private HealthProperties health = new HealthProperties();
+    /**
+     * 不重启应用重新加载可信签发者与私钥集的配置
+     */
+    private ReloadProperties reload = new ReloadProperties();
 
     public String getPrivateKeysetFile() {
         return privateKeysetFile;
@@ -55,6 +127,150 @@ public class TrustaProperties {
         this.trustedIssuers = trustedIssuers;
     }
 
+    public VerifiedTokenCacheProperties getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
+    public void setVerifiedTokenCache(VerifiedTokenCacheProperties verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    public KeyRefreshProperties getKeyRefresh() {
+        return keyRefresh;
+    }
+
+    public void setKeyRefresh(KeyRefreshProperties keyRefresh) {
+        this.keyRefresh = keyRefresh;
+    }
+
+    public BootstrapProperties getBootstrap() {
+        return bootstrap;
+    }
+
+    public void setBootstrap(BootstrapProperties bootstrap) {
+        this.bootstrap = bootstrap;
+    }
+
+    public OnDemandRefreshProperties getOnDemandRefresh() {
+        return onDemandRefresh;
+    }
+
+    public void setOnDemandRefresh(OnDemandRefreshProperties onDemandRefresh) {
+        this.onDemandRefresh = onDemandRefresh;
+    }
+
+    public JwksCacheProperties getJwksCache() {
+        return jwksCache;
+    }
+
+    public void setJwksCache(JwksCacheProperties jwksCache) {
+        this.jwksCache = jwksCache;
+    }
+
+    public BatchProperties getBatch() {
+        return batch;
+    }
+
+    public void setBatch(BatchProperties batch) {
+        this.batch = batch;
+    }
+
+    public JwksEndpointProperties getJwksEndpoint() {
+        return jwksEndpoint;
+    }
+
+    public void setJwksEndpoint(JwksEndpointProperties jwksEndpoint) {
+        this.jwksEndpoint = jwksEndpoint;
+    }
+
+    public IssuedTokenCacheProperties getIssuedTokenCache() {
+        return issuedTokenCache;
+    }
+
+    public void setIssuedTokenCache(IssuedTokenCacheProperties issuedTokenCache) {
+        this.issuedTokenCache = issuedTokenCache;
+    }
+
+    public KeyRotationProperties getKeyRotation() {
+        return keyRotation;
+    }
+
+    public void setKeyRotation(KeyRotationProperties keyRotation) {
+        this.keyRotation = keyRotation;
+    }
+
+    public ReplayProtectionProperties getReplayProtection() {
+        return replayProtection;
+    }
+
+    public void setReplayProtection(ReplayProtectionProperties replayProtection) {
+        this.replayProtection = replayProtection;
+    }
+
+    public SharedStateProperties getSharedState() {
+        return sharedState;
+    }
+
+    public void setSharedState(SharedStateProperties sharedState) {
+        this.sharedState = sharedState;
+    }
+
+    public int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    public void setMaxTokenLength(int maxTokenLength) {
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    public SecurityFilterProperties getSecurityFilter() {
+        return securityFilter;
+    }
+
+    public void setSecurityFilter(SecurityFilterProperties securityFilter) {
+        this.securityFilter = securityFilter;
+    }
+
+    public NegativeCacheProperties getNegativeCache() {
+        return negativeCache;
+    }
+
+    public void setNegativeCache(NegativeCacheProperties negativeCache) {
+        this.negativeCache = negativeCache;
+    }
+
+    public FailureThrottleProperties getFailureThrottle() {
+        return failureThrottle;
+    }
+
+    public void setFailureThrottle(FailureThrottleProperties failureThrottle) {
+        this.failureThrottle = failureThrottle;
+    }
+
+    public KeyFetchProperties getKeyFetch() {
+        return keyFetch;
+    }
+
+    public void setKeyFetch(KeyFetchProperties keyFetch) {
+        this.keyFetch = keyFetch;
+    }
+
+    public HealthProperties getHealth() {
+        return health;
+    }
+
+    public void setHealth(HealthProperties health) {
+        this.health = health;
+    }
+
+    public ReloadProperties getReload() {
+        return reload;
+    }
+
+    public void setReload(ReloadProperties reload) {
+        this.reload = reload;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -63,12 +279,30 @@ public class TrustaProperties {
         return allowHttp == that.allowHttp &&
                 Objects.equals(privateKeysetFile, that.privateKeysetFile) &&
                 Objects.equals(issuer, that.issuer) &&
-                Objects.equals(trustedIssuers, that.trustedIssuers);
+                Objects.equals(trustedIssuers, that.trustedIssuers) &&
+                Objects.equals(verifiedTokenCache, that.verifiedTokenCache) &&
+                Objects.equals(keyRefresh, that.keyRefresh) &&
+                Objects.equals(bootstrap, that.bootstrap) &&
+                Objects.equals(onDemandRefresh, that.onDemandRefresh) &&
+                Objects.equals(jwksCache, that.jwksCache) &&
+                Objects.equals(batch, that.batch) &&
+                Objects.equals(jwksEndpoint, that.jwksEndpoint) &&
+                Objects.equals(issuedTokenCache, that.issuedTokenCache) &&
+                Objects.equals(keyRotation, that.keyRotation) &&
+                Objects.equals(replayProtection, that.replayProtection) &&
+                Objects.equals(sharedState, that.sharedState) &&
+                maxTokenLength == that.maxTokenLength &&
+                Objects.equals(securityFilter, that.securityFilter) &&
+                Objects.equals(negativeCache, that.negativeCache) &&
+                Objects.equals(failureThrottle, that.failureThrottle) &&
+                Objects.equals(keyFetch, that.keyFetch) &&
+                Objects.equals(health, that.health) &&
+                Objects.equals(reload, that.reload);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(privateKeysetFile, issuer, allowHttp, trustedIssuers);
+        return Objects.hash(privateKeysetFile, issuer, allowHttp, trustedIssuers, verifiedTokenCache, keyRefresh, bootstrap, onDemandRefresh, jwksCache, batch, jwksEndpoint, issuedTokenCache, keyRotation, replayProtection, sharedState, maxTokenLength, securityFilter, negativeCache, failureThrottle, keyFetch, health, reload);
     }
 
     @Override
@@ -78,6 +312,24 @@ public class TrustaProperties {
                 ", issuer='" + issuer + '\'' +
                 ", allowHttp=" + allowHttp +
                 ", trustedIssuers=" + trustedIssuers +
+                ", verifiedTokenCache=" + verifiedTokenCache +
+                ", keyRefresh=" + keyRefresh +
+                ", bootstrap=" + bootstrap +
+                ", onDemandRefresh=" + onDemandRefresh +
+                ", jwksCache=" + jwksCache +
+                ", batch=" + batch +
+                ", jwksEndpoint=" + jwksEndpoint +
+                ", issuedTokenCache=" + issuedTokenCache +
+                ", keyRotation=" + keyRotation +
+                ", replayProtection=" + replayProtection +
+                ", sharedState=" + sharedState +
+                ", maxTokenLength=" + maxTokenLength +
+                ", securityFilter=" + securityFilter +
+                ", negativeCache=" + negativeCache +
+                ", failureThrottle=" + failureThrottle +
+                ", keyFetch=" + keyFetch +
+                ", health=" + health +
+                ", reload=" + reload +
                 '}';
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package cc.ddrpa.dorian.trusta.properties;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -16,6 +17,8 @@ public class TrustedIssuer {
     // subject 字段映射，不支持 JWT 关键字，未配置或配置错误时回落到使用 sub 字段
     private String subject;
     private Map<String, String> claimMapping = Collections.emptyMap();
+    // 是否拒绝重放的 token，开启后 token 必须携带 jti，同一 jti 在有效期内只能验证一次
+    private boolean replayProtection = false;
 
     public TrustedIssuer() {
     }
@@ -29,6 +32,21 @@ public class TrustedIssuer {
         this.claimMapping = claimMapping;
     }
 
+    /**
+     * 复制配置，用于保存运行中的签发者配置，不受之后对原对象的修改影响
+     *
+     * @param other configuration to copy
+     */
+    public TrustedIssuer(TrustedIssuer other) {
+        this.issuer = other.issuer;
+        this.publicKeyUri = other.publicKeyUri;
+        this.expectAudience = other.expectAudience;
+        this.customAudience = other.customAudience;
+        this.subject = other.subject;
+        this.claimMapping = Objects.isNull(other.claimMapping) ? null : new LinkedHashMap<>(other.claimMapping);
+        this.replayProtection = other.replayProtection;
+    }
+
     public String getIssuer() {
         return issuer;
     }
@@ -83,12 +101,22 @@ public class TrustedIssuer {
         return this;
     }
 
+    public boolean isReplayProtection() {
+        return replayProtection;
+    }
+
+    public TrustedIssuer setReplayProtection(boolean replayProtection) {
+        this.replayProtection = replayProtection;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TrustedIssuer that = (TrustedIssuer) o;
         return expectAudience == that.expectAudience &&
+                replayProtection == that.replayProtection &&
                 Objects.equals(issuer, that.issuer) &&
                 Objects.equals(publicKeyUri, that.publicKeyUri) &&
                 Objects.equals(customAudience, that.customAudience) &&
@@ -98,7 +126,7 @@ public class TrustedIssuer {
 
     @Override
     public int hashCode() {
-        return Objects.hash(issuer, publicKeyUri, expectAudience, customAudience, subject, claimMapping);
+        return Objects.hash(issuer, publicKeyUri, expectAudience, customAudience, subject, claimMapping, replayProtection);
     }
 
     @Override
@@ -110,6 +138,7 @@ public class TrustedIssuer {
                 ", customAudience='" + customAudience + '\'' +
                 ", subject='" + subject + '\'' +
                 ", claimMapping=" + claimMapping +
+                ", replayProtection=" + replayProtection +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package cc.ddrpa.dorian.trusta.properties;
+
+import java.util.Objects;
+
+public class VerifiedTokenCacheProperties {
+    // 是否缓存已验证的 token
+    private boolean enabled = false;
+    // 最多缓存的 token 数量
+    private int maximumSize = 10000;
+    // 是否统计命中率及淘汰次数
+    private boolean recordStats = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public VerifiedTokenCacheProperties setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public VerifiedTokenCacheProperties setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    public VerifiedTokenCacheProperties setRecordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifiedTokenCacheProperties that = (VerifiedTokenCacheProperties) o;
+        return enabled == that.enabled &&
+                maximumSize == that.maximumSize &&
+                recordStats == that.recordStats;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, maximumSize, recordStats);
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedTokenCacheProperties{" +
+                "enabled=" + enabled +
+                ", maximumSize=" + maximumSize +
+                ", recordStats=" + recordStats +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+package cc.ddrpa.dorian.trusta.reactive;
+
+import cc.ddrpa.dorian.trusta.PublicKeysetDocument;
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive facade of {@link TrustaManager} for WebFlux applications.
+ * <p>
+ * Verification never blocks the subscribing thread: waiting for an on-demand key refresh is
+ * done asynchronously, and with a shared state that may block, such as the file based one, the
+ * verification is subscribed on {@link Schedulers#boundedElastic()}.
+ */
+public class ReactiveTrustaManager {
+
+    /**
+     * Path of the public keyset endpoint.
+     */
+    public static final String PUBLIC_KEYSET_PATH = "/.well-known/trusta/jwks.json";
+
+    private final TrustaManager trustaManager;
+
+    public ReactiveTrustaManager(TrustaManager trustaManager) {
+        this.trustaManager = trustaManager;
+    }
+
+    /**
+     * 验证和解析 JWT，验证在订阅时进行
+     *
+     * @param signedToken signed token
+     * @return verified claims, or an error signal with the exception {@link TrustaManager#verify(String)} would throw
+     */
+    public Mono<VerifiedClaims> verify(String signedToken) {
+        Mono<VerifiedClaims> verification = Mono.fromFuture(() -> trustaManager.verifyAsync(signedToken));
+        // 查找其他节点的验证结果与记录 jti 在订阅线程上进行，可能阻塞时不占用事件循环线程
+        return trustaManager.isSharedStateBlocking()
+                ? verification.subscribeOn(Schedulers.boundedElastic())
+                : verification;
+    }
+
+    /**
+     * Route serving the public keyset of the current issuer.
+     *
+     * @return router function for {@link #PUBLIC_KEYSET_PATH}
+     */
+    public RouterFunction<ServerResponse> publicKeysetRoute() {
+        return RouterFunctions.route()
+                .GET(PUBLIC_KEYSET_PATH, this::publicKeyset)
+                .build();
+    }
+
+    /**
+     * 返回预先编码的公钥集，客户端缓存仍然有效时返回 304
+     *
+     * @param request server request
+     * @return response
+     */
+    private Mono<ServerResponse> publicKeyset(ServerRequest request) {
+        PublicKeysetDocument document = trustaManager.getPublicKeysetDocument();
+        HttpHeaders requestHeaders = request.headers().asHttpHeaders();
+        if (document.isNotModified(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH),
+                requestHeaders.getFirst(HttpHeaders.IF_MODIFIED_SINCE))) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .headers(headers -> cachingHeaders(headers, document))
+                    .build();
+        }
+        boolean gzip = document.acceptsGzip(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        byte[] body = gzip ? document.getGzipBody() : document.getBody();
+        return ServerResponse.ok()
+                .headers(headers -> {
+                    cachingHeaders(headers, document);
+                    if (gzip) {
+                        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .bodyValue(body);
+    }
+
+    private static void cachingHeaders(HttpHeaders headers, PublicKeysetDocument document) {
+        headers.set(HttpHeaders.ETAG, document.getEtag());
+        headers.set(HttpHeaders.LAST_MODIFIED, document.getLastModifiedHeader());
+        headers.set(HttpHeaders.CACHE_CONTROL, document.getCacheControl());
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    public TrustaManager getTrustaManager() {
+        return trustaManager;
+    }
+}
@@ -0,0 +1,181 @@
+package cc.ddrpa.dorian.trusta.security;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import cc.ddrpa.dorian.trusta.properties.SecurityFilterProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.session.ChangeSessionIdAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.NullAuthenticatedSessionStrategy;
+import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Authenticates requests that carry a Trusta token in a header or a query parameter.
+ * <p>
+ * Requests without a token pass through unchanged. If the session already holds the authentication of
+ * the same token, the token is not verified again, unless it has expired or its issuer is no longer trusted
+ * since then; such a token is verified again, which rejects it and removes it from the session. Tokens that are too long are rejected before they are
+ * hashed; malformed, expired and unknown-issuer tokens are rejected by {@code TrustaManager} before any
+ * signature is checked. A rejected token ends the request with 401.
+ */
+public class TrustaAuthenticationFilter extends OncePerRequestFilter {
+
+    private final AuthenticationManager authenticationManager;
+    private final TrustaManager trustaManager;
+    private final String headerName;
+    private final String headerPrefix;
+    private final String queryParameter;
+    private final int maxTokenLength;
+    private SecurityContextRepository securityContextRepository;
+    private SessionAuthenticationStrategy sessionAuthenticationStrategy;
+    private AuthenticationEntryPoint authenticationEntryPoint = new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED);
+    private SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+
+    /**
+     * Create a new TrustaAuthenticationFilter.
+     *
+     * @param authenticationManager authenticates {@link TrustaAuthenticationToken}s
+     * @param trustaManager         decides whether the issuer of an authentication kept in the session is still trusted
+     * @param properties            where to read the token from and whether to keep the result in the session
+     * @param maxTokenLength        tokens longer than this are rejected without being processed
+     */
+    public TrustaAuthenticationFilter(AuthenticationManager authenticationManager, TrustaManager trustaManager,
+                                      SecurityFilterProperties properties, int maxTokenLength) {
+        this.authenticationManager = authenticationManager;
+        this.trustaManager = Objects.requireNonNull(trustaManager);
+        this.headerName = properties.getHeaderName();
+        this.headerPrefix = Objects.requireNonNullElse(properties.getHeaderPrefix(), "");
+        this.queryParameter = properties.getQueryParameter();
+        this.maxTokenLength = maxTokenLength;
+        if (properties.isSessionCaching()) {
+            this.securityContextRepository = new HttpSessionSecurityContextRepository();
+            // 认证主体变化时更换会话 ID，防止会话固定
+            this.sessionAuthenticationStrategy = new ChangeSessionIdAuthenticationStrategy();
+        } else {
+            this.securityContextRepository = new RequestAttributeSecurityContextRepository();
+            this.sessionAuthenticationStrategy = new NullAuthenticatedSessionStrategy();
+        }
+    }
+
+    public TrustaAuthenticationFilter setSecurityContextRepository(SecurityContextRepository securityContextRepository) {
+        this.securityContextRepository = Objects.requireNonNull(securityContextRepository);
+        return this;
+    }
+
+    public TrustaAuthenticationFilter setSessionAuthenticationStrategy(
+            SessionAuthenticationStrategy sessionAuthenticationStrategy) {
+        this.sessionAuthenticationStrategy = Objects.requireNonNull(sessionAuthenticationStrategy);
+        return this;
+    }
+
+    public TrustaAuthenticationFilter setAuthenticationEntryPoint(AuthenticationEntryPoint authenticationEntryPoint) {
+        this.authenticationEntryPoint = Objects.requireNonNull(authenticationEntryPoint);
+        return this;
+    }
+
+    public TrustaAuthenticationFilter setSecurityContextHolderStrategy(
+            SecurityContextHolderStrategy securityContextHolderStrategy) {
+        this.securityContextHolderStrategy = Objects.requireNonNull(securityContextHolderStrategy);
+        return this;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String signedToken = resolveToken(request);
+        if (Objects.isNull(signedToken)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            if (signedToken.length() > maxTokenLength) {
+                throw new BadCredentialsException("Trusta token rejected: malformed");
+            }
+            TrustaAuthenticationToken authenticationRequest = TrustaAuthenticationToken.unauthenticated(signedToken);
+            Authentication current = securityContextHolderStrategy.getContext().getAuthentication();
+            if (!isReusable(current, authenticationRequest)) {
+                Authentication authentication = authenticationManager.authenticate(authenticationRequest);
+                sessionAuthenticationStrategy.onAuthentication(authentication, request, response);
+                SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+                context.setAuthentication(authentication);
+                securityContextHolderStrategy.setContext(context);
+                securityContextRepository.saveContext(context, request, response);
+            }
+        } catch (AuthenticationException e) {
+            securityContextHolderStrategy.clearContext();
+            // 同时移除会话中保存的认证结果
+            securityContextRepository.saveContext(securityContextHolderStrategy.createEmptyContext(), request, response);
+            authenticationEntryPoint.commence(request, response, e);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * 会话中已有同一 token 的认证结果，且 token 尚未过期、签发者仍然可信时不再验证签名
+     *
+     * @param current               authentication loaded from the session
+     * @param authenticationRequest authentication request of the current token
+     * @return true if the current authentication can be kept
+     */
+    private boolean isReusable(Authentication current, TrustaAuthenticationToken authenticationRequest) {
+        if (!(current instanceof TrustaAuthenticationToken existing)
+                || !existing.isAuthenticated()
+                || !authenticationRequest.getTokenDigest().equals(existing.getTokenDigest())) {
+            return false;
+        }
+        VerifiedClaims verifiedClaims = existing.getPrincipal();
+        if (Objects.nonNull(verifiedClaims.getExpiration()) && !verifiedClaims.getExpiration().isAfter(Instant.now())) {
+            return false;
+        }
+        // 签发者可能已在重新加载配置时被移除
+        return trustaManager.getTrustedIssuers().contains(verifiedClaims.getIssuer());
+    }
+
+    /**
+     * 依次从请求头与查询参数读取 token
+     *
+     * @param request HTTP request
+     * @return signed token, or null if the request carries none
+     */
+    private String resolveToken(HttpServletRequest request) {
+        if (StringUtils.hasText(headerName)) {
+            String header = request.getHeader(headerName);
+            if (Objects.nonNull(header) && header.regionMatches(true, 0, headerPrefix, 0, headerPrefix.length())) {
+                String token = header.substring(headerPrefix.length()).trim();
+                if (!token.isEmpty()) {
+                    return token;
+                }
+            }
+        }
+        if (StringUtils.hasText(queryParameter)) {
+            String token = request.getParameter(queryParameter);
+            if (StringUtils.hasText(token)) {
+                return token.trim();
+            }
+        }
+        return null;
+    }
+}
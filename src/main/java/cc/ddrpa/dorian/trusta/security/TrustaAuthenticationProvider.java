@@ -0,0 +1,76 @@
+package cc.ddrpa.dorian.trusta.security;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import cc.ddrpa.dorian.trusta.VerifyOutcome;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Authenticates {@link TrustaAuthenticationToken}s with {@link TrustaManager#verify(String)}.
+ * <p>
+ * Failures are reported as {@link CredentialsExpiredException} for expired tokens,
+ * {@link AuthenticationServiceException} when the issuer's keyset is not available yet or its verification
+ * is throttled, and {@link BadCredentialsException} otherwise.
+ */
+public class TrustaAuthenticationProvider implements AuthenticationProvider {
+
+    private final TrustaManager trustaManager;
+    private Function<VerifiedClaims, Collection<? extends GrantedAuthority>> authoritiesMapper = claims -> List.of();
+
+    public TrustaAuthenticationProvider(TrustaManager trustaManager) {
+        this.trustaManager = trustaManager;
+    }
+
+    /**
+     * 设置根据验证结果授予权限的方式，默认不授予任何权限
+     *
+     * @param authoritiesMapper maps verified claims to granted authorities
+     * @return this
+     */
+    public TrustaAuthenticationProvider setAuthoritiesMapper(
+            Function<VerifiedClaims, Collection<? extends GrantedAuthority>> authoritiesMapper) {
+        this.authoritiesMapper = Objects.requireNonNull(authoritiesMapper);
+        return this;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        TrustaAuthenticationToken request = (TrustaAuthenticationToken) authentication;
+        VerifiedClaims verifiedClaims;
+        try {
+            verifiedClaims = trustaManager.verify(request.getCredentials());
+        } catch (GeneralSecurityException | IOException | RuntimeException e) {
+            throw translate(e);
+        }
+        return TrustaAuthenticationToken.authenticated(request.getTokenDigest(), verifiedClaims,
+                authoritiesMapper.apply(verifiedClaims));
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return TrustaAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    private static AuthenticationException translate(Exception e) {
+        VerifyOutcome outcome = VerifyOutcome.classify(e);
+        String message = "Trusta token rejected: " + outcome.getTagValue();
+        return switch (outcome) {
+            case EXPIRED -> new CredentialsExpiredException(message, e);
+            case KEY_NOT_READY, THROTTLED, OTHER -> new AuthenticationServiceException(message, e);
+            default -> new BadCredentialsException(message, e);
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package cc.ddrpa.dorian.trusta.security;
+
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link org.springframework.security.core.Authentication} backed by a Trusta token.
+ * <p>
+ * Before authentication it carries the signed token. Once authenticated the principal is the
+ * {@link VerifiedClaims} of the token, and only a digest of the token is kept, so the signed token
+ * itself is never stored in the session.
+ */
+public class TrustaAuthenticationToken extends AbstractAuthenticationToken {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String signedToken;
+    private final String tokenDigest;
+    private final VerifiedClaims verifiedClaims;
+
+    private TrustaAuthenticationToken(String signedToken, String tokenDigest, VerifiedClaims verifiedClaims,
+                                      Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.signedToken = signedToken;
+        this.tokenDigest = tokenDigest;
+        this.verifiedClaims = verifiedClaims;
+    }
+
+    /**
+     * 创建待验证的认证请求
+     *
+     * @param signedToken signed token
+     * @return unauthenticated token
+     */
+    public static TrustaAuthenticationToken unauthenticated(String signedToken) {
+        return new TrustaAuthenticationToken(Objects.requireNonNull(signedToken), digest(signedToken), null, List.of());
+    }
+
+    /**
+     * 创建验证通过的认证结果
+     *
+     * @param tokenDigest    digest of the verified token, see {@link #digest(String)}
+     * @param verifiedClaims verified claims
+     * @param authorities    granted authorities
+     * @return authenticated token
+     */
+    public static TrustaAuthenticationToken authenticated(String tokenDigest, VerifiedClaims verifiedClaims,
+                                                          Collection<? extends GrantedAuthority> authorities) {
+        TrustaAuthenticationToken authentication = new TrustaAuthenticationToken(null, tokenDigest,
+                Objects.requireNonNull(verifiedClaims), authorities);
+        authentication.setAuthenticated(true);
+        return authentication;
+    }
+
+    /**
+     * 计算 token 的摘要，用于判断会话中的认证结果是否来自同一个 token
+     *
+     * @param signedToken signed token
+     * @return hex encoded SHA-256 digest
+     */
+    public static String digest(String signedToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(signedToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Get the signed token.
+     *
+     * @return signed token, null once authenticated
+     */
+    @Override
+    public String getCredentials() {
+        return signedToken;
+    }
+
+    /**
+     * Get the verified claims.
+     *
+     * @return verified claims, null before authentication
+     */
+    @Override
+    public VerifiedClaims getPrincipal() {
+        return verifiedClaims;
+    }
+
+    @Override
+    public String getName() {
+        return Objects.isNull(verifiedClaims) ? "" : verifiedClaims.getSubject();
+    }
+
+    public String getTokenDigest() {
+        return tokenDigest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        TrustaAuthenticationToken that = (TrustaAuthenticationToken) o;
+        return Objects.equals(tokenDigest, that.tokenDigest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), tokenDigest);
+    }
+}
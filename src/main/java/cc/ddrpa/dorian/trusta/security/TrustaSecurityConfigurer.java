@@ -0,0 +1,50 @@
+package cc.ddrpa.dorian.trusta.security;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+
+import java.util.Objects;
+
+/**
+ * Adds the auto-configured {@link TrustaAuthenticationFilter} to a security filter chain.
+ * <pre>{@code
+ * http.with(TrustaSecurityConfigurer.trusta(), Customizer.withDefaults());
+ * }</pre>
+ * The filter runs before anonymous authentication, so requests with a valid token are authenticated
+ * by the time authorization rules are applied.
+ */
+public class TrustaSecurityConfigurer extends AbstractHttpConfigurer<TrustaSecurityConfigurer, HttpSecurity> {
+
+    private TrustaAuthenticationFilter authenticationFilter;
+
+    /**
+     * 使用自动配置的 {@link TrustaAuthenticationFilter}
+     *
+     * @return new configurer
+     */
+    public static TrustaSecurityConfigurer trusta() {
+        return new TrustaSecurityConfigurer();
+    }
+
+    /**
+     * 使用给定的过滤器代替自动配置的过滤器
+     *
+     * @param authenticationFilter filter to add
+     * @return this
+     */
+    public TrustaSecurityConfigurer authenticationFilter(TrustaAuthenticationFilter authenticationFilter) {
+        this.authenticationFilter = authenticationFilter;
+        return this;
+    }
+
+    @Override
+    public void configure(HttpSecurity http) {
+        TrustaAuthenticationFilter filter = this.authenticationFilter;
+        if (Objects.isNull(filter)) {
+            filter = http.getSharedObject(ApplicationContext.class).getBean(TrustaAuthenticationFilter.class);
+        }
+        http.addFilterBefore(filter, AnonymousAuthenticationFilter.class);
+    }
+}
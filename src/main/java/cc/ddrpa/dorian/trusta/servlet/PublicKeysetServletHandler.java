@@ -0,0 +1,83 @@
+package cc.ddrpa.dorian.trusta.servlet;
+
+import cc.ddrpa.dorian.trusta.PublicKeysetDocument;
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+
+/**
+ * Serves the public keyset of the current issuer in servlet applications.
+ */
+public class PublicKeysetServletHandler {
+
+    /**
+     * Path of the public keyset endpoint.
+     */
+    public static final String PUBLIC_KEYSET_PATH = "/.well-known/trusta/jwks.json";
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicKeysetServletHandler.class);
+    private final TrustaManager trustaManager;
+
+    public PublicKeysetServletHandler(TrustaManager trustaManager) {
+        this.trustaManager = trustaManager;
+    }
+
+    /**
+     * Expose the public key set as a JSON response through an HTTP endpoint.
+     * <p>
+     * 直接写出预先编码的内容，客户端缓存仍然有效时返回 304。
+     *
+     * @param request  the HTTP servlet request
+     * @param response the HTTP servlet response
+     */
+    public void exposePublicKeyThroughEndpoint(HttpServletRequest request, HttpServletResponse response) {
+        PublicKeysetDocument document = trustaManager.getPublicKeysetDocument();
+        response.setHeader("ETag", document.getEtag());
+        response.setHeader("Last-Modified", document.getLastModifiedHeader());
+        response.setHeader("Cache-Control", document.getCacheControl());
+        response.setHeader("Vary", "Accept-Encoding");
+        if (document.isNotModified(request.getHeader("If-None-Match"), request.getHeader("If-Modified-Since"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body;
+        if (document.acceptsGzip(request.getHeader("Accept-Encoding"))) {
+            response.setHeader("Content-Encoding", "gzip");
+            body = document.getGzipBody();
+        } else {
+            body = document.getBody();
+        }
+        response.setContentType("application/json;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.setStatus(HttpServletResponse.SC_OK);
+        try {
+            response.getOutputStream().write(body);
+        } catch (IOException e) {
+            logger.error("Error writing public keyset to response", e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Route serving the public keyset of the current issuer.
+     * <p>
+     * 函数式路由不需要通过反射查找处理方法，在 AOT 处理和 native image 中同样可用。
+     *
+     * @return router function for {@link #PUBLIC_KEYSET_PATH}
+     */
+    public RouterFunction<ServerResponse> publicKeysetRoute() {
+        return RouterFunctions.route()
+                .GET(PUBLIC_KEYSET_PATH, request -> ServerResponse.ok().build((servletRequest, servletResponse) -> {
+                    exposePublicKeyThroughEndpoint(servletRequest, servletResponse);
+                    return null;
+                }))
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package cc.ddrpa.dorian.trusta.startup;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtEcdsaParameters;
+import com.google.crypto.tink.jwt.JwtPublicKeySign;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
+import com.google.crypto.tink.jwt.RawJwt;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Measures the time from process start to the first successfully verified token.
+ * <p>
+ * A stub issuer serving its public keyset on the loopback interface is started first, then the application
+ * context is started with that issuer as the only trusted issuer, and a token signed by the stub is verified
+ * until verification succeeds. Build and run the same class on the JVM and as a native image to compare:
+ * <pre>
+ * ./mvnw -Pnative compile exec:exec@startup
+ * ./mvnw -Pnative package -DskipTests &amp;&amp; target/trusta-startup
+ * </pre>
+ * Additional arguments are passed to Spring Boot, for example {@code --debug}.
+ */
+@SpringBootApplication
+public class StartupBenchmarkApplication {
+
+    private static final String STUB_ISSUER = "startup.bench.local";
+    private static final String STUB_PATH = "/.well-known/trusta/jwks.json";
+    private static final Duration VERIFY_DEADLINE = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws Exception {
+        Instant processStart = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        Instant mainStart = Instant.now();
+
+        // 模拟的发行方，与应用在同一进程中，不计入应用的启动耗时
+        JwtSignatureConfig.register();
+        KeysetHandle stubKeyset = KeysetHandle.generateNew(JwtEcdsaParameters.builder()
+                .setAlgorithm(JwtEcdsaParameters.Algorithm.ES256)
+                .setKidStrategy(JwtEcdsaParameters.KidStrategy.BASE64_ENCODED_KEY_ID)
+                .build());
+        byte[] stubPublicKeyset = TinkJsonProtoKeysetFormat.serializeKeyset(
+                stubKeyset.getPublicKeysetHandle(), InsecureSecretKeyAccess.get()).getBytes(StandardCharsets.UTF_8);
+        JwtPublicKeySign stubSigner = stubKeyset.getPrimitive(RegistryConfiguration.get(), JwtPublicKeySign.class);
+        HttpServer stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.createContext(STUB_PATH, exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, stubPublicKeyset.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(stubPublicKeyset);
+            }
+        });
+        stubServer.start();
+        Path directory = Files.createTempDirectory("trusta-startup");
+        directory.toFile().deleteOnExit();
+
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--trusta.issuer=self.startup.bench.local",
+                "--trusta.allow-http=true",
+                "--trusta.private-keyset-file=" + directory.resolve("private-keyset.json"),
+                "--trusta.trusted-issuers[0].issuer=" + STUB_ISSUER,
+                "--trusta.trusted-issuers[0].public-key-uri=http://127.0.0.1:"
+                        + stubServer.getAddress().getPort() + STUB_PATH,
+                "--trusta.trusted-issuers[0].expect-audience=false"));
+        applicationArgs.addAll(List.of(args));
+        Instant now = Instant.now();
+        String signedToken = stubSigner.signAndEncode(RawJwt.newBuilder()
+                .setIssuer(STUB_ISSUER)
+                .setSubject("startup")
+                .setIssuedAt(now)
+                .setExpiration(now.plus(Duration.ofMinutes(5)))
+                .build());
+        Instant contextStart = Instant.now();
+
+        int exitCode;
+        try (ConfigurableApplicationContext context = SpringApplication.run(
+                StartupBenchmarkApplication.class, applicationArgs.toArray(new String[0]))) {
+            Instant contextReady = Instant.now();
+            TrustaManager trustaManager = context.getBean(TrustaManager.class);
+            Instant deadline = contextReady.plus(VERIFY_DEADLINE);
+            VerifiedClaims claims = null;
+            int attempts = 0;
+            Exception lastError = null;
+            while (Objects.isNull(claims) && Instant.now().isBefore(deadline)) {
+                attempts++;
+                try {
+                    claims = trustaManager.verify(signedToken);
+                } catch (Exception e) {
+                    lastError = e;
+                    Thread.sleep(10);
+                }
+            }
+            Instant firstVerify = Instant.now();
+            if (Objects.isNull(claims)) {
+                System.out.printf("No successful verify within %s after %d attempts, last error: %s%n",
+                        VERIFY_DEADLINE, attempts, lastError);
+                exitCode = 1;
+            } else {
+                System.out.printf("Runtime:                   %s%n",
+                        Objects.nonNull(System.getProperty("org.graalvm.nativeimage.imagecode")) ? "native image" : "JVM");
+                System.out.printf("Process start to main:     %d ms%n", millis(processStart, mainStart));
+                System.out.printf("Context startup:           %d ms%n", millis(contextStart, contextReady));
+                System.out.printf("Context ready to verify:   %d ms (%d attempts)%n",
+                        millis(contextReady, firstVerify), attempts);
+                System.out.printf("Process start to verify:   %d ms (excluding %d ms of stub issuer setup)%n",
+                        millis(processStart, firstVerify) - millis(mainStart, contextStart),
+                        millis(mainStart, contextStart));
+                exitCode = 0;
+            }
+        } finally {
+            stubServer.stop(0);
+        }
+        System.exit(exitCode);
+    }
+
+    private static long millis(Instant from, Instant to) {
+        return Duration.between(from, to).toMillis();
+    }
+}
@@ -0,0 +1,84 @@
+package cc.ddrpa.dorian.trusta;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicInteger evictions = new AtomicInteger();
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntries() {
+        BoundedCache<Integer, Long> cache = cache(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, Long.MAX_VALUE);
+        }
+        // 最早写入的两个条目最近被读取过，不应被淘汰
+        cache.get(0);
+        cache.get(1);
+
+        cache.put(10, Long.MAX_VALUE);
+
+        assertThat(cache.size()).isEqualTo(9);
+        assertThat(evictions).hasValue(2);
+        assertThat(cache.get(0)).isNotNull();
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(3)).isNull();
+        assertThat(cache.get(10)).isNotNull();
+    }
+
+    @Test
+    void dropsExpiredEntriesBeforeLiveOnes() {
+        BoundedCache<Integer, Long> cache = cache(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i < 5 ? 0L : Long.MAX_VALUE);
+        }
+
+        cache.put(10, Long.MAX_VALUE);
+
+        assertThat(cache.size()).isEqualTo(6);
+        assertThat(evictions).hasValue(5);
+        for (int i = 5; i <= 10; i++) {
+            assertThat(cache.get(i)).isNotNull();
+        }
+    }
+
+    @Test
+    void evictsOnlyOnceEveryTenthOfTheMaximumSize() {
+        BoundedCache<Integer, Long> cache = cache(100);
+        for (int i = 0; i <= 100; i++) {
+            cache.put(i, Long.MAX_VALUE);
+        }
+        assertThat(cache.size()).isEqualTo(90);
+
+        for (int i = 101; i < 111; i++) {
+            cache.put(i, Long.MAX_VALUE);
+        }
+
+        assertThat(cache.size()).isEqualTo(100);
+        assertThat(evictions).hasValue(11);
+    }
+
+    @Test
+    void removesOnlyTheValueReadEarlier() {
+        BoundedCache<Integer, Long> cache = cache(10);
+        Long stale = 1L;
+        Long current = 2L;
+        cache.put(0, stale);
+        cache.put(0, current);
+
+        assertThat(cache.remove(0, stale)).isFalse();
+        assertThat(cache.remove(0, current)).isTrue();
+        assertThat(cache.size()).isZero();
+    }
+
+    private BoundedCache<Integer, Long> cache(int maximumSize) {
+        return new BoundedCache<>(maximumSize, Long::longValue, evictions::incrementAndGet, ticks::incrementAndGet);
+    }
+}
@@ -0,0 +1,71 @@
+package cc.ddrpa.dorian.trusta;
+
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.jwt.JwtPublicKeySign;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IssuedTokenCacheTest {
+
+    private static final String ISSUER = "self.example.cc";
+
+    private JwtPublicKeySign jwtPublicKeySign;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JwtSignatureConfig.register();
+        jwtPublicKeySign = KeysetHandle.generateNew(SigningKeyRotator.keyParameters())
+                .getPrimitive(RegistryConfiguration.get(), JwtPublicKeySign.class);
+    }
+
+    @Test
+    void reusesTokensOfOtherAudiences() throws Exception {
+        JsonWebTokenSignerTemplate template = template(Set.of("protected.example.cc"));
+
+        assertThat(template.sign("subject", "plain.example.cc"))
+                .isEqualTo(template.sign("subject", "plain.example.cc"));
+    }
+
+    @Test
+    void neverReusesTokensOfReplayProtectedAudiences() throws Exception {
+        JsonWebTokenSignerTemplate template = template(Set.of("protected.example.cc"));
+
+        assertThat(template.sign("subject", "protected.example.cc"))
+                .isNotEqualTo(template.sign("subject", "protected.example.cc"));
+        // 任意受众的 token 也会被开启了重放保护的受众接受
+        assertThat(template.sign("subject", null)).isNotEqualTo(template.sign("subject", null));
+        assertThat(template.signForAudiences("subject", Set.of("protected.example.cc")))
+                .isNotEqualTo(template.signForAudiences("subject", Set.of("protected.example.cc")));
+    }
+
+    @Test
+    void uniqueJwtIdSkipsTheCache() throws Exception {
+        JsonWebTokenSignerTemplate template = template(Set.of()).withUniqueJwtId();
+        JsonWebTokenSigner signer = new JsonWebTokenSigner(jwtPublicKeySign, ISSUER, TrustaMetrics.NOOP,
+                new IssuedTokenCache(100, 0.5, false), null);
+
+        assertThat(template.sign("subject", "plain.example.cc"))
+                .isNotEqualTo(template.sign("subject", "plain.example.cc"));
+        assertThat(signer.setSubject("subject").setUniqueJwtId(true).sign())
+                .isNotEqualTo(signer.sign());
+    }
+
+    @Test
+    void wildcardDisablesReuseForAllAudiences() {
+        IssuedTokenCache cache = new IssuedTokenCache(100, 0.5, false, Set.of("*"));
+
+        assertThat(cache.isReusable("plain.example.cc")).isFalse();
+        assertThat(new IssuedTokenCache(100, 0.5, false).isReusable("*")).isTrue();
+    }
+
+    private JsonWebTokenSignerTemplate template(Set<String> replayProtectedAudiences) {
+        return new JsonWebTokenSignerTemplate(jwtPublicKeySign, ISSUER, TrustaMetrics.NOOP,
+                new IssuedTokenCache(100, 0.5, false, replayProtectedAudiences), null);
+    }
+}
@@ -0,0 +1,90 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.FailureThrottleProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IssuerFailureThrottleTest {
+
+    private static final String ISSUER = "issuer.example.cc";
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final IssuerFailureThrottle throttle = new IssuerFailureThrottle(new FailureThrottleProperties()
+            .setEnabled(true)
+            .setWindow(WINDOW)
+            .setMinFailures(5)
+            .setFailureRatio(0.5)
+            .setPermits(2), nanoTime::get);
+
+    @Test
+    void throttlesTheWindowAfterMostChecksFailed() {
+        check(10, 8);
+
+        nextWindow();
+
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.isThrottled(ISSUER)).isTrue();
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.tryAcquire(ISSUER)).isFalse();
+        assertThat(throttle.getThrottledIssuers()).containsExactly(ISSUER);
+    }
+
+    @Test
+    void doesNotThrottleBelowTheFailureThresholds() {
+        // 失败次数不足 min-failures
+        check(4, 4);
+        nextWindow();
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.isThrottled(ISSUER)).isFalse();
+
+        // 失败比例不足 failure-ratio
+        check(19, 6);
+        nextWindow();
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.isThrottled(ISSUER)).isFalse();
+    }
+
+    @Test
+    void stopsThrottlingOncePermittedChecksSucceed() {
+        check(10, 10);
+        nextWindow();
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.isThrottled(ISSUER)).isTrue();
+        throttle.record(ISSUER, false);
+
+        nextWindow();
+
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.isThrottled(ISSUER)).isFalse();
+    }
+
+    @Test
+    void ignoresStatisticsOfAnIdleIssuer() {
+        check(10, 10);
+
+        // 超过两个窗口没有请求
+        nanoTime.addAndGet(WINDOW.multipliedBy(3).toNanos());
+
+        assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+        assertThat(throttle.isThrottled(ISSUER)).isFalse();
+    }
+
+    /**
+     * 在当前窗口内验证 checks 个 token，其中 failures 个失败
+     */
+    private void check(int checks, int failures) {
+        for (int i = 0; i < checks; i++) {
+            assertThat(throttle.tryAcquire(ISSUER)).isTrue();
+            throttle.record(ISSUER, i < failures);
+        }
+    }
+
+    private void nextWindow() {
+        nanoTime.addAndGet(WINDOW.toNanos());
+    }
+}
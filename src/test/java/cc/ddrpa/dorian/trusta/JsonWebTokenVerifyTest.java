@@ -0,0 +1,111 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.RegistryConfiguration;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtPublicKeySign;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
+import com.google.crypto.tink.jwt.RawJwt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonWebTokenVerifyTest {
+
+    private static final String ISSUER = "issuer.example.cc";
+    private static final String SELF = "self.example.cc";
+
+    private JwtPublicKeySign jwtPublicKeySign;
+    private JsonWebTokenVerify verify;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JwtSignatureConfig.register();
+        KeysetHandle privateKeysetHandle = KeysetHandle.generateNew(SigningKeyRotator.keyParameters());
+        jwtPublicKeySign = privateKeysetHandle.getPrimitive(RegistryConfiguration.get(), JwtPublicKeySign.class);
+        verify = new JsonWebTokenVerify(new TrustedIssuer().setIssuer(ISSUER).setExpectAudience(true), SELF, false);
+        verify.restore(new PublicKeysetDiskCache.CachedKeyset(TinkJsonProtoKeysetFormat.serializeKeyset(
+                privateKeysetHandle.getPublicKeysetHandle(), InsecureSecretKeyAccess.get()), Instant.now(), null, null));
+    }
+
+    @Test
+    void classifiesExpiredTokensFromTheExpirationClaim() throws Exception {
+        String signedToken = sign(RawJwt.newBuilder()
+                .setIssuer(ISSUER)
+                .addAudience(SELF)
+                .setExpiration(Instant.now().minus(Duration.ofMinutes(1))));
+
+        assertOutcome(signedToken, VerifyOutcome.EXPIRED);
+    }
+
+    @Test
+    void classifiesTokensForOtherAudiencesFromTheAudienceClaim() throws Exception {
+        String signedToken = sign(RawJwt.newBuilder()
+                .setIssuer(ISSUER)
+                .addAudience("other.example.cc")
+                .setExpiration(Instant.now().plus(Duration.ofMinutes(5))));
+
+        assertOutcome(signedToken, VerifyOutcome.AUDIENCE_MISMATCH);
+        assertOutcome(sign(RawJwt.newBuilder()
+                .setIssuer(ISSUER)
+                .setExpiration(Instant.now().plus(Duration.ofMinutes(5)))), VerifyOutcome.AUDIENCE_MISMATCH);
+    }
+
+    @Test
+    void classifiesOtherClaimFailuresAsInvalidClaims() throws Exception {
+        String signedToken = sign(RawJwt.newBuilder()
+                .setIssuer(ISSUER)
+                .addAudience(SELF)
+                .setNotBefore(Instant.now().plus(Duration.ofMinutes(5)))
+                .setExpiration(Instant.now().plus(Duration.ofMinutes(10))));
+
+        assertOutcome(signedToken, VerifyOutcome.INVALID_CLAIMS);
+    }
+
+    @Test
+    void acceptsValidTokens() throws Exception {
+        String signedToken = sign(RawJwt.newBuilder()
+                .setIssuer(ISSUER)
+                .addAudience(SELF)
+                .setSubject("subject")
+                .setExpiration(Instant.now().plus(Duration.ofMinutes(5))));
+
+        assertThat(verify.verify(signedToken).getSubject()).isEqualTo("subject");
+        assertThat(verify.getVerifySuccessCount()).isEqualTo(1);
+    }
+
+    @Test
+    void countsTokensWhoseClaimsCannotBeExtractedAsFailures() throws Exception {
+        JsonWebTokenVerify customSubject = new JsonWebTokenVerify(new TrustedIssuer()
+                .setIssuer(ISSUER)
+                .setSubject("uid"), SELF, false);
+        customSubject.restore(verify.toCachedKeyset().orElseThrow());
+        String signedToken = sign(RawJwt.newBuilder()
+                .setIssuer(ISSUER)
+                .setSubject("subject")
+                .setExpiration(Instant.now().plus(Duration.ofMinutes(5))));
+
+        assertThatThrownBy(() -> customSubject.verify(signedToken))
+                .isInstanceOfSatisfying(InvalidClaimsException.class,
+                        e -> assertThat(e.getOutcome()).isEqualTo(VerifyOutcome.INVALID_CLAIMS));
+        assertThat(customSubject.getVerifySuccessCount()).isZero();
+        assertThat(customSubject.getVerifyFailureCount()).isEqualTo(1);
+    }
+
+    private void assertOutcome(String signedToken, VerifyOutcome outcome) {
+        assertThatThrownBy(() -> verify.verify(signedToken))
+                .isInstanceOfSatisfying(InvalidClaimsException.class,
+                        e -> assertThat(VerifyOutcome.classify(e)).isEqualTo(outcome));
+    }
+
+    private String sign(RawJwt.Builder builder) throws Exception {
+        return jwtPublicKeySign.signAndEncode(builder.build());
+    }
+}
@@ -0,0 +1,53 @@
+package cc.ddrpa.dorian.trusta;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JtiReplayGuardTest {
+
+    private final JtiReplayGuard guard = new JtiReplayGuard(4, Duration.ofSeconds(30));
+
+    @Test
+    void rejectsJwtIdSeenBefore() {
+        Instant expiration = Instant.now().plus(Duration.ofMinutes(5));
+
+        assertThat(guard.markIfAbsent("jti-1", expiration)).isTrue();
+        assertThat(guard.markIfAbsent("jti-2", expiration)).isTrue();
+        assertThat(guard.markIfAbsent("jti-1", expiration)).isFalse();
+        assertThat(guard.size()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotRecordExpiredTokens() {
+        Instant expiration = Instant.now().minusSeconds(1);
+
+        assertThat(guard.markIfAbsent("jti-1", expiration)).isTrue();
+        assertThat(guard.markIfAbsent("jti-1", expiration)).isTrue();
+        assertThat(guard.size()).isZero();
+    }
+
+    @Test
+    void dropsBucketsOnceAllTheirTokensExpired() throws InterruptedException {
+        JtiReplayGuard shortGuard = new JtiReplayGuard(1, Duration.ofMillis(20));
+        assertThat(shortGuard.markIfAbsent("jti-1", Instant.now().plusMillis(30))).isTrue();
+
+        Thread.sleep(100);
+        // 记录新的 jti 时清理已整体过期的批次
+        assertThat(shortGuard.markIfAbsent("jti-2", Instant.now().plus(Duration.ofMinutes(5)))).isTrue();
+
+        assertThat(shortGuard.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new JtiReplayGuard(0, Duration.ofSeconds(30)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JtiReplayGuard(4, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
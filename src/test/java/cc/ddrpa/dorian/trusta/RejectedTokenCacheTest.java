@@ -0,0 +1,67 @@
+package cc.ddrpa.dorian.trusta;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RejectedTokenCacheTest {
+
+    private static final String ISSUER = "issuer.example.cc";
+
+    private final RejectedTokenCache cache = new RejectedTokenCache(100, Duration.ofMinutes(1));
+    private final TokenDigest digest = TokenDigest.of("header.payload.signature");
+
+    @Test
+    void unknownIssuerAppliesUntilTheIssuerIsRegistered() {
+        cache.put(digest, VerifyOutcome.UNKNOWN_ISSUER, ISSUER, 0);
+
+        assertThat(cache.get(digest, Map.of())).isEqualTo(VerifyOutcome.UNKNOWN_ISSUER);
+        assertThat(cache.get(digest, Map.of(ISSUER, verifier(1)))).isNull();
+        // 不再适用的条目被丢弃
+        assertThat(cache.get(digest, Map.of())).isNull();
+    }
+
+    @Test
+    void badSignatureAppliesOnlyToTheKeysetVersionThatRejectedIt() {
+        cache.put(digest, VerifyOutcome.BAD_SIGNATURE, ISSUER, 3);
+
+        assertThat(cache.get(digest, Map.of(ISSUER, verifier(3)))).isEqualTo(VerifyOutcome.BAD_SIGNATURE);
+        assertThat(cache.get(digest, Map.of(ISSUER, verifier(4)))).isNull();
+    }
+
+    @Test
+    void badSignatureDoesNotApplyOnceTheIssuerIsRemoved() {
+        cache.put(digest, VerifyOutcome.BAD_SIGNATURE, ISSUER, 3);
+
+        assertThat(cache.get(digest, Map.of())).isNull();
+    }
+
+    @Test
+    void otherFailuresApplyRegardlessOfTheIssuers() {
+        cache.put(digest, VerifyOutcome.EXPIRED, ISSUER, 3);
+
+        assertThat(cache.get(digest, Map.of())).isEqualTo(VerifyOutcome.EXPIRED);
+        assertThat(cache.get(digest, Map.of(ISSUER, verifier(4)))).isEqualTo(VerifyOutcome.EXPIRED);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatesEntriesOfAnIssuer() {
+        cache.put(digest, VerifyOutcome.EXPIRED, ISSUER, 3);
+
+        cache.invalidateIssuer(ISSUER);
+
+        assertThat(cache.get(digest, Map.of())).isNull();
+    }
+
+    private static JsonWebTokenVerify verifier(long keysetVersion) {
+        JsonWebTokenVerify verify = mock(JsonWebTokenVerify.class);
+        when(verify.getKeysetVersion()).thenReturn(keysetVersion);
+        return verify;
+    }
+}
@@ -0,0 +1,82 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.KeyRotationProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.crypto.tink.InsecureSecretKeyAccess;
+import com.google.crypto.tink.KeysetHandle;
+import com.google.crypto.tink.TinkJsonProtoKeysetFormat;
+import com.google.crypto.tink.jwt.JwtSignatureConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SigningKeyRotatorTest {
+
+    @TempDir
+    Path directory;
+
+    private Path keysetPath;
+    private final KeyRotationProperties properties = new KeyRotationProperties()
+            .setEnabled(true)
+            .setRotationInterval(Duration.ofDays(30))
+            .setPublishAhead(Duration.ofDays(1))
+            .setRetireAfter(Duration.ofDays(1));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JwtSignatureConfig.register();
+        keysetPath = directory.resolve("private-keyset.json");
+    }
+
+    @Test
+    void instancesSharingTheKeysetGenerateOnlyOnePendingKey() throws Exception {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        KeysetHandle initial = write(KeysetHandle.generateNew(SigningKeyRotator.keyParameters()));
+        SigningKeyRotator first = new SigningKeyRotator(keysetPath, properties, new ObjectMapper());
+        SigningKeyRotator second = new SigningKeyRotator(keysetPath, properties, new ObjectMapper());
+        assertThat(first.rotate(initial, start)).isSameAs(initial);
+        assertThat(second.rotate(initial, start)).isSameAs(initial);
+
+        Instant generateAt = start.plus(Duration.ofDays(29));
+        KeysetHandle rotatedByFirst = first.rotate(initial, generateAt);
+        // 第二个实例仍持有旧的私钥集，应采用第一个实例写入的私钥集而不是再生成一个
+        KeysetHandle seenBySecond = second.rotate(initial, generateAt.plusSeconds(1));
+
+        assertThat(rotatedByFirst.size()).isEqualTo(2);
+        assertThat(seenBySecond.equalsKeyset(rotatedByFirst)).isTrue();
+        assertThat(read().equalsKeyset(rotatedByFirst)).isTrue();
+    }
+
+    @Test
+    void promotionByAnotherInstanceIsKept() throws Exception {
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        KeysetHandle initial = write(KeysetHandle.generateNew(SigningKeyRotator.keyParameters()));
+        SigningKeyRotator first = new SigningKeyRotator(keysetPath, properties, new ObjectMapper());
+        SigningKeyRotator second = new SigningKeyRotator(keysetPath, properties, new ObjectMapper());
+        first.rotate(initial, start);
+        KeysetHandle withPending = first.rotate(initial, start.plus(Duration.ofDays(29)));
+        KeysetHandle promoted = first.rotate(withPending, start.plus(Duration.ofDays(30)));
+
+        KeysetHandle seenBySecond = second.rotate(withPending, start.plus(Duration.ofDays(30)).plusSeconds(1));
+
+        assertThat(seenBySecond.getPrimary().getId()).isEqualTo(promoted.getPrimary().getId());
+        assertThat(read().getPrimary().getId()).isEqualTo(promoted.getPrimary().getId());
+    }
+
+    private KeysetHandle write(KeysetHandle keysetHandle) throws Exception {
+        Files.writeString(keysetPath, TinkJsonProtoKeysetFormat.serializeKeyset(keysetHandle,
+                InsecureSecretKeyAccess.get()));
+        return keysetHandle;
+    }
+
+    private KeysetHandle read() throws Exception {
+        return TinkJsonProtoKeysetFormat.parseKeyset(Files.readString(keysetPath), InsecureSecretKeyAccess.get());
+    }
+}
@@ -0,0 +1,150 @@
+package cc.ddrpa.dorian.trusta;
+
+import cc.ddrpa.dorian.trusta.properties.TrustaProperties;
+import cc.ddrpa.dorian.trusta.properties.TrustedIssuer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 公钥集端点由本地的 HTTP 服务模拟，始终返回 503，注册不依赖公钥集获取成功
+ */
+class TrustaManagerReloadTest {
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private volatile CountDownLatch respond = new CountDownLatch(0);
+    private TrustaManager trustaManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                respond.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.setExecutor(null);
+        server.start();
+        trustaManager = new TrustaManager(properties(issuer("a"), issuer("b"), issuer("c")), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        respond.countDown();
+        trustaManager.close();
+        server.stop(0);
+    }
+
+    @Test
+    void rebuildsOnlyAddedAndChangedIssuers() throws Exception {
+        JsonWebTokenVerify unchanged = trustaManager.getIssuerVerify("a").orElseThrow();
+        JsonWebTokenVerify changed = trustaManager.getIssuerVerify("b").orElseThrow();
+
+        trustaManager.reload(properties(issuer("a"), issuer("b").setSubject("changed"), issuer("d")))
+                .get(10, TimeUnit.SECONDS);
+
+        assertThat(trustaManager.getTrustedIssuers()).containsExactlyInAnyOrder("a", "b", "d");
+        assertThat(trustaManager.getIssuerVerify("a")).containsSame(unchanged);
+        assertThat(trustaManager.getIssuerVerify("b").orElseThrow()).isNotSameAs(changed);
+        assertThat(trustaManager.getIssuerVerify("b").orElseThrow().getTrustedIssuer().getSubject())
+                .isEqualTo("changed");
+    }
+
+    @Test
+    void keepsIssuersWhenConfigurationIsUnchanged() throws Exception {
+        JsonWebTokenVerify a = trustaManager.getIssuerVerify("a").orElseThrow();
+
+        trustaManager.reload(properties(issuer("a"), issuer("b"), issuer("c"))).get(10, TimeUnit.SECONDS);
+
+        assertThat(trustaManager.getTrustedIssuers()).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(trustaManager.getIssuerVerify("a")).containsSame(a);
+    }
+
+    @Test
+    void removalDuringKeyFetchDiscardsTheRegistration() throws Exception {
+        respond = new CountDownLatch(1);
+        CompletableFuture<Boolean> registration = trustaManager.registerIssuer(issuer("d"));
+
+        assertThat(trustaManager.removeIssuer("d")).isFalse();
+        respond.countDown();
+
+        assertThat(registration.get(10, TimeUnit.SECONDS)).isFalse();
+        assertThat(trustaManager.getTrustedIssuers()).doesNotContain("d");
+    }
+
+    @Test
+    void laterReloadWinsOverAnEarlierOneStillFetching() throws Exception {
+        respond = new CountDownLatch(1);
+        CompletableFuture<Void> earlier = trustaManager.reload(
+                properties(issuer("a"), issuer("b").setSubject("earlier"), issuer("c")));
+        CompletableFuture<Void> later = trustaManager.reload(
+                properties(issuer("a"), issuer("b").setSubject("later"), issuer("c")));
+        respond.countDown();
+
+        CompletableFuture.allOf(earlier, later).get(10, TimeUnit.SECONDS);
+
+        assertThat(trustaManager.getIssuerVerify("b").orElseThrow().getTrustedIssuer().getSubject())
+                .isEqualTo("later");
+    }
+
+    @Test
+    void bootstrapStatusFollowsRuntimeRegistrations() throws Exception {
+        assertThat(trustaManager.getBootstrapStatus().getStates()).containsOnlyKeys("a", "b", "c");
+
+        respond = new CountDownLatch(1);
+        CompletableFuture<Boolean> registration = trustaManager.registerIssuer(issuer("d"));
+        assertThat(trustaManager.getBootstrapStatus().getStates())
+                .containsEntry("d", BootstrapStatus.State.PENDING);
+        assertThat(trustaManager.getBootstrapStatus().isComplete()).isFalse();
+        respond.countDown();
+        registration.get(10, TimeUnit.SECONDS);
+
+        assertThat(trustaManager.getBootstrapStatus().getStates())
+                .containsEntry("d", BootstrapStatus.State.FAILED);
+        assertThat(trustaManager.getBootstrapStatus().isComplete()).isTrue();
+    }
+
+    @Test
+    void removedIssuersLeaveTheBootstrapStatus() throws Exception {
+        assertThat(trustaManager.removeIssuer("a")).isTrue();
+        trustaManager.reload(properties(issuer("b"), issuer("e"))).get(10, TimeUnit.SECONDS);
+
+        assertThat(trustaManager.getBootstrapStatus().getStates()).containsOnlyKeys("b", "e");
+    }
+
+    private TrustedIssuer issuer(String name) {
+        return new TrustedIssuer()
+                .setIssuer(name)
+                .setPublicKeyUri("http://127.0.0.1:" + server.getAddress().getPort() + "/" + name + "/jwks.json");
+    }
+
+    private TrustaProperties properties(TrustedIssuer... trustedIssuers) {
+        TrustaProperties properties = new TrustaProperties();
+        properties.setIssuer("self.example.cc");
+        properties.setPrivateKeysetFile(directory.resolve("private-keyset.json").toString());
+        properties.setAllowHttp(true);
+        properties.setTrustedIssuers(List.of(trustedIssuers));
+        properties.getKeyRefresh().setEnabled(false);
+        return properties;
+    }
+}
@@ -0,0 +1,61 @@
+package cc.ddrpa.dorian.trusta;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedClaimsTest {
+
+    private static final String PAYLOAD = "{\"iss\":\"issuer.example.cc\",\"sub\":\"subject\"}";
+    private static final String SIGNED_TOKEN = "eyJhbGciOiJFUzI1NiJ9."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(PAYLOAD.getBytes(StandardCharsets.UTF_8))
+            + ".signature";
+
+    @Test
+    void rawPayloadSurvivesSerializationWithoutTheToken() throws Exception {
+        VerifiedClaims verifiedClaims = claims();
+
+        VerifiedClaims copy = roundTrip(verifiedClaims);
+
+        assertThat(copy.getRawPayload()).isEqualTo(PAYLOAD);
+        assertThat(copy).isEqualTo(verifiedClaims);
+    }
+
+    @Test
+    void equalsDoesNotDecodeThePayload() throws Exception {
+        VerifiedClaims verifiedClaims = claims();
+
+        assertThat(verifiedClaims).isEqualTo(claims());
+        assertThat(verifiedClaims.hashCode()).isEqualTo(claims().hashCode());
+        assertThat(verifiedClaims.toString()).doesNotContain(PAYLOAD);
+    }
+
+    private static VerifiedClaims claims() {
+        VerifiedClaims verifiedClaims = new VerifiedClaims()
+                .setExpiration(Instant.ofEpochSecond(1_900_000_000L))
+                .setJwtId("jti")
+                .setSignedToken(SIGNED_TOKEN);
+        verifiedClaims.setIssuer("issuer.example.cc");
+        verifiedClaims.setSubject("subject");
+        verifiedClaims.setClaimValues(new String[]{"role", "level"}, new Object[]{"admin", 3L});
+        return verifiedClaims;
+    }
+
+    private static VerifiedClaims roundTrip(VerifiedClaims verifiedClaims) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(verifiedClaims);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (VerifiedClaims) in.readObject();
+        }
+    }
+}
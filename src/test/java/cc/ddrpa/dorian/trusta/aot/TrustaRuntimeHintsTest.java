@@ -0,0 +1,43 @@
+package cc.ddrpa.dorian.trusta.aot;
+
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrustaRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new TrustaRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registersSerializationOfClaimValueTypes() {
+        for (Class<?> type : List.of(VerifiedClaims.class, Long.class, Integer.class, Double.class, Boolean.class,
+                ArrayList.class, LinkedHashMap.class)) {
+            assertThat(RuntimeHintsPredicates.serialization().onType(type)).as(type.getName()).accepts(hints);
+        }
+        // 数组声明读取为不可修改的列表
+        Class<?> unmodifiableList = Collections.unmodifiableList(new ArrayList<>()).getClass();
+        assertThat(RuntimeHintsPredicates.serialization().onType(unmodifiableList)).accepts(hints);
+    }
+
+    @Test
+    void registersSerializationOfAuthenticationToken() {
+        assertThat(RuntimeHintsPredicates.serialization()
+                .onType(TypeReference.of("cc.ddrpa.dorian.trusta.security.TrustaAuthenticationToken")))
+                .accepts(hints);
+    }
+}
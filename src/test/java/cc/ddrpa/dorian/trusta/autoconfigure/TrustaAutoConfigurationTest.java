@@ -0,0 +1,48 @@
+package cc.ddrpa.dorian.trusta.autoconfigure;
+
+import cc.ddrpa.dorian.trusta.servlet.PublicKeysetServletHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.web.servlet.function.RouterFunction;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrustaAutoConfigurationTest {
+
+    @TempDir
+    Path directory;
+
+    private WebApplicationContextRunner contextRunner() {
+        return new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class,
+                        TrustaAutoConfiguration.class))
+                .withPropertyValues("trusta.issuer=self.example.cc",
+                        "trusta.private-keyset-file=" + directory.resolve("private-keyset.json"));
+    }
+
+    @Test
+    void servesPublicKeysetWithSpringMvc() {
+        contextRunner().run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(PublicKeysetServletHandler.class);
+            assertThat(context).hasBean("trustaServletPublicKeysetRoute");
+        });
+    }
+
+    @Test
+    void startsWithoutSpringMvc() {
+        contextRunner()
+                .withClassLoader(new FilteredClassLoader(RouterFunction.class))
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).doesNotHaveBean(PublicKeysetServletHandler.class);
+                    assertThat(context).doesNotHaveBean("trustaServletPublicKeysetRoute");
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package cc.ddrpa.dorian.trusta.reactive;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveTrustaManagerTest {
+
+    private final TrustaManager trustaManager = mock(TrustaManager.class);
+    private final AtomicReference<String> verifyingThread = new AtomicReference<>();
+
+    @Test
+    void verifiesOffTheSubscribingThreadWhenSharedStateMayBlock() {
+        when(trustaManager.isSharedStateBlocking()).thenReturn(true);
+        recordVerifyingThread();
+
+        new ReactiveTrustaManager(trustaManager).verify("token").block(Duration.ofSeconds(5));
+
+        assertThat(verifyingThread.get()).startsWith("boundedElastic");
+    }
+
+    @Test
+    void verifiesOnTheSubscribingThreadOtherwise() {
+        when(trustaManager.isSharedStateBlocking()).thenReturn(false);
+        recordVerifyingThread();
+
+        new ReactiveTrustaManager(trustaManager).verify("token").block(Duration.ofSeconds(5));
+
+        assertThat(verifyingThread.get()).isEqualTo(Thread.currentThread().getName());
+    }
+
+    private void recordVerifyingThread() {
+        when(trustaManager.verifyAsync("token")).thenAnswer(invocation -> {
+            verifyingThread.set(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(new VerifiedClaims());
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package cc.ddrpa.dorian.trusta.security;
+
+import cc.ddrpa.dorian.trusta.TrustaManager;
+import cc.ddrpa.dorian.trusta.VerifiedClaims;
+import cc.ddrpa.dorian.trusta.properties.SecurityFilterProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrustaAuthenticationFilterTest {
+
+    private static final String SIGNED_TOKEN = "header.payload.signature";
+    private static final String ISSUER = "issuer.example.cc";
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private final TrustaManager trustaManager = mock(TrustaManager.class);
+    private final SecurityContextHolderStrategy holderStrategy = SecurityContextHolder.getContextHolderStrategy();
+    private TrustaAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        filter = new TrustaAuthenticationFilter(authenticationManager, trustaManager, new SecurityFilterProperties(),
+                8192);
+        session = new MockHttpSession();
+        request = new MockHttpServletRequest();
+        request.setSession(session);
+        request.addHeader("Authorization", "Bearer " + SIGNED_TOKEN);
+        response = new MockHttpServletResponse();
+        when(trustaManager.getTrustedIssuers()).thenReturn(Set.of(ISSUER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        holderStrategy.clearContext();
+    }
+
+    @Test
+    void reusesSessionAuthenticationOfTheSameToken() throws Exception {
+        TrustaAuthenticationToken existing = storeInSession(claims(ISSUER, Instant.now().plus(Duration.ofMinutes(5))));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        verify(authenticationManager, never()).authenticate(any());
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(holderStrategy.getContext().getAuthentication()).isSameAs(existing);
+    }
+
+    @Test
+    void verifiesAgainAndRejectsExpiredSessionAuthentication() throws Exception {
+        storeInSession(claims(ISSUER, Instant.now().minusSeconds(1)));
+        when(authenticationManager.authenticate(any()))
+                .thenThrow(new CredentialsExpiredException("Trusta token rejected: expired"));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        verify(authenticationManager).authenticate(any());
+        assertRejected(chain);
+    }
+
+    @Test
+    void verifiesAgainAndRejectsSessionAuthenticationOfRemovedIssuer() throws Exception {
+        storeInSession(claims(ISSUER, Instant.now().plus(Duration.ofMinutes(5))));
+        when(trustaManager.getTrustedIssuers()).thenReturn(Set.of());
+        when(authenticationManager.authenticate(any()))
+                .thenThrow(new BadCredentialsException("Trusta token rejected: unknown_issuer"));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        verify(authenticationManager).authenticate(any());
+        assertRejected(chain);
+    }
+
+    private void assertRejected(MockFilterChain chain) {
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(holderStrategy.getContext().getAuthentication()).isNull();
+        assertThat(session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY)).isNull();
+    }
+
+    private TrustaAuthenticationToken storeInSession(VerifiedClaims verifiedClaims) {
+        TrustaAuthenticationToken authentication = TrustaAuthenticationToken.authenticated(
+                TrustaAuthenticationToken.digest(SIGNED_TOKEN), verifiedClaims, List.of());
+        SecurityContext context = holderStrategy.createEmptyContext();
+        context.setAuthentication(authentication);
+        holderStrategy.setContext(context);
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+        return authentication;
+    }
+
+    private static VerifiedClaims claims(String issuer, Instant expiration) {
+        VerifiedClaims verifiedClaims = new VerifiedClaims().setExpiration(expiration);
+        verifiedClaims.setIssuer(issuer);
+        verifiedClaims.setSubject("subject");
+        return verifiedClaims;
+    }
+}